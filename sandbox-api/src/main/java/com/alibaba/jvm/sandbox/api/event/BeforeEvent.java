@@ -37,6 +37,16 @@ public class BeforeEvent extends InvokeEvent {
      */
     public final Object[] argumentArray;
 
+    /**
+     * 获取触发调用事件的行为元数据
+     * <p>
+     * 由沙箱触发的事件通过它可以直接获取到行为，手工构造的事件可能为null
+     * </p>
+     *
+     * @since {@code sandbox-api:1.3.3}
+     */
+    public final BehaviorMeta behaviorMeta;
+
     /**
      * 构造调用BEFORE事件
      *
@@ -64,6 +74,32 @@ public class BeforeEvent extends InvokeEvent {
         this.javaMethodDesc = javaMethodDesc;
         this.target = target;
         this.argumentArray = argumentArray;
+        this.behaviorMeta = null;
+    }
+
+    /**
+     * 构造调用BEFORE事件
+     *
+     * @param processId     调用过程ID
+     * @param invokeId      调用ID
+     * @param behaviorMeta  触发调用事件的行为元数据
+     * @param target        触发调用事件的对象(静态方法为null)
+     * @param argumentArray 触发调用事件的方法参数
+     * @since {@code sandbox-api:1.3.3}
+     */
+    public BeforeEvent(final int processId,
+                       final int invokeId,
+                       final BehaviorMeta behaviorMeta,
+                       final Object target,
+                       final Object[] argumentArray) {
+        super(processId, invokeId, Type.BEFORE);
+        this.javaClassLoader = behaviorMeta.getJavaClassLoader();
+        this.javaClassName = behaviorMeta.getJavaClassName();
+        this.javaMethodName = behaviorMeta.getJavaMethodName();
+        this.javaMethodDesc = behaviorMeta.getJavaMethodDesc();
+        this.target = target;
+        this.argumentArray = argumentArray;
+        this.behaviorMeta = behaviorMeta;
     }
 
     /**
@@ -0,0 +1,64 @@
+package com.alibaba.jvm.sandbox.api.event;
+
+import com.alibaba.jvm.sandbox.api.listener.ext.Behavior;
+
+/**
+ * 行为元数据
+ * <p>
+ * 沙箱增强类时为每个被增强的行为分配一个ID并登记它的元数据，
+ * 方法调用时只需要通过ID就能找到触发事件的行为，不需要每次都传递类名、方法名和方法签名
+ * </p>
+ *
+ * @author luanjia@taobao.com
+ * @since {@code sandbox-api:1.3.3}
+ */
+public interface BehaviorMeta {
+
+    /**
+     * 获取行为ID
+     *
+     * @return 行为ID
+     */
+    int getBehaviorId();
+
+    /**
+     * 获取行为所在的ClassLoader
+     *
+     * @return 行为所在的ClassLoader，来自BootstrapClassLoader的类返回null
+     */
+    ClassLoader getJavaClassLoader();
+
+    /**
+     * 获取行为所在的类名称
+     *
+     * @return 行为所在的类名称
+     */
+    String getJavaClassName();
+
+    /**
+     * 获取行为名称
+     *
+     * @return 行为名称
+     */
+    String getJavaMethodName();
+
+    /**
+     * 获取行为签名
+     *
+     * @return 行为签名
+     */
+    String getJavaMethodDesc();
+
+    /**
+     * 获取行为
+     * <p>
+     * 行为在第一次获取时通过反射解析，之后直接返回
+     * </p>
+     *
+     * @return 行为
+     * @throws ClassNotFoundException 行为所在的类找不到
+     * @throws NoSuchMethodException  类中匹配不到行为
+     */
+    Behavior getBehavior() throws ClassNotFoundException, NoSuchMethodException;
+
+}
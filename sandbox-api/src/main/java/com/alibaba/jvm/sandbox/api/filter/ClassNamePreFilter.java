@@ -0,0 +1,25 @@
+package com.alibaba.jvm.sandbox.api.filter;
+
+/**
+ * 类名预过滤器
+ * <p>
+ * {@link Filter}可以同时实现这个接口，容器在解析类结构之前先只根据类名进行过滤，
+ * 一定不会命中的类不再解析类结构，也不再调用{@link Filter#doClassFilter(int, String, String, String[], String[])}
+ * </p>
+ * <p>
+ * 预过滤只对类自身生效，如果过滤器需要搜索子类（实现类），容器不会使用预过滤
+ * </p>
+ *
+ * @since {@code sandbox-api:1.3.3}
+ */
+public interface ClassNamePreFilter {
+
+    /**
+     * 根据类名预过滤
+     *
+     * @param javaClassName 类名
+     * @return TRUE:可能命中，需要继续过滤;FALSE:一定不会命中
+     */
+    boolean doClassNamePreFilter(String javaClassName);
+
+}
@@ -45,7 +45,7 @@ public interface ExtFilter extends Filter {
         public static ExtFilter make(final Filter filter,
                                      final boolean isIncludeSubClasses,
                                      final boolean isIncludeBootstrap) {
-            return new ExtFilter() {
+            final ExtFilter extFilter = new ExtFilter() {
 
                 @Override
                 public boolean isIncludeSubClasses() {
@@ -87,6 +87,9 @@ public interface ExtFilter extends Filter {
                     );
                 }
             };
+            return filter instanceof ClassNamePreFilter
+                    ? new ClassNamePreExtFilter(extFilter, (ClassNamePreFilter) filter)
+                    : extFilter;
         }
 
         /**
@@ -106,6 +109,67 @@ public interface ExtFilter extends Filter {
                     );
         }
 
+        /**
+         * 保留原生过滤器的类名预过滤能力
+         */
+        private static class ClassNamePreExtFilter implements ExtFilter, ClassNamePreFilter {
+
+            private final ExtFilter extFilter;
+            private final ClassNamePreFilter classNamePreFilter;
+
+            ClassNamePreExtFilter(final ExtFilter extFilter,
+                                  final ClassNamePreFilter classNamePreFilter) {
+                this.extFilter = extFilter;
+                this.classNamePreFilter = classNamePreFilter;
+            }
+
+            @Override
+            public boolean isIncludeSubClasses() {
+                return extFilter.isIncludeSubClasses();
+            }
+
+            @Override
+            public boolean isIncludeBootstrap() {
+                return extFilter.isIncludeBootstrap();
+            }
+
+            @Override
+            public boolean doClassNamePreFilter(final String javaClassName) {
+                return classNamePreFilter.doClassNamePreFilter(javaClassName);
+            }
+
+            @Override
+            public boolean doClassFilter(final int access,
+                                         final String javaClassName,
+                                         final String superClassTypeJavaClassName,
+                                         final String[] interfaceTypeJavaClassNameArray,
+                                         final String[] annotationTypeJavaClassNameArray) {
+                return extFilter.doClassFilter(
+                        access,
+                        javaClassName,
+                        superClassTypeJavaClassName,
+                        interfaceTypeJavaClassNameArray,
+                        annotationTypeJavaClassNameArray
+                );
+            }
+
+            @Override
+            public boolean doMethodFilter(final int access,
+                                          final String javaMethodName,
+                                          final String[] parameterTypeJavaClassNameArray,
+                                          final String[] throwsTypeJavaClassNameArray,
+                                          final String[] annotationTypeJavaClassNameArray) {
+                return extFilter.doMethodFilter(
+                        access,
+                        javaMethodName,
+                        parameterTypeJavaClassNameArray,
+                        throwsTypeJavaClassNameArray,
+                        annotationTypeJavaClassNameArray
+                );
+            }
+
+        }
+
     }
 
 }
@@ -1,8 +1,8 @@
 package com.alibaba.jvm.sandbox.api.listener.ext;
 
+import com.alibaba.jvm.sandbox.api.event.BehaviorMeta;
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.api.event.InvokeEvent;
-import com.alibaba.jvm.sandbox.api.util.LazyGet;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -11,52 +11,103 @@ import java.util.Set;
 
 /**
  * 行为通知
+ * <p>
+ * 如果监听器声明了复用通知({@link EventWatchBuilder.IBuildingForWatching#withReusableAdvice()})，
+ * 通知在{@link AdviceListener#after(Advice)}之后会被回收并在同一线程中复用，
+ * 此时监听器不能在{@code after()}之后继续持有和访问通知
+ * </p>
  *
  * @author luanjia@taobao.com
  * @since {@code sandbox-api:1.0.10}
  */
 public class Advice implements Attachment {
 
-    private final int processId;
-    private final int invokeId;
+    private int processId;
+    private int invokeId;
 
-    private final ClassLoader loader;
-    private final LazyGet<Behavior> behaviorLazyGet;
-    private final Object[] parameterArray;
-    private final Object target;
+    private AdviceAdapterListener listener;
+    private ClassLoader loader;
+    private String javaClassName;
+    private String javaMethodName;
+    private String javaMethodDesc;
+    private BehaviorMeta behaviorMeta;
+    private Behavior behavior;
+    private Object[] parameterArray;
+    private Object target;
 
     private Object returnObj;
     private Throwable throwable;
 
     private Object attachment;
-    private Set<String> marks = new HashSet<String>();
+
+    // 标记只有被用到时才分配
+    private Set<String> marks;
 
     private Advice top = this;
     private Advice parent = this;
     private Event.Type state = Event.Type.BEFORE;
 
     /**
-     * 构造通知
+     * 构造通知，需要通过{@link #init}初始化之后才能使用
+     */
+    Advice() {
+    }
+
+    /**
+     * 初始化通知
+     * <p>
+     * 通知复用时也通过此方法重新初始化，之前的状态会被全部覆盖
+     * </p>
      *
      * @param processId      {@link InvokeEvent#processId}
      * @param invokeId       {@link InvokeEvent#invokeId}
-     * @param behaviorLazyGet 触发事件的行为(懒加载)
+     * @param listener       通知所属的监听器，用于懒加载触发事件的行为
      * @param loader         触发事件的行为所在ClassLoader
+     * @param javaClassName  触发事件的行为所在类名称
+     * @param javaMethodName 触发事件的行为名称
+     * @param javaMethodDesc 触发事件的行为描述
+     * @param behaviorMeta   触发事件的行为元数据，可以为null
      * @param parameterArray 触发事件的行为入参
      * @param target         触发事件所归属的对象实例
+     * @return this
      */
-    Advice(final int processId,
-           final int invokeId,
-           final LazyGet<Behavior> behaviorLazyGet,
-           final ClassLoader loader,
-           final Object[] parameterArray,
-           final Object target) {
+    Advice init(final int processId,
+                final int invokeId,
+                final AdviceAdapterListener listener,
+                final ClassLoader loader,
+                final String javaClassName,
+                final String javaMethodName,
+                final String javaMethodDesc,
+                final BehaviorMeta behaviorMeta,
+                final Object[] parameterArray,
+                final Object target) {
         this.processId = processId;
         this.invokeId = invokeId;
-        this.behaviorLazyGet = behaviorLazyGet;
+        this.listener = listener;
         this.loader = loader;
+        this.javaClassName = javaClassName;
+        this.javaMethodName = javaMethodName;
+        this.javaMethodDesc = javaMethodDesc;
+        this.behaviorMeta = behaviorMeta;
+        this.behavior = null;
         this.parameterArray = parameterArray;
         this.target = target;
+        this.returnObj = null;
+        this.throwable = null;
+        this.attachment = null;
+        if (null != marks) {
+            marks.clear();
+        }
+        this.top = this.parent = this;
+        this.state = Event.Type.BEFORE;
+        return this;
+    }
+
+    /**
+     * 回收通知，释放通知所引用的对象，以免复用的通知让业务对象无法被回收
+     */
+    void recycle() {
+        init(0, 0, null, null, null, null, null, null, null, null);
     }
 
     /**
@@ -141,7 +192,17 @@ public class Advice implements Attachment {
      * @return 触发事件的行为
      */
     public Behavior getBehavior() {
-        return behaviorLazyGet.get();
+        if (null == behavior) {
+            try {
+                // 由沙箱触发的事件直接从行为元数据中获取，否则根据类名、方法名和方法签名查找
+                behavior = null != behaviorMeta
+                        ? behaviorMeta.getBehavior()
+                        : listener.toBehavior(loader, javaClassName, javaMethodName, javaMethodDesc);
+            } catch (Throwable cause) {
+                throw new BehaviorUnCaughtException(cause);
+            }
+        }
+        return behavior;
     }
 
     /**
@@ -226,6 +287,9 @@ public class Advice implements Attachment {
      * @param mark 标记
      */
     public void mark(final String mark) {
+        if (null == marks) {
+            marks = new HashSet<String>();
+        }
         marks.add(mark);
     }
 
@@ -236,7 +300,8 @@ public class Advice implements Attachment {
      * @return TRUE:拥有;FALSE:不拥有
      */
     public boolean hasMark(final String exceptMark) {
-        return marks.contains(exceptMark);
+        return null != marks
+                && marks.contains(exceptMark);
     }
 
     /**
@@ -246,7 +311,8 @@ public class Advice implements Attachment {
      * @return TRUE:标记曾经存在，现已删；FALSE：标记从未存在，现已删；
      */
     public boolean unMark(final String mark) {
-        return marks.remove(mark);
+        return null != marks
+                && marks.remove(mark);
     }
 
     /**
@@ -296,5 +362,11 @@ public class Advice implements Attachment {
         return advices;
     }
 
+    private static class BehaviorUnCaughtException extends RuntimeException {
+        BehaviorUnCaughtException(Throwable cause) {
+            super(cause);
+        }
+    }
+
 }
 
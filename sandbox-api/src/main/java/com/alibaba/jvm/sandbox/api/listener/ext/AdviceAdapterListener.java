@@ -3,13 +3,13 @@ package com.alibaba.jvm.sandbox.api.listener.ext;
 import com.alibaba.jvm.sandbox.api.event.*;
 import com.alibaba.jvm.sandbox.api.listener.EventListener;
 import com.alibaba.jvm.sandbox.api.util.BehaviorDescriptor;
-import com.alibaba.jvm.sandbox.api.util.CacheGet;
 import com.alibaba.jvm.sandbox.api.util.GaStringUtils;
-import com.alibaba.jvm.sandbox.api.util.LazyGet;
+import com.alibaba.jvm.sandbox.api.util.WeakCacheGet;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.Stack;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 通知监听器
@@ -20,9 +20,25 @@ import java.util.Stack;
 public class AdviceAdapterListener implements EventListener {
 
     private final AdviceListener adviceListener;
+    private final boolean isReusableAdvice;
 
     public AdviceAdapterListener(final AdviceListener adviceListener) {
+        this(adviceListener, false);
+    }
+
+    /**
+     * 构造通知监听器
+     *
+     * @param adviceListener   通知监听器
+     * @param isReusableAdvice 是否在线程内复用通知
+     *                         复用的通知在{@link AdviceListener#after(Advice)}之后会被回收，监听器不能继续持有；
+     *                         复用时通知堆栈会一直保留在执行过的线程中
+     * @since {@code sandbox-api:1.3.3}
+     */
+    public AdviceAdapterListener(final AdviceListener adviceListener,
+                                 final boolean isReusableAdvice) {
         this.adviceListener = adviceListener;
+        this.isReusableAdvice = isReusableAdvice;
     }
 
     private final ThreadLocal<OpStack> opStackRef = new ThreadLocal<OpStack>() {
@@ -38,8 +54,11 @@ public class AdviceAdapterListener implements EventListener {
         try {
             switchEvent(opStack, event);
         } finally {
-            // 如果执行到TOP的最后一个事件，则需要主动清理占用的资源
-            if (opStack.isEmpty()) {
+            // 如果执行到TOP的最后一个事件，则需要主动清理占用的资源；
+            // 否则ThreadLocal会一直留在业务线程中，钉住加载本类的ClassLoader，模块卸载后无法回收。
+            // 只有明确开启了通知复用才把堆栈留给下次调用过程复用，但如果堆栈曾经过深，仍然需要清理
+            if (opStack.isEmpty()
+                    && (!isReusableAdvice || opStack.isOversize())) {
                 opStackRef.remove();
             }
         }
@@ -54,48 +73,36 @@ public class AdviceAdapterListener implements EventListener {
         switch (event.type) {
             case BEFORE: {
                 final BeforeEvent bEvent = (BeforeEvent) event;
-                final ClassLoader loader = toClassLoader(bEvent.javaClassLoader);
-                final Advice advice = new Advice(
+                final Advice parent = opStack.isEmpty()
+                        ? null
+                        : opStack.peek().advice;
+                final Frame frame = opStack.pushForBegin();
+                final Advice advice = isReusableAdvice && null != frame.advice
+                        ? frame.advice
+                        : new Advice();
+                frame.advice = advice.init(
                         bEvent.processId,
                         bEvent.invokeId,
-                        new LazyGet<Behavior>() {
-
-                            private final ClassLoader _loader = loader;
-                            private final String _javaClassName = bEvent.javaClassName;
-                            private final String _javaMethodName = bEvent.javaMethodName;
-                            private final String _javaMethodDesc = bEvent.javaMethodDesc;
-
-                            @Override
-                            protected Behavior initialValue() throws Throwable {
-                                return toBehavior(
-                                        toClass(_loader, _javaClassName),
-                                        _javaMethodName,
-                                        _javaMethodDesc
-                                );
-                            }
-                        },
-                        loader,
+                        this,
+                        toClassLoader(bEvent.javaClassLoader),
+                        bEvent.javaClassName,
+                        bEvent.javaMethodName,
+                        bEvent.javaMethodDesc,
+                        bEvent.behaviorMeta,
                         bEvent.argumentArray,
                         bEvent.target
                 );
 
-                final Advice top;
-                final Advice parent;
-
                 // 顶层调用
-                if (opStack.isEmpty()) {
-                    top = parent = advice;
+                if (null == parent) {
+                    advice.applyBefore(advice, advice);
                 }
 
                 // 非顶层
                 else {
-                    parent = opStack.peek().advice;
-                    top = parent.getProcessTop();
+                    advice.applyBefore(parent.getProcessTop(), parent);
                 }
 
-                advice.applyBefore(top, parent);
-
-                opStackRef.get().pushForBegin(advice);
                 adviceListener.before(advice);
                 break;
             }
@@ -104,33 +111,44 @@ public class AdviceAdapterListener implements EventListener {
             case IMMEDIATELY_THROWS:
             case IMMEDIATELY_RETURN: {
                 final InvokeEvent invokeEvent = (InvokeEvent) event;
-                opStack.popByExpectInvokeId(invokeEvent.invokeId);
+                final Frame frame = opStack.popByExpectInvokeId(invokeEvent.invokeId);
+                if (null != frame) {
+                    frame.release(isReusableAdvice);
+                }
                 // 修复#123
                 break;
             }
 
             case RETURN: {
                 final ReturnEvent rEvent = (ReturnEvent) event;
-                final WrapAdvice wrapAdvice = opStack.popByExpectInvokeId(rEvent.invokeId);
-                if (null != wrapAdvice) {
-                    Advice advice = wrapAdvice.advice.applyReturn(rEvent.object);
+                final Frame frame = opStack.popByExpectInvokeId(rEvent.invokeId);
+                if (null != frame) {
+                    final Advice advice = frame.advice.applyReturn(rEvent.object);
                     try {
                         adviceListener.afterReturning(advice);
                     } finally {
-                        adviceListener.after(advice);
+                        try {
+                            adviceListener.after(advice);
+                        } finally {
+                            frame.release(isReusableAdvice);
+                        }
                     }
                 }
                 break;
             }
             case THROWS: {
                 final ThrowsEvent tEvent = (ThrowsEvent) event;
-                final WrapAdvice wrapAdvice = opStack.popByExpectInvokeId(tEvent.invokeId);
-                if (null != wrapAdvice) {
-                    Advice advice = wrapAdvice.advice.applyThrows(tEvent.throwable);
+                final Frame frame = opStack.popByExpectInvokeId(tEvent.invokeId);
+                if (null != frame) {
+                    final Advice advice = frame.advice.applyThrows(tEvent.throwable);
                     try {
                         adviceListener.afterThrowing(advice);
                     } finally {
-                        adviceListener.after(advice);
+                        try {
+                            adviceListener.after(advice);
+                        } finally {
+                            frame.release(isReusableAdvice);
+                        }
                     }
                 }
                 break;
@@ -138,53 +156,51 @@ public class AdviceAdapterListener implements EventListener {
 
             case CALL_BEFORE: {
                 final CallBeforeEvent cbEvent = (CallBeforeEvent) event;
-                final WrapAdvice wrapAdvice = opStack.peekByExpectInvokeId(cbEvent.invokeId);
-                if (null == wrapAdvice) {
+                final Frame frame = opStack.peekByExpectInvokeId(cbEvent.invokeId);
+                if (null == frame) {
                     return;
                 }
-                final CallTarget target;
-                wrapAdvice.attach(target = new CallTarget(
+                frame.attachCallTarget(
                         cbEvent.lineNumber,
-                        toJavaClassName(cbEvent.owner),
+                        cbEvent.owner,
                         cbEvent.name,
                         cbEvent.desc
-                ));
+                );
                 adviceListener.beforeCall(
-                        wrapAdvice.advice,
-                        target.callLineNum,
-                        target.callJavaClassName,
-                        target.callJavaMethodName,
-                        target.callJavaMethodDesc
+                        frame.advice,
+                        frame.callLineNum,
+                        frame.callJavaClassName,
+                        frame.callJavaMethodName,
+                        frame.callJavaMethodDesc
                 );
                 break;
             }
 
             case CALL_RETURN: {
                 final CallReturnEvent crEvent = (CallReturnEvent) event;
-                final WrapAdvice wrapAdvice = opStack.peekByExpectInvokeId(crEvent.invokeId);
-                if (null == wrapAdvice) {
+                final Frame frame = opStack.peekByExpectInvokeId(crEvent.invokeId);
+                if (null == frame) {
                     return;
                 }
-                final CallTarget target = wrapAdvice.attachment();
-                if (null == target) {
+                if (!frame.hasCallTarget) {
                     // 这里做一个容灾保护，防止在callBefore()中发生什么异常导致beforeCall()之前失败
                     return;
                 }
                 try {
                     adviceListener.afterCallReturning(
-                            wrapAdvice.advice,
-                            target.callLineNum,
-                            target.callJavaClassName,
-                            target.callJavaMethodName,
-                            target.callJavaMethodDesc
+                            frame.advice,
+                            frame.callLineNum,
+                            frame.callJavaClassName,
+                            frame.callJavaMethodName,
+                            frame.callJavaMethodDesc
                     );
                 } finally {
                     adviceListener.afterCall(
-                            wrapAdvice.advice,
-                            target.callLineNum,
-                            target.callJavaClassName,
-                            target.callJavaMethodName,
-                            target.callJavaMethodDesc,
+                            frame.advice,
+                            frame.callLineNum,
+                            frame.callJavaClassName,
+                            frame.callJavaMethodName,
+                            frame.callJavaMethodDesc,
                             null
                     );
                 }
@@ -193,31 +209,30 @@ public class AdviceAdapterListener implements EventListener {
 
             case CALL_THROWS: {
                 final CallThrowsEvent ctEvent = (CallThrowsEvent) event;
-                final WrapAdvice wrapAdvice = opStack.peekByExpectInvokeId(ctEvent.invokeId);
-                if (null == wrapAdvice) {
+                final Frame frame = opStack.peekByExpectInvokeId(ctEvent.invokeId);
+                if (null == frame) {
                     return;
                 }
-                final CallTarget target = wrapAdvice.attachment();
-                if (null == target) {
+                if (!frame.hasCallTarget) {
                     // 这里做一个容灾保护，防止在callBefore()中发生什么异常导致beforeCall()之前失败
                     return;
                 }
                 try {
                     adviceListener.afterCallThrowing(
-                            wrapAdvice.advice,
-                            target.callLineNum,
-                            target.callJavaClassName,
-                            target.callJavaMethodName,
-                            target.callJavaMethodDesc,
+                            frame.advice,
+                            frame.callLineNum,
+                            frame.callJavaClassName,
+                            frame.callJavaMethodName,
+                            frame.callJavaMethodDesc,
                             ctEvent.throwException
                     );
                 } finally {
                     adviceListener.afterCall(
-                            wrapAdvice.advice,
-                            target.callLineNum,
-                            target.callJavaClassName,
-                            target.callJavaMethodName,
-                            target.callJavaMethodDesc,
+                            frame.advice,
+                            frame.callLineNum,
+                            frame.callJavaClassName,
+                            frame.callJavaMethodName,
+                            frame.callJavaMethodDesc,
                             ctEvent.throwException
                     );
                 }
@@ -226,11 +241,11 @@ public class AdviceAdapterListener implements EventListener {
 
             case LINE: {
                 final LineEvent lEvent = (LineEvent) event;
-                final WrapAdvice wrapAdvice = opStack.peekByExpectInvokeId(lEvent.invokeId);
-                if (null == wrapAdvice) {
+                final Frame frame = opStack.peekByExpectInvokeId(lEvent.invokeId);
+                if (null == frame) {
                     return;
                 }
-                adviceListener.beforeLine(wrapAdvice.advice, lEvent.lineNumber);
+                adviceListener.beforeLine(frame.advice, lEvent.lineNumber);
                 break;
             }
 
@@ -245,27 +260,43 @@ public class AdviceAdapterListener implements EventListener {
 
     /**
      * 通知操作堆栈
+     * <p>
+     * 只在当前线程中访问，所以不需要同步；帧在出栈之后仍然保留在数组中，下次入栈时直接复用
+     * </p>
      */
-    private class OpStack {
+    private static class OpStack {
 
-        private final Stack<WrapAdvice> adviceStack = new Stack<WrapAdvice>();
+        // 堆栈超过这个深度之后，调用过程结束时不再保留
+        private static final int RETAIN_CAPACITY = 64;
+
+        private Frame[] frames = new Frame[16];
+        private int size;
 
         boolean isEmpty() {
-            return adviceStack.isEmpty();
+            return size == 0;
         }
 
-        WrapAdvice peek() {
-            return adviceStack.peek();
+        boolean isOversize() {
+            return frames.length > RETAIN_CAPACITY;
         }
 
-        void pushForBegin(final Advice advice) {
-            adviceStack.push(new WrapAdvice(advice));
+        Frame peek() {
+            return frames[size - 1];
         }
 
-        WrapAdvice pop() {
-            return !adviceStack.isEmpty()
-                    ? adviceStack.pop()
-                    : null;
+        Frame pushForBegin() {
+            if (size == frames.length) {
+                final Frame[] newFrames = new Frame[size << 1];
+                System.arraycopy(frames, 0, newFrames, 0, size);
+                frames = newFrames;
+            }
+            Frame frame = frames[size];
+            if (null == frame) {
+                frames[size] = frame = new Frame();
+            }
+            frame.hasCallTarget = false;
+            size++;
+            return frame;
         }
 
         /**
@@ -275,30 +306,76 @@ public class AdviceAdapterListener implements EventListener {
          *
          * @param expectInvokeId 期待的invokeId
          *                       必须要求和BEFORE的invokeId配对
-         * @return 如果invokeId配对成功，则返回对应的Advice，否则返回null
+         * @return 如果invokeId配对成功，则返回对应的帧，否则返回null
          */
-        WrapAdvice popByExpectInvokeId(final int expectInvokeId) {
-            return !adviceStack.isEmpty()
-                    && adviceStack.peek().advice.getInvokeId() == expectInvokeId
-                    ? adviceStack.pop()
+        Frame popByExpectInvokeId(final int expectInvokeId) {
+            return size > 0
+                    && frames[size - 1].advice.getInvokeId() == expectInvokeId
+                    ? frames[--size]
                     : null;
         }
 
-        WrapAdvice peekByExpectInvokeId(final int expectInvokeId) {
-            return !adviceStack.isEmpty()
-                    && adviceStack.peek().advice.getInvokeId() == expectInvokeId
-                    ? adviceStack.peek()
+        Frame peekByExpectInvokeId(final int expectInvokeId) {
+            return size > 0
+                    && frames[size - 1].advice.getInvokeId() == expectInvokeId
+                    ? frames[size - 1]
                     : null;
         }
 
     }
 
+    /**
+     * 通知堆栈中的帧，封装通知以及最近一次CALL的目标
+     */
+    private static class Frame {
+
+        Advice advice;
+
+        boolean hasCallTarget;
+        int callLineNum;
+        String callOwner;
+        String callJavaClassName;
+        String callJavaMethodName;
+        String callJavaMethodDesc;
+
+        void attachCallTarget(final int callLineNum,
+                              final String callOwner,
+                              final String callJavaMethodName,
+                              final String callJavaMethodDesc) {
+            // 同一个方法内连续调用同一个类的方法十分常见，这里避免重复转换类名
+            if (null == callOwner
+                    || !callOwner.equals(this.callOwner)) {
+                this.callOwner = callOwner;
+                this.callJavaClassName = toJavaClassName(callOwner);
+            }
+            this.callLineNum = callLineNum;
+            this.callJavaMethodName = callJavaMethodName;
+            this.callJavaMethodDesc = callJavaMethodDesc;
+            this.hasCallTarget = true;
+        }
+
+        /**
+         * 出栈之后释放帧：复用通知时回收通知留待下次入栈，否则直接丢弃
+         *
+         * @param isReusableAdvice 是否复用通知
+         */
+        void release(final boolean isReusableAdvice) {
+            if (isReusableAdvice) {
+                advice.recycle();
+            } else {
+                advice = null;
+            }
+            hasCallTarget = false;
+        }
+
+    }
+
     // change internalClassName to javaClassName
-    private String toJavaClassName(final String internalClassName) {
+    private static String toJavaClassName(final String internalClassName) {
         if (GaStringUtils.isEmpty(internalClassName)) {
             return internalClassName;
         } else {
-            return internalClassName.replaceAll("/", ".");
+            return internalClassName.replace('/', '.');
         }
     }
 
@@ -316,105 +393,40 @@ public class AdviceAdapterListener implements EventListener {
     }
 
 
-    /**
-     * 行为缓存KEY对象
-     */
-    private static class BehaviorCacheKey {
-        private final Class<?> clazz;
-        private final String javaMethodName;
-        private final String javaMethodDesc;
-
-        private BehaviorCacheKey(final Class<?> clazz,
-                                 final String javaMethodName,
-                                 final String javaMethodDesc) {
-            this.clazz = clazz;
-            this.javaMethodName = javaMethodName;
-            this.javaMethodDesc = javaMethodDesc;
-        }
-
-        @Override
-        public int hashCode() {
-            return clazz.hashCode()
-                    + javaMethodName.hashCode()
-                    + javaMethodDesc.hashCode();
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (null == o
-                    || !(o instanceof BehaviorCacheKey)) {
-                return false;
-            }
-            final BehaviorCacheKey key = (BehaviorCacheKey) o;
-            return clazz.equals(key.clazz)
-                    && javaMethodName.equals(key.javaMethodName)
-                    && javaMethodDesc.equals(key.javaMethodDesc);
-        }
-
-    }
-
     // 行为缓存，为了增加性能，不要每次都从class通过反射获取行为
-    private final CacheGet<BehaviorCacheKey, Behavior> toBehaviorCacheGet
-            = new CacheGet<BehaviorCacheKey, Behavior>() {
+    // 一个类的所有行为在第一次访问时一起解析，按"行为名称+行为描述"索引
+    // 行为引用着类和ClassLoader，所以类和解析出的行为都只被弱引用，GC之后需要重新解析
+    private final WeakCacheGet<Class<?>, Map<String, Behavior>> toBehaviorCacheGet
+            = new WeakCacheGet<Class<?>, Map<String, Behavior>>() {
         @Override
-        protected Behavior load(BehaviorCacheKey key) {
-            if ("<init>".equals(key.javaMethodName)) {
-                for (final Constructor<?> constructor : key.clazz.getDeclaredConstructors()) {
-                    if (key.javaMethodDesc.equals(new BehaviorDescriptor(constructor).getDescriptor())) {
-                        return new Behavior.ConstructorImpl(constructor);
-                    }
-                }
-            } else {
-                for (final Method method : key.clazz.getDeclaredMethods()) {
-                    if (key.javaMethodName.equals(method.getName())
-                            && key.javaMethodDesc.equals(new BehaviorDescriptor(method).getDescriptor())) {
-                        return new Behavior.MethodImpl(method);
-                    }
-                }
+        protected Map<String, Behavior> load(Class<?> clazz) {
+            final Map<String, Behavior> behaviors = new HashMap<String, Behavior>();
+            for (final Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                behaviors.put("<init>" + new BehaviorDescriptor(constructor).getDescriptor(), new Behavior.ConstructorImpl(constructor));
             }
-            return null;
+            for (final Method method : clazz.getDeclaredMethods()) {
+                behaviors.put(method.getName() + new BehaviorDescriptor(method).getDescriptor(), new Behavior.MethodImpl(method));
+            }
+            return behaviors;
         }
     };
 
     /**
-     * CALL目标对象
-     */
-    private static class CallTarget {
-
-        final int callLineNum;
-        final String callJavaClassName;
-        final String callJavaMethodName;
-        final String callJavaMethodDesc;
-
-        CallTarget(int callLineNum, String callJavaClassName, String callJavaMethodName, String callJavaMethodDesc) {
-            this.callLineNum = callLineNum;
-            this.callJavaClassName = callJavaClassName;
-            this.callJavaMethodName = callJavaMethodName;
-            this.callJavaMethodDesc = callJavaMethodDesc;
-        }
-    }
-
-    /**
-     * 通知内部封装，主要是要封装掉attachment
+     * 根据提供的类名称、行为名称、行为描述获取对应的行为，供{@link Advice#getBehavior()}懒加载
+     *
+     * @param loader         行为所在的ClassLoader
+     * @param javaClassName  行为所在的类名称
+     * @param javaMethodName 行为名称
+     * @param javaMethodDesc 行为参数声明
+     * @return 匹配的行为
+     * @throws ClassNotFoundException 如果找不到类，则抛出该异常
+     * @throws NoSuchMethodException  如果匹配不到行为，则抛出该异常
      */
-    private static class WrapAdvice implements Attachment {
-
-        final Advice advice;
-        Object attachment;
-
-        WrapAdvice(Advice advice) {
-            this.advice = advice;
-        }
-
-        @Override
-        public void attach(Object attachment) {
-            this.attachment = attachment;
-        }
-
-        @Override
-        public <T> T attachment() {
-            return (T) attachment;
-        }
+    Behavior toBehavior(final ClassLoader loader,
+                        final String javaClassName,
+                        final String javaMethodName,
+                        final String javaMethodDesc) throws ClassNotFoundException, NoSuchMethodException {
+        return toBehavior(toClass(loader, javaClassName), javaMethodName, javaMethodDesc);
     }
 
     /**
@@ -429,7 +441,7 @@ public class AdviceAdapterListener implements EventListener {
     private Behavior toBehavior(final Class<?> clazz,
                                 final String javaMethodName,
                                 final String javaMethodDesc) throws NoSuchMethodException {
-        final Behavior behavior = toBehaviorCacheGet.getFromCache(new BehaviorCacheKey(clazz, javaMethodName, javaMethodDesc));
+        final Behavior behavior = toBehaviorCacheGet.getFromCache(clazz).get(javaMethodName + javaMethodDesc);
         if (null == behavior) {
             throw new NoSuchMethodException(String.format("%s.%s(%s)", clazz.getName(), javaMethodName, javaMethodDesc));
         }
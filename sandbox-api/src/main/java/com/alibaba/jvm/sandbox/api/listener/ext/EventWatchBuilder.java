@@ -2,6 +2,7 @@ package com.alibaba.jvm.sandbox.api.listener.ext;
 
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.api.filter.AccessFlags;
+import com.alibaba.jvm.sandbox.api.filter.ClassNamePreFilter;
 import com.alibaba.jvm.sandbox.api.filter.ExtFilter;
 import com.alibaba.jvm.sandbox.api.filter.Filter;
 import com.alibaba.jvm.sandbox.api.listener.EventListener;
@@ -9,11 +10,13 @@ import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
 import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher.Progress;
 import com.alibaba.jvm.sandbox.api.util.GaArrayUtils;
 import com.alibaba.jvm.sandbox.api.util.GaStringUtils;
+import com.alibaba.jvm.sandbox.api.util.GaWildcardPattern;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import static com.alibaba.jvm.sandbox.api.event.Event.Type.*;
 import static com.alibaba.jvm.sandbox.api.listener.ext.EventWatchBuilder.PatternType.WILDCARD;
@@ -248,6 +251,36 @@ public class EventWatchBuilder {
          */
         IBuildingForWatching withLine();
 
+        /**
+         * 声明监听器不需要读取方法的参数和{@code this}
+         * 调用之后，
+         * <ul>
+         * <li>埋点不再构造参数数组，方法调用时不再产生参数数组的分配和基础类型的装箱</li>
+         * <li>{@link Advice#getParameterArray()}为空数组，{@link Advice#getTarget()}为{@code null}</li>
+         * <li>不能通过{@link Advice#changeParameter(int, Object)}修改方法参数</li>
+         * </ul>
+         * 适用于只做调用计数、耗时统计等不关心参数的观察
+         *
+         * @return IBuildingForWatching
+         * @since {@code sandbox-api:1.3.3}
+         */
+        IBuildingForWatching withoutParameters();
+
+        /**
+         * 声明通知监听器不会在{@link AdviceListener#after(Advice)}之后继续持有通知
+         * 调用之后，
+         * <ul>
+         * <li>通知在{@code after()}之后被回收，并在同一线程的下一次调用中复用，稳定运行时不再为通知分配内存</li>
+         * <li>监听器不能在{@code after()}之后继续访问通知，包括在子调用的通知中保存的父通知和顶层通知</li>
+         * <li>执行过被观察方法的线程会一直保留通知堆栈，线程结束之前加载监听器的ClassLoader不能被回收</li>
+         * </ul>
+         * 只对{@link #onWatch(AdviceListener)}生效
+         *
+         * @return IBuildingForWatching
+         * @since {@code sandbox-api:1.3.3}
+         */
+        IBuildingForWatching withReusableAdvice();
+
         /**
          * 使用通知监听器观察
          *
@@ -338,23 +371,57 @@ public class EventWatchBuilder {
     }
 
     /**
-     * 模式匹配
+     * 编译后的匹配模版
+     */
+    private interface CompiledPattern {
+
+        /**
+         * 模式匹配
+         *
+         * @param string 目标字符串
+         * @return TRUE:匹配成功 / FALSE:匹配失败
+         */
+        boolean matching(String string);
+
+    }
+
+    /**
+     * 编译匹配模版
+     * <p>匹配模版在构建时编译一次，过滤类和行为时复用</p>
      *
-     * @param string      目标字符串
      * @param pattern     模式字符串
      * @param patternType 匹配模式
-     * @return TRUE:匹配成功 / FALSE:匹配失败
+     * @return 编译后的匹配模版
      */
-    private static boolean patternMatching(final String string,
-                                           final String pattern,
-                                           final PatternType patternType) {
+    private static CompiledPattern compilePattern(final String pattern,
+                                                  final PatternType patternType) {
         switch (patternType) {
-            case WILDCARD:
-                return GaStringUtils.matching(string, pattern);
-            case REGEX:
-                return string.matches(pattern);
+            case WILDCARD: {
+                final GaWildcardPattern wildcardPattern = GaWildcardPattern.compile(pattern);
+                return new CompiledPattern() {
+                    @Override
+                    public boolean matching(final String string) {
+                        return wildcardPattern.matching(string);
+                    }
+                };
+            }
+            case REGEX: {
+                final Pattern regexPattern = Pattern.compile(pattern);
+                return new CompiledPattern() {
+                    @Override
+                    public boolean matching(final String string) {
+                        return null != string
+                                && regexPattern.matcher(string).matches();
+                    }
+                };
+            }
             default:
-                return false;
+                return new CompiledPattern() {
+                    @Override
+                    public boolean matching(final String string) {
+                        return false;
+                    }
+                };
         }
     }
 
@@ -438,6 +505,7 @@ public class EventWatchBuilder {
     private class BuildingForClass implements IBuildingForClass {
 
         private final String pattern;
+        private final CompiledPattern compiledPattern;
         private int withAccess = 0;
         private boolean isIncludeSubClasses = false;
         private boolean isIncludeBootstrap = false;
@@ -452,6 +520,7 @@ public class EventWatchBuilder {
          */
         BuildingForClass(final String pattern) {
             this.pattern = pattern;
+            this.compiledPattern = compilePattern(pattern, patternType);
         }
 
         @Override
@@ -547,6 +616,7 @@ public class EventWatchBuilder {
 
         private final BuildingForClass bfClass;
         private final String pattern;
+        private final CompiledPattern compiledPattern;
         private int withAccess = 0;
         private final PatternGroupList withParameterTypes = new PatternGroupList();
         private final PatternGroupList hasExceptionTypes = new PatternGroupList();
@@ -556,6 +626,7 @@ public class EventWatchBuilder {
                             final String pattern) {
             this.bfClass = bfClass;
             this.pattern = pattern;
+            this.compiledPattern = compilePattern(pattern, patternType);
         }
 
         @Override
@@ -668,6 +739,8 @@ public class EventWatchBuilder {
 
         private final Set<Event.Type> eventTypeSet = new HashSet<Event.Type>();
         private final List<Progress> progresses = new ArrayList<Progress>();
+        private boolean isWithoutParameters = false;
+        private boolean isReusableAdvice = false;
 
         @Override
         public IBuildingForWatching withProgress(Progress progress) {
@@ -691,6 +764,18 @@ public class EventWatchBuilder {
             return this;
         }
 
+        @Override
+        public IBuildingForWatching withoutParameters() {
+            isWithoutParameters = true;
+            return this;
+        }
+
+        @Override
+        public IBuildingForWatching withReusableAdvice() {
+            isReusableAdvice = true;
+            return this;
+        }
+
         @Override
         public EventWatcher onWatch(AdviceListener adviceListener) {
             eventTypeSet.add(BEFORE);
@@ -699,24 +784,34 @@ public class EventWatchBuilder {
             eventTypeSet.add(IMMEDIATELY_RETURN);
             eventTypeSet.add(IMMEDIATELY_THROWS);
             return build(
-                    new AdviceAdapterListener(adviceListener),
+                    new AdviceAdapterListener(adviceListener, isReusableAdvice),
                     toProgressGroup(progresses),
+                    isWithoutParameters,
                     eventTypeSet.toArray(EMPTY)
             );
         }
 
         @Override
         public EventWatcher onWatch(EventListener eventListener, Event.Type... eventTypeArray) {
-            return build(eventListener, toProgressGroup(progresses), eventTypeArray);
+            return build(eventListener, toProgressGroup(progresses), isWithoutParameters, eventTypeArray);
         }
 
     }
 
+    // 能根据类名预过滤的过滤器
+    private interface ClassNamePreFilterableFilter extends Filter, ClassNamePreFilter {
+    }
+
     // 创建事件观察条件，过滤类和方法
     private EventWatchCondition toEventWatchCondition() {
         final List<Filter> filters = new ArrayList<Filter>();
         for (final BuildingForClass bfClass : bfClasses) {
-            final Filter filter = new Filter() {
+            final Filter filter = new ClassNamePreFilterableFilter() {
+                @Override
+                public boolean doClassNamePreFilter(final String javaClassName) {
+                    return bfClass.compiledPattern.matching(javaClassName);
+                }
+
                 @Override
                 public boolean doClassFilter(final int access,
                                              final String javaClassName,
@@ -724,7 +819,7 @@ public class EventWatchBuilder {
                                              final String[] interfaceTypeJavaClassNameArray,
                                              final String[] annotationTypeJavaClassNameArray) {
                     return (access & bfClass.withAccess) == bfClass.withAccess
-                            && patternMatching(javaClassName, bfClass.pattern, patternType)
+                            && bfClass.compiledPattern.matching(javaClassName)
                             && bfClass.hasInterfaceTypes.patternHas(interfaceTypeJavaClassNameArray)
                             && bfClass.hasAnnotationTypes.patternHas(annotationTypeJavaClassNameArray);
                 }
@@ -743,7 +838,7 @@ public class EventWatchBuilder {
                     // matching any behavior
                     for (final BuildingForBehavior bfBehavior : bfClass.bfBehaviors) {
                         if ((access & bfBehavior.withAccess) == bfBehavior.withAccess
-                                && patternMatching(javaMethodName, bfBehavior.pattern, patternType)
+                                && bfBehavior.compiledPattern.matching(javaMethodName)
                                 && bfBehavior.withParameterTypes.patternWith(parameterTypeJavaClassNameArray)
                                 && bfBehavior.hasExceptionTypes.patternHas(throwsTypeJavaClassNameArray)
                                 && bfBehavior.hasAnnotationTypes.patternHas(annotationTypeJavaClassNameArray)) {
@@ -785,13 +880,21 @@ public class EventWatchBuilder {
     private EventWatcher build(final EventListener listener,
                                final Progress progress,
                                final Event.Type... eventTypes) {
+        return build(listener, progress, false, eventTypes);
+    }
+
+    private EventWatcher build(final EventListener listener,
+                               final Progress progress,
+                               final boolean isWithoutParameters,
+                               final Event.Type... eventTypes) {
+        // 创建事件观察条件，过滤类和方法
+        final EventWatchCondition condition = toEventWatchCondition();
+
         // 调用 moduleEventWatcher.watch 去修改目标类的字节码（w）
-        final int watchId = moduleEventWatcher.watch(
-                toEventWatchCondition(),// 创建事件观察条件，过滤类和方法
-                listener,
-                progress,
-                eventTypes
-        );
+        // 只有声明了不需要参数时才调用新的watch，兼容只实现了原有watch的ModuleEventWatcher
+        final int watchId = isWithoutParameters
+                ? moduleEventWatcher.watch(condition, listener, progress, true, eventTypes)
+                : moduleEventWatcher.watch(condition, listener, progress, eventTypes);
 
         return new EventWatcher() {
 
@@ -918,24 +1021,25 @@ public class EventWatchBuilder {
      */
     private class Group {
 
-        final String[] patternArray;
+        final CompiledPattern[] patternArray;
 
         Group(String[] patternArray) {
-            this.patternArray = GaArrayUtils.isEmpty(patternArray)
-                    ? new String[0]
-                    : patternArray;
+            this.patternArray = new CompiledPattern[GaArrayUtils.getLength(patternArray)];
+            for (int index = 0; index < this.patternArray.length; index++) {
+                this.patternArray[index] = compilePattern(patternArray[index], patternType);
+            }
         }
 
         /*
          * stringArray中任意字符串能匹配上匹配模式
          */
         boolean anyMatching(final String[] stringArray,
-                            final String pattern) {
+                            final CompiledPattern pattern) {
             if (GaArrayUtils.isEmpty(stringArray)) {
                 return false;
             }
             for (final String string : stringArray) {
-                if (patternMatching(string, pattern, patternType)) {
+                if (pattern.matching(string)) {
                     return true;
                 }
             }
@@ -948,7 +1052,7 @@ public class EventWatchBuilder {
          */
         boolean matchingHas(final String[] stringArray) {
 
-            for (final String pattern : patternArray) {
+            for (final CompiledPattern pattern : patternArray) {
                 if (anyMatching(stringArray, pattern)) {
                     continue;
                 }
@@ -975,7 +1079,7 @@ public class EventWatchBuilder {
             }
             // 长度相同则逐个位置比较，只要有一个位置不符，则判定不通过
             for (int index = 0; index < length; index++) {
-                if (!patternMatching(stringArray[index], patternArray[index], patternType)) {
+                if (!patternArray[index].matching(stringArray[index])) {
                     return false;
                 }
             }
@@ -0,0 +1,64 @@
+package com.alibaba.jvm.sandbox.api.resource;
+
+import java.util.List;
+
+/**
+ * 缓存监控器
+ * <p>用于查看沙箱内部缓存的命中情况</p>
+ *
+ * @since {@code sandbox-api:1.3.3}
+ */
+public interface CacheMonitor {
+
+    /**
+     * 缓存信息
+     *
+     * @since {@code sandbox-api:1.3.3}
+     */
+    interface CacheInfo {
+
+        /**
+         * 获取缓存名称
+         *
+         * @return 缓存名称
+         */
+        String getName();
+
+        /**
+         * 获取当前缓存的元素个数
+         *
+         * @return 元素个数
+         */
+        long getSize();
+
+        /**
+         * 获取命中次数
+         *
+         * @return 命中次数
+         */
+        long getHitCount();
+
+        /**
+         * 获取未命中次数
+         *
+         * @return 未命中次数
+         */
+        long getMissCount();
+
+        /**
+         * 获取被淘汰的元素个数
+         *
+         * @return 被淘汰的元素个数
+         */
+        long getEvictionCount();
+
+    }
+
+    /**
+     * 列出所有缓存的信息
+     *
+     * @return 缓存信息集合
+     */
+    List<CacheInfo> listCacheInfos();
+
+}
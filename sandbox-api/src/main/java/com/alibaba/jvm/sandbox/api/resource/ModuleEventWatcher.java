@@ -50,6 +50,26 @@ public interface ModuleEventWatcher {
      */
     int watch(EventWatchCondition condition, EventListener listener, Progress progress, Event.Type... eventType);
 
+    /**
+     * 观察事件
+     * <p>
+     * 如果事件监听器不需要读取方法的参数和{@code this}，可以声明{@code isWithoutParameters}，
+     * 埋点时将不再构造参数数组，避免每次调用时的数组分配和基础类型装箱。
+     * 此时{@code BeforeEvent}的参数数组为空数组，{@code target}为{@code null}，
+     * 也不能通过{@code changeParameter}修改方法参数
+     * </p>
+     *
+     * @param condition           事件观察条件，只有符合条件的类/方法才会被观察
+     * @param listener            事件监听器
+     *                            观察到的事件将会告知此事件监听器
+     * @param progress            观察渲染进度报告
+     * @param isWithoutParameters 事件监听器是否不需要方法的参数和{@code this}
+     * @param eventType           观察事件类型
+     * @return {@code watchId}，本次观察的唯一编号
+     * @since {@code sandbox-api:1.3.3}
+     */
+    int watch(EventWatchCondition condition, EventListener listener, Progress progress, boolean isWithoutParameters, Event.Type... eventType);
+
     /**
      * 删除观察事件
      *
@@ -1,10 +1,15 @@
 package com.alibaba.jvm.sandbox.api.util;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 缓存加载
+ * <p>
+ * 线程安全，读操作不加锁；同一个KEY在并发时可能被加载多次，但只有第一次加载的结果会被缓存。
+ * 缓存强引用KEY和VALUE且没有上限，如果KEY是{@link Class}、{@link ClassLoader}这类需要被回收的对象，
+ * 请使用{@link WeakCacheGet}
+ * </p>
  *
  * @param <K> KEY
  * @param <V> VAL
@@ -13,7 +18,10 @@ import java.util.Map;
  */
 public abstract class CacheGet<K, V> {
 
-    private final Map<K, V> cache = new HashMap<K, V>();
+    // ConcurrentHashMap不能存放null，null的KEY和VALUE用NULL代替
+    private static final Object NULL = new Object();
+
+    private final ConcurrentMap<Object, Object> cache = new ConcurrentHashMap<Object, Object>();
 
     /**
      * 从缓存中加载
@@ -22,17 +30,27 @@ public abstract class CacheGet<K, V> {
      * @return VALUE
      */
     public V getFromCache(K key) {
-        if (!cache.containsKey(key)) {
-            try {
-                final V value;
-                cache.put(key, value = load(key));
-                return value;
-            } catch (Throwable cause) {
-                throw new CacheLoadUnCaughtException(cause);
-            }
-        } else {
-            return cache.get(key);
+        final Object cacheKey = null == key ? NULL : key;
+        final Object existed = cache.get(cacheKey);
+        if (null != existed) {
+            return unmask(existed);
+        }
+        final V value;
+        try {
+            value = load(key);
+        } catch (Throwable cause) {
+            throw new CacheLoadUnCaughtException(cause);
         }
+        final Object raced = cache.putIfAbsent(cacheKey, null == value ? NULL : value);
+        return null == raced
+                ? value
+                : unmask(raced);
+    }
+
+    private V unmask(final Object value) {
+        return NULL == value
+                ? null
+                : (V) value;
     }
 
     /**
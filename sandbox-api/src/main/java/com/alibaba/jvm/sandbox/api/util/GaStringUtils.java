@@ -64,6 +64,9 @@ public class GaStringUtils {
      * <li>(null) matching (null) == false</li>
      * <li>    ANY matching ("*") == true</li>
      * </ul>
+     * <p>
+     * 需要反复匹配同一个通配符表达式时，应使用{@link GaWildcardPattern#compile(String)}编译后复用
+     * </p>
      *
      * @param string   目标字符串
      * @param wildcard 通配符匹配模版
@@ -72,85 +75,7 @@ public class GaStringUtils {
     public static boolean matching(final String string, final String wildcard) {
         return null != wildcard
                 && null != string
-                && matching(string, wildcard, 0, 0);
-    }
-
-    /**
-     * Internal matching recursive function.
-     */
-    private static boolean matching(String string, String wildcard, int stringStartNdx, int patternStartNdx) {
-        int pNdx = patternStartNdx;
-        int sNdx = stringStartNdx;
-        int pLen = wildcard.length();
-        if (pLen == 1) {
-            if (wildcard.charAt(0) == '*') {     // speed-up
-                return true;
-            }
-        }
-        int sLen = string.length();
-        boolean nextIsNotWildcard = false;
-
-        while (true) {
-
-            // check if end of string and/or pattern occurred
-            if ((sNdx >= sLen)) {   // end of string still may have pending '*' callback pattern
-                while ((pNdx < pLen) && (wildcard.charAt(pNdx) == '*')) {
-                    pNdx++;
-                }
-                return pNdx >= pLen;
-            }
-            if (pNdx >= pLen) {         // end of pattern, but not end of the string
-                return false;
-            }
-            char p = wildcard.charAt(pNdx);    // pattern char
-
-            // perform logic
-            if (!nextIsNotWildcard) {
-
-                if (p == '\\') {
-                    pNdx++;
-                    nextIsNotWildcard = true;
-                    continue;
-                }
-                if (p == '?') {
-                    sNdx++;
-                    pNdx++;
-                    continue;
-                }
-                if (p == '*') {
-                    char pnext = 0;           // next pattern char
-                    if (pNdx + 1 < pLen) {
-                        pnext = wildcard.charAt(pNdx + 1);
-                    }
-                    if (pnext == '*') {         // double '*' have the same effect as one '*'
-                        pNdx++;
-                        continue;
-                    }
-                    int i;
-                    pNdx++;
-
-                    // find recursively if there is any substring from the end of the
-                    // line that matches the rest of the pattern !!!
-                    for (i = string.length(); i >= sNdx; i--) {
-                        if (matching(string, wildcard, i, pNdx)) {
-                            return true;
-                        }
-                    }
-                    return false;
-                }
-            } else {
-                nextIsNotWildcard = false;
-            }
-
-            // check if pattern char and string char are equals
-            if (p != string.charAt(sNdx)) {
-                return false;
-            }
-
-            // everything matches for now, continue
-            sNdx++;
-            pNdx++;
-        }
+                && GaWildcardPattern.compile(wildcard).matching(string);
     }
 
 }
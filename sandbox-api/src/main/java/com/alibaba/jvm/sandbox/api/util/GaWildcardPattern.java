@@ -0,0 +1,296 @@
+package com.alibaba.jvm.sandbox.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的通配符表达式
+ * <p>
+ * 语法和{@link GaStringUtils#matching(String, String)}一致，
+ * 通配符表达式只编译一次，按星号(*)拆分为若干片段，匹配时逐个片段从左向右查找，
+ * 不会因为多个星号而产生回溯，匹配耗时只和目标字符串及表达式的长度相关
+ * </p>
+ * <p>
+ * 常见的精确匹配、前缀匹配(abc*)、后缀匹配(*abc)、包含匹配(*abc*)直接使用{@link String}的方法完成
+ * </p>
+ *
+ * @since {@code sandbox-api:1.3.3}
+ */
+public final class GaWildcardPattern {
+
+    // 匹配方式
+    private enum Mode {
+
+        // 永远不匹配，如null表达式或以转义符结尾的表达式
+        NONE,
+
+        // 匹配任意字符串
+        ANY,
+
+        // 精确匹配
+        EQUALS,
+
+        // 前缀匹配
+        PREFIX,
+
+        // 后缀匹配
+        SUFFIX,
+
+        // 包含匹配
+        CONTAINS,
+
+        // 按片段匹配
+        SEGMENTS
+
+    }
+
+    private final String wildcard;
+    private final Mode mode;
+
+    // 快速匹配的字符串，只在EQUALS/PREFIX/SUFFIX/CONTAINS模式下使用
+    private final String literal;
+
+    // 星号拆分出的片段，只在SEGMENTS模式下使用
+    private final Segment[] segments;
+    private final boolean isStartWithStar;
+    private final boolean isEndWithStar;
+
+    private GaWildcardPattern(final String wildcard,
+                              final Mode mode,
+                              final String literal,
+                              final Segment[] segments,
+                              final boolean isStartWithStar,
+                              final boolean isEndWithStar) {
+        this.wildcard = wildcard;
+        this.mode = mode;
+        this.literal = literal;
+        this.segments = segments;
+        this.isStartWithStar = isStartWithStar;
+        this.isEndWithStar = isEndWithStar;
+    }
+
+    /**
+     * 编译通配符表达式
+     *
+     * @param wildcard 通配符匹配模版
+     * @return 编译后的通配符表达式
+     */
+    public static GaWildcardPattern compile(final String wildcard) {
+
+        if (null == wildcard) {
+            return new GaWildcardPattern(null, Mode.NONE, null, null, false, false);
+        }
+
+        final List<Segment> segmentList = new ArrayList<Segment>();
+        final StringBuilder chars = new StringBuilder();
+        final StringBuilder anyMarks = new StringBuilder();
+        boolean isStartWithStar = false;
+        boolean isEndWithStar = false;
+        boolean hasQuestion = false;
+
+        for (int index = 0; index < wildcard.length(); index++) {
+            final char c = wildcard.charAt(index);
+            if (c == '\\') {
+                // 以转义符结尾的表达式不能匹配任何字符串
+                if (++index >= wildcard.length()) {
+                    return new GaWildcardPattern(wildcard, Mode.NONE, null, null, false, false);
+                }
+                chars.append(wildcard.charAt(index));
+                anyMarks.append('0');
+                isEndWithStar = false;
+            } else if (c == '?') {
+                chars.append(c);
+                anyMarks.append('1');
+                hasQuestion = true;
+                isEndWithStar = false;
+            } else if (c == '*') {
+                if (index == 0) {
+                    isStartWithStar = true;
+                }
+                if (chars.length() > 0) {
+                    segmentList.add(new Segment(chars.toString(), anyMarks.toString()));
+                    chars.setLength(0);
+                    anyMarks.setLength(0);
+                }
+                isEndWithStar = true;
+            } else {
+                chars.append(c);
+                anyMarks.append('0');
+                isEndWithStar = false;
+            }
+        }
+        if (chars.length() > 0) {
+            segmentList.add(new Segment(chars.toString(), anyMarks.toString()));
+        }
+
+        final boolean hasStar = isStartWithStar || isEndWithStar || segmentList.size() > 1;
+
+        // 只有星号
+        if (segmentList.isEmpty()) {
+            return hasStar
+                    ? new GaWildcardPattern(wildcard, Mode.ANY, null, null, true, true)
+                    : new GaWildcardPattern(wildcard, Mode.EQUALS, "", null, false, false);
+        }
+
+        // 没有问号且最多只有一个片段时，使用String的方法完成匹配
+        if (!hasQuestion && segmentList.size() == 1) {
+            final String literal = segmentList.get(0).chars;
+            final Mode mode;
+            if (isStartWithStar && isEndWithStar) {
+                mode = Mode.CONTAINS;
+            } else if (isStartWithStar) {
+                mode = Mode.SUFFIX;
+            } else if (isEndWithStar) {
+                mode = Mode.PREFIX;
+            } else {
+                mode = Mode.EQUALS;
+            }
+            return new GaWildcardPattern(wildcard, mode, literal, null, isStartWithStar, isEndWithStar);
+        }
+
+        return new GaWildcardPattern(
+                wildcard,
+                Mode.SEGMENTS,
+                null,
+                segmentList.toArray(new Segment[0]),
+                isStartWithStar,
+                isEndWithStar
+        );
+    }
+
+    /**
+     * 获取通配符表达式
+     *
+     * @return 通配符表达式
+     */
+    public String getWildcard() {
+        return wildcard;
+    }
+
+    /**
+     * 目标字符串是否符合通配符表达式
+     *
+     * @param string 目标字符串
+     * @return true:目标字符串符合匹配模版;false:目标字符串不符合匹配模版
+     */
+    public boolean matching(final String string) {
+        if (null == string) {
+            return false;
+        }
+        switch (mode) {
+            case ANY:
+                return true;
+            case EQUALS:
+                return string.equals(literal);
+            case PREFIX:
+                return string.startsWith(literal);
+            case SUFFIX:
+                return string.endsWith(literal);
+            case CONTAINS:
+                return string.contains(literal);
+            case SEGMENTS:
+                return matchingSegments(string);
+            case NONE:
+            default:
+                return false;
+        }
+    }
+
+    private boolean matchingSegments(final String string) {
+        final int length = string.length();
+        int from = 0;
+        int to = length;
+        int first = 0;
+        int last = segments.length - 1;
+
+        // 没有星号时只有一个片段，必须完整匹配
+        if (!isStartWithStar && !isEndWithStar && segments.length == 1) {
+            return length == segments[0].length()
+                    && segments[0].matchingAt(string, 0);
+        }
+
+        // 第一个片段必须出现在开头
+        if (!isStartWithStar) {
+            final Segment head = segments[first++];
+            if (!head.matchingAt(string, 0)) {
+                return false;
+            }
+            from = head.length();
+        }
+
+        // 最后一个片段必须出现在结尾
+        if (!isEndWithStar && first <= last) {
+            final Segment tail = segments[last--];
+            to = length - tail.length();
+            if (to < from
+                    || !tail.matchingAt(string, to)) {
+                return false;
+            }
+        }
+
+        // 中间的片段依次向后查找最左边的位置即可
+        for (int index = first; index <= last; index++) {
+            final int found = segments[index].indexOf(string, from, to);
+            if (found < 0) {
+                return false;
+            }
+            from = found + segments[index].length();
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return wildcard;
+    }
+
+    /**
+     * 星号之间的片段
+     */
+    private static class Segment {
+
+        private final String chars;
+
+        // 标记每个位置是否为问号
+        private final boolean[] isAnyArray;
+
+        Segment(final String chars, final String anyMarks) {
+            this.chars = chars;
+            this.isAnyArray = new boolean[anyMarks.length()];
+            for (int index = 0; index < isAnyArray.length; index++) {
+                isAnyArray[index] = anyMarks.charAt(index) == '1';
+            }
+        }
+
+        int length() {
+            return chars.length();
+        }
+
+        // 片段是否出现在目标字符串的offset位置
+        boolean matchingAt(final String string, final int offset) {
+            if (offset < 0
+                    || offset + chars.length() > string.length()) {
+                return false;
+            }
+            for (int index = 0; index < chars.length(); index++) {
+                if (!isAnyArray[index]
+                        && chars.charAt(index) != string.charAt(offset + index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 在目标字符串的[from,to)范围内查找片段第一次出现的位置
+        int indexOf(final String string, final int from, final int to) {
+            for (int offset = from; offset + chars.length() <= to; offset++) {
+                if (matchingAt(string, offset)) {
+                    return offset;
+                }
+            }
+            return -1;
+        }
+
+    }
+
+}
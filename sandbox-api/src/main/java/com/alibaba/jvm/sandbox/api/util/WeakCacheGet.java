@@ -0,0 +1,259 @@
+package com.alibaba.jvm.sandbox.api.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 弱引用缓存加载
+ * <p>
+ * 和{@link CacheGet}的用法一致，区别在于：
+ * </p>
+ * <ul>
+ * <li>线程安全，读操作不加锁，只有加载之后写入缓存时才加锁</li>
+ * <li>KEY是弱引用，按身份(==)比较，KEY被回收之后对应的缓存也随之失效，适合以{@link Class}、{@link ClassLoader}为KEY的缓存</li>
+ * <li>VALUE也是弱引用，VALUE往往会直接或间接引用到KEY(例如从Class中反射出的Method)，强引用或软引用VALUE都会让KEY无法及时被回收；VALUE没有其他强引用时，GC之后需要重新加载</li>
+ * <li>缓存数量有上限，超过上限时淘汰任意一个缓存</li>
+ * </ul>
+ * <p>
+ * 同一个KEY在并发时可能被加载多次，但只有第一次加载的结果会被缓存
+ * </p>
+ *
+ * @param <K> KEY
+ * @param <V> VAL
+ * @since {@code sandbox-api:1.3.3}
+ */
+public abstract class WeakCacheGet<K, V> {
+
+    /**
+     * 默认缓存数量上限
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int maximumSize;
+    private final ReferenceQueue<K> rQueue = new ReferenceQueue<K>();
+
+    // 哈希表，读操作不加锁；写操作加锁，扩容时整体替换
+    private volatile AtomicReferenceArray<Entry<K, V>> table
+            = new AtomicReferenceArray<Entry<K, V>>(INITIAL_CAPACITY);
+    private int size;
+
+    // 淘汰时的扫描位置
+    private int evictIndex;
+
+    public WeakCacheGet() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    /**
+     * 构造弱引用缓存加载
+     *
+     * @param maximumSize 缓存数量上限
+     */
+    public WeakCacheGet(final int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive, but was " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * 从缓存中加载
+     *
+     * @param key KEY，不能为null
+     * @return VALUE
+     */
+    public V getFromCache(final K key) {
+        if (null == key) {
+            throw new NullPointerException("key");
+        }
+        final int hash = hash(key);
+        final AtomicReferenceArray<Entry<K, V>> tab = table;
+        for (Entry<K, V> entry = tab.get(hash & (tab.length() - 1)); null != entry; entry = entry.next) {
+            if (entry.get() == key) {
+                if (entry.isNullValue()) {
+                    return null;
+                }
+                final V value = entry.getValue();
+                if (null != value) {
+                    return value;
+                }
+                // VALUE已经被回收，需要重新加载
+                break;
+            }
+        }
+
+        final V value;
+        try {
+            value = load(key);
+        } catch (Throwable cause) {
+            throw new CacheLoadUnCaughtException(cause);
+        }
+        return put(key, hash, value);
+    }
+
+    /**
+     * 加载缓存
+     *
+     * @param key KEY
+     * @return VALUE
+     * @throws Throwable 加载失败
+     */
+    protected abstract V load(K key) throws Throwable;
+
+    /**
+     * 获取当前缓存的数量
+     *
+     * @return 缓存的数量
+     */
+    public synchronized int size() {
+        expungeStaleEntries();
+        return size;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        table = new AtomicReferenceArray<Entry<K, V>>(INITIAL_CAPACITY);
+        size = 0;
+        for (Object x; (x = rQueue.poll()) != null; ) {
+            // 旧表已经整体丢弃，失效的缓存不需要再清理
+        }
+    }
+
+    // 写入缓存，如果其他线程已经先写入了有效的缓存，则以先写入的为准
+    private synchronized V put(final K key, final int hash, final V value) {
+        expungeStaleEntries();
+        AtomicReferenceArray<Entry<K, V>> tab = table;
+        final int index = hash & (tab.length() - 1);
+        for (Entry<K, V> entry = tab.get(index); null != entry; entry = entry.next) {
+            if (entry.get() == key) {
+                if (entry.isNullValue()) {
+                    return null;
+                }
+                final V existed = entry.getValue();
+                if (null != existed) {
+                    return existed;
+                }
+                remove(tab, entry);
+                break;
+            }
+        }
+
+        if (size >= maximumSize) {
+            evict(tab);
+        }
+        if (size >= tab.length() * 3 / 4) {
+            tab = resize(tab);
+        }
+        final int newIndex = hash & (tab.length() - 1);
+        tab.set(newIndex, new Entry<K, V>(key, hash, null == value ? null : new WeakReference<V>(value), tab.get(newIndex), rQueue));
+        size++;
+        return value;
+    }
+
+    // 清理KEY已经被回收的缓存
+    private void expungeStaleEntries() {
+        final AtomicReferenceArray<Entry<K, V>> tab = table;
+        for (Object x; (x = rQueue.poll()) != null; ) {
+            remove(tab, (Entry<K, V>) x);
+        }
+    }
+
+    // 从哈希表中摘除缓存，不改变被摘除缓存的next，正在遍历的读线程仍然可以继续往下走
+    private void remove(final AtomicReferenceArray<Entry<K, V>> tab,
+                        final Entry<K, V> target) {
+        final int index = target.hash & (tab.length() - 1);
+        Entry<K, V> prev = null;
+        for (Entry<K, V> entry = tab.get(index); null != entry; prev = entry, entry = entry.next) {
+            if (entry == target) {
+                if (null == prev) {
+                    tab.set(index, entry.next);
+                } else {
+                    prev.next = entry.next;
+                }
+                size--;
+                return;
+            }
+        }
+    }
+
+    // 淘汰一个缓存，从上次淘汰的位置开始轮流扫描各个桶
+    private void evict(final AtomicReferenceArray<Entry<K, V>> tab) {
+        for (int count = 0; count < tab.length(); count++) {
+            final int index = (evictIndex++) & (tab.length() - 1);
+            final Entry<K, V> entry = tab.get(index);
+            if (null != entry) {
+                remove(tab, entry);
+                return;
+            }
+        }
+    }
+
+    // 扩容，新表中的缓存都是重新创建的，旧表中的缓存保持不变，正在遍历旧表的读线程不受影响
+    private AtomicReferenceArray<Entry<K, V>> resize(final AtomicReferenceArray<Entry<K, V>> tab) {
+        final AtomicReferenceArray<Entry<K, V>> newTab = new AtomicReferenceArray<Entry<K, V>>(tab.length() << 1);
+        int newSize = 0;
+        for (int index = 0; index < tab.length(); index++) {
+            for (Entry<K, V> entry = tab.get(index); null != entry; entry = entry.next) {
+                final K key = entry.get();
+                if (null == key) {
+                    continue;
+                }
+                final int newIndex = entry.hash & (newTab.length() - 1);
+                newTab.set(newIndex, new Entry<K, V>(key, entry.hash, entry.valueRef, newTab.get(newIndex), rQueue));
+                newSize++;
+            }
+        }
+        table = newTab;
+        size = newSize;
+        return newTab;
+    }
+
+    private static int hash(final Object key) {
+        final int h = System.identityHashCode(key);
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 缓存条目，KEY和VALUE都是弱引用
+     */
+    private static class Entry<K, V> extends WeakReference<K> {
+
+        private final int hash;
+
+        // null表示VALUE本身为null
+        private final WeakReference<V> valueRef;
+        private volatile Entry<K, V> next;
+
+        Entry(final K key,
+              final int hash,
+              final WeakReference<V> valueRef,
+              final Entry<K, V> next,
+              final ReferenceQueue<K> rQueue) {
+            super(key, rQueue);
+            this.hash = hash;
+            this.valueRef = valueRef;
+            this.next = next;
+        }
+
+        boolean isNullValue() {
+            return null == valueRef;
+        }
+
+        V getValue() {
+            return valueRef.get();
+        }
+
+    }
+
+    private final static class CacheLoadUnCaughtException extends RuntimeException {
+        CacheLoadUnCaughtException(Throwable cause) {
+            super(cause);
+        }
+    }
+
+}
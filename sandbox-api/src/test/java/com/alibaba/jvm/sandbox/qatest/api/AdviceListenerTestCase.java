@@ -1,8 +1,7 @@
 package com.alibaba.jvm.sandbox.qatest.api;
 
-import com.alibaba.jvm.sandbox.api.event.BeforeEvent;
-import com.alibaba.jvm.sandbox.api.event.ReturnEvent;
-import com.alibaba.jvm.sandbox.api.event.ThrowsEvent;
+import com.alibaba.jvm.sandbox.api.event.*;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
 import com.alibaba.jvm.sandbox.api.listener.ext.Advice;
 import com.alibaba.jvm.sandbox.api.listener.ext.AdviceListener;
 import com.alibaba.jvm.sandbox.api.listener.ext.EventWatchBuilder;
@@ -10,6 +9,9 @@ import com.alibaba.jvm.sandbox.qatest.api.mock.MockForBuilderModuleEventWatcher;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class AdviceListenerTestCase {
 
 
@@ -96,4 +98,124 @@ public class AdviceListenerTestCase {
 
     }
 
+    private static class RecordAdviceListener extends AdviceListener {
+
+        private final List<Advice> advices = new ArrayList<Advice>();
+        private final StringBuilder traceSB = new StringBuilder();
+
+        @Override
+        protected void before(Advice advice) throws Throwable {
+            advices.add(advice);
+            traceSB.append("before:").append(advice.getInvokeId())
+                    .append(",top:").append(advice.getProcessTop().getInvokeId())
+                    .append(",mark:").append(advice.hasMark("mark"))
+                    .append(",attachment:").append((Object) advice.attachment())
+                    .append(";");
+            advice.attach(advice.getInvokeId(), "mark");
+        }
+
+        @Override
+        protected void beforeCall(Advice advice, int callLineNum, String callJavaClassName, String callJavaMethodName, String callJavaMethodDesc) {
+            traceSB.append("beforeCall:").append(callJavaClassName).append(".").append(callJavaMethodName).append(";");
+        }
+
+        @Override
+        protected void afterCall(Advice advice, int callLineNum, String callJavaClassName, String callJavaMethodName, String callJavaMethodDesc, String callThrowJavaClassName) {
+            traceSB.append("afterCall:").append(callJavaClassName).append(";");
+        }
+
+        @Override
+        protected void afterReturning(Advice advice) throws Throwable {
+            traceSB.append("afterReturning:").append(advice.getInvokeId())
+                    .append(",behavior:").append(advice.getBehavior().getName())
+                    .append(",chain:").append(advice.listHasMarkOnChain("mark").size())
+                    .append(";");
+        }
+
+    }
+
+    // 模拟一次两层嵌套的调用过程，内层方法发生一次方法调用
+    private void fireProcess(final EventListener listener, final int processId) throws Throwable {
+        for (int invokeId = processId; invokeId < processId + 2; invokeId++) {
+            listener.onEvent(new BeforeEvent(
+                    processId,
+                    invokeId,
+                    getClass().getClassLoader(),
+                    "java.lang.String",
+                    "toString",
+                    "()Ljava/lang/String;",
+                    this,
+                    new Object[]{}
+            ));
+        }
+        listener.onEvent(new CallBeforeEvent(processId, processId + 1, 10, "java/lang/Object", "hashCode", "()I"));
+        listener.onEvent(new CallReturnEvent(processId, processId + 1));
+        listener.onEvent(new ReturnEvent(processId, processId + 1, this));
+        listener.onEvent(new ReturnEvent(processId, processId, this));
+    }
+
+    private void assertProcess(final RecordAdviceListener listener, final int processId) {
+        Assert.assertEquals(
+                String.format("before:%1$s,top:%1$s,mark:false,attachment:null;"
+                                + "before:%2$s,top:%1$s,mark:false,attachment:null;"
+                                + "beforeCall:java.lang.Object.hashCode;afterCall:java.lang.Object;"
+                                + "afterReturning:%2$s,behavior:toString,chain:2;"
+                                + "afterReturning:%1$s,behavior:toString,chain:1;",
+                        processId, processId + 1),
+                listener.traceSB.toString()
+        );
+        listener.traceSB.delete(0, listener.traceSB.length());
+    }
+
+    @Test
+    public void test$$AdviceListener$$reusableAdvice() throws Throwable {
+        final MockForBuilderModuleEventWatcher mockForBuilderModuleEventWatcher
+                = new MockForBuilderModuleEventWatcher();
+        final RecordAdviceListener listener = new RecordAdviceListener();
+        new EventWatchBuilder(mockForBuilderModuleEventWatcher)
+                .onClass(String.class)
+                .onBehavior("toString")
+                .onWatching()
+                .withCall()
+                .withReusableAdvice()
+                .onWatch(listener);
+
+        fireProcess(mockForBuilderModuleEventWatcher.getEventListener(), 1000);
+        assertProcess(listener, 1000);
+        fireProcess(mockForBuilderModuleEventWatcher.getEventListener(), 2000);
+        assertProcess(listener, 2000);
+
+        // 同一线程中相同深度的通知被复用
+        Assert.assertSame(listener.advices.get(0), listener.advices.get(2));
+        Assert.assertSame(listener.advices.get(1), listener.advices.get(3));
+
+        // 回收之后的通知不再持有业务对象
+        Assert.assertNull(listener.advices.get(0).getTarget());
+        Assert.assertNull(listener.advices.get(0).getReturnObj());
+    }
+
+    @Test
+    public void test$$AdviceListener$$notReusableAdvice() throws Throwable {
+        final MockForBuilderModuleEventWatcher mockForBuilderModuleEventWatcher
+                = new MockForBuilderModuleEventWatcher();
+        final RecordAdviceListener listener = new RecordAdviceListener();
+        new EventWatchBuilder(mockForBuilderModuleEventWatcher)
+                .onClass(String.class)
+                .onBehavior("toString")
+                .onWatching()
+                .withCall()
+                .onWatch(listener);
+
+        fireProcess(mockForBuilderModuleEventWatcher.getEventListener(), 1000);
+        assertProcess(listener, 1000);
+        fireProcess(mockForBuilderModuleEventWatcher.getEventListener(), 2000);
+        assertProcess(listener, 2000);
+
+        // 不复用时通知在调用过程结束之后仍然可以访问
+        Assert.assertNotSame(listener.advices.get(0), listener.advices.get(2));
+        Assert.assertSame(this, listener.advices.get(0).getTarget());
+        Assert.assertTrue(listener.advices.get(0).isReturn());
+        Assert.assertTrue(listener.advices.get(0).hasMark("mark"));
+    }
+
 }
@@ -2,6 +2,8 @@ package com.alibaba.jvm.sandbox.qatest.api;
 
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.api.filter.AccessFlags;
+import com.alibaba.jvm.sandbox.api.filter.ClassNamePreFilter;
+import com.alibaba.jvm.sandbox.api.filter.ExtFilter;
 import com.alibaba.jvm.sandbox.api.filter.Filter;
 import com.alibaba.jvm.sandbox.api.listener.ext.AdviceListener;
 import com.alibaba.jvm.sandbox.api.listener.ext.EventWatchBuilder;
@@ -59,6 +61,27 @@ public class EventWatchBuilderTestCase {
         Assert.assertEquals(1, mockForBuilderModuleEventWatcher.getEventWatchCondition().getOrFilterArray().length);
     }
 
+    @Test
+    public void test$$EventWatchBuilder$$normal$$withoutParameters() {
+
+        final MockForBuilderModuleEventWatcher mockForBuilderModuleEventWatcher
+                = new MockForBuilderModuleEventWatcher();
+        new EventWatchBuilder(mockForBuilderModuleEventWatcher)
+                .onClass(String.class)
+                .onBehavior("toString")
+                .onWatch(new AdviceListener());
+        Assert.assertFalse(mockForBuilderModuleEventWatcher.isWithoutParameters());
+
+        new EventWatchBuilder(mockForBuilderModuleEventWatcher)
+                .onClass(String.class)
+                .onBehavior("toString")
+                .onWatching()
+                .withoutParameters()
+                .onWatch(new AdviceListener());
+        Assert.assertTrue(mockForBuilderModuleEventWatcher.isWithoutParameters());
+        Assert.assertEquals(5, mockForBuilderModuleEventWatcher.getEventTypeArray().length);
+    }
+
     @Test
     public void test$$EventWatchBuilder$$normal$$CallOnly() {
 
@@ -173,4 +196,24 @@ public class EventWatchBuilderTestCase {
 
     }
 
+    @Test
+    public void test$$EventWatchBuilder$$normal$$classNamePreFilter() {
+
+        final MockForBuilderModuleEventWatcher mockForBuilderModuleEventWatcher
+                = new MockForBuilderModuleEventWatcher();
+        new EventWatchBuilder(mockForBuilderModuleEventWatcher)
+                .onClass("java.lang.Str*")
+                .includeSubClasses()
+                .onBehavior("toString")
+                .onWatch(new AdviceListener());
+
+        final Filter filter = mockForBuilderModuleEventWatcher.getEventWatchCondition().getOrFilterArray()[0];
+        Assert.assertTrue(filter instanceof ExtFilter);
+        Assert.assertTrue(((ExtFilter) filter).isIncludeSubClasses());
+        Assert.assertTrue(filter instanceof ClassNamePreFilter);
+        Assert.assertTrue(((ClassNamePreFilter) filter).doClassNamePreFilter("java.lang.String"));
+        Assert.assertTrue(((ClassNamePreFilter) filter).doClassNamePreFilter("java.lang.StringBuilder"));
+        Assert.assertFalse(((ClassNamePreFilter) filter).doClassNamePreFilter("java.lang.Integer"));
+    }
+
 }
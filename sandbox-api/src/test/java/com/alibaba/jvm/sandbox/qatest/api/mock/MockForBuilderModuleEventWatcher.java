@@ -6,6 +6,7 @@ import com.alibaba.jvm.sandbox.api.listener.EventListener;
 import com.alibaba.jvm.sandbox.api.listener.ext.EventWatchCondition;
 import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class MockForBuilderModuleEventWatcher implements ModuleEventWatcher {
@@ -22,6 +23,9 @@ public class MockForBuilderModuleEventWatcher implements ModuleEventWatcher {
     private final AtomicReference<Event.Type[]> eventTypeArrayRef
             = new AtomicReference<Event.Type[]>();
 
+    private final AtomicBoolean isWithoutParametersRef
+            = new AtomicBoolean();
+
     public EventWatchCondition getEventWatchCondition() {
         return eventWatchConditionRef.get();
     }
@@ -38,6 +42,10 @@ public class MockForBuilderModuleEventWatcher implements ModuleEventWatcher {
         return eventTypeArrayRef.get();
     }
 
+    public boolean isWithoutParameters() {
+        return isWithoutParametersRef.get();
+    }
+
     @Override
     public int watch(Filter filter, EventListener listener, Progress progress, Event.Type... eventType) {
         return 0;
@@ -50,9 +58,15 @@ public class MockForBuilderModuleEventWatcher implements ModuleEventWatcher {
 
     @Override
     public int watch(EventWatchCondition condition, EventListener listener, Progress progress, Event.Type... eventType) {
+        return watch(condition, listener, progress, false, eventType);
+    }
+
+    @Override
+    public int watch(EventWatchCondition condition, EventListener listener, Progress progress, boolean isWithoutParameters, Event.Type... eventType) {
         eventWatchConditionRef.set(condition);
         eventListenerRef.set(listener);
         progressRef.set(progress);
+        isWithoutParametersRef.set(isWithoutParameters);
         eventTypeArrayRef.set(eventType);
         return 0;
     }
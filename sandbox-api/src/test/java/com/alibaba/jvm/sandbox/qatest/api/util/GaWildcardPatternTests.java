@@ -0,0 +1,124 @@
+package com.alibaba.jvm.sandbox.qatest.api.util;
+
+import com.alibaba.jvm.sandbox.api.util.GaWildcardPattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class GaWildcardPatternTests {
+
+    /**
+     * 原递归实现，作为编译后匹配结果的对照
+     */
+    private static boolean recursiveMatching(String string, String wildcard, int stringStartNdx, int patternStartNdx) {
+        int pNdx = patternStartNdx;
+        int sNdx = stringStartNdx;
+        int pLen = wildcard.length();
+        if (pLen == 1) {
+            if (wildcard.charAt(0) == '*') {
+                return true;
+            }
+        }
+        int sLen = string.length();
+        boolean nextIsNotWildcard = false;
+        while (true) {
+            if ((sNdx >= sLen)) {
+                while ((pNdx < pLen) && (wildcard.charAt(pNdx) == '*')) {
+                    pNdx++;
+                }
+                return pNdx >= pLen;
+            }
+            if (pNdx >= pLen) {
+                return false;
+            }
+            char p = wildcard.charAt(pNdx);
+            if (!nextIsNotWildcard) {
+                if (p == '\\') {
+                    pNdx++;
+                    nextIsNotWildcard = true;
+                    continue;
+                }
+                if (p == '?') {
+                    sNdx++;
+                    pNdx++;
+                    continue;
+                }
+                if (p == '*') {
+                    char pnext = 0;
+                    if (pNdx + 1 < pLen) {
+                        pnext = wildcard.charAt(pNdx + 1);
+                    }
+                    if (pnext == '*') {
+                        pNdx++;
+                        continue;
+                    }
+                    pNdx++;
+                    for (int i = string.length(); i >= sNdx; i--) {
+                        if (recursiveMatching(string, wildcard, i, pNdx)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            } else {
+                nextIsNotWildcard = false;
+            }
+            if (p != string.charAt(sNdx)) {
+                return false;
+            }
+            sNdx++;
+            pNdx++;
+        }
+    }
+
+    private static String random(final Random random, final String chars, final int maxLength) {
+        final int length = random.nextInt(maxLength + 1);
+        final StringBuilder builder = new StringBuilder(length);
+        for (int index = 0; index < length; index++) {
+            builder.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testFastPath() {
+        Assert.assertTrue(GaWildcardPattern.compile("com.alibaba.*").matching("com.alibaba.Foo"));
+        Assert.assertFalse(GaWildcardPattern.compile("com.alibaba.*").matching("com.taobao.Foo"));
+        Assert.assertTrue(GaWildcardPattern.compile("*Service").matching("com.alibaba.FooService"));
+        Assert.assertFalse(GaWildcardPattern.compile("*Service").matching("com.alibaba.FooServiceImpl"));
+        Assert.assertTrue(GaWildcardPattern.compile("*Service*").matching("com.alibaba.FooServiceImpl"));
+        Assert.assertTrue(GaWildcardPattern.compile("com.alibaba.Foo").matching("com.alibaba.Foo"));
+        Assert.assertFalse(GaWildcardPattern.compile("com.alibaba.Foo").matching("com.alibaba.Foo$1"));
+        Assert.assertTrue(GaWildcardPattern.compile("").matching(""));
+        Assert.assertFalse(GaWildcardPattern.compile("").matching("foo"));
+        Assert.assertFalse(GaWildcardPattern.compile(null).matching("foo"));
+        Assert.assertFalse(GaWildcardPattern.compile("*").matching(null));
+    }
+
+    @Test
+    public void testPathological() {
+        final StringBuilder string = new StringBuilder();
+        for (int index = 0; index < 10000; index++) {
+            string.append('a');
+        }
+        Assert.assertFalse(GaWildcardPattern.compile("*a*a*a*a*a*a*a*a*b*").matching(string.toString()));
+        Assert.assertTrue(GaWildcardPattern.compile("*a*b*c*").matching(string + "bc"));
+        Assert.assertFalse(GaWildcardPattern.compile("*a*b*c*").matching(string + "cb"));
+    }
+
+    @Test
+    public void testSameAsRecursiveMatching() {
+        final Random random = new Random(0);
+        for (int round = 0; round < 200000; round++) {
+            final String string = random(random, "abc*?\\", 8);
+            final String wildcard = random(random, "abc*?\\", 6);
+            Assert.assertEquals(
+                    String.format("matching(\"%s\", \"%s\")", string, wildcard),
+                    recursiveMatching(string, wildcard, 0, 0),
+                    GaWildcardPattern.compile(wildcard).matching(string)
+            );
+        }
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.alibaba.jvm.sandbox.qatest.api.util;
+
+import com.alibaba.jvm.sandbox.api.util.CacheGet;
+import com.alibaba.jvm.sandbox.api.util.WeakCacheGet;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class WeakCacheGetTests {
+
+    private static class CountingWeakCacheGet extends WeakCacheGet<Object, Object> {
+
+        final AtomicInteger loadCount = new AtomicInteger();
+
+        CountingWeakCacheGet(int maximumSize) {
+            super(maximumSize);
+        }
+
+        @Override
+        protected Object load(Object key) {
+            loadCount.incrementAndGet();
+            return "NULL".equals(key)
+                    ? null
+                    : new Object[]{key};
+        }
+
+    }
+
+    @Test
+    public void test$$loadOnlyOnce() {
+        final CountingWeakCacheGet cacheGet = new CountingWeakCacheGet(16);
+        final String key = "sandbox";
+        final Object value = cacheGet.getFromCache(key);
+        assertSame(value, cacheGet.getFromCache(key));
+        assertEquals(1, cacheGet.loadCount.get());
+
+        assertNull(cacheGet.getFromCache("NULL"));
+        assertNull(cacheGet.getFromCache("NULL"));
+        assertEquals(2, cacheGet.loadCount.get());
+        assertEquals(2, cacheGet.size());
+    }
+
+    @Test
+    public void test$$byIdentity() {
+        final CountingWeakCacheGet cacheGet = new CountingWeakCacheGet(16);
+        final String key = new String("sandbox");
+        final String equalKey = new String("sandbox");
+        assertNotSame(cacheGet.getFromCache(key), cacheGet.getFromCache(equalKey));
+        assertEquals(2, cacheGet.loadCount.get());
+    }
+
+    @Test
+    public void test$$bounded() {
+        final CountingWeakCacheGet cacheGet = new CountingWeakCacheGet(100);
+        final List<Object> keys = new ArrayList<Object>();
+        for (int index = 0; index < 1000; index++) {
+            final Object key = new Object();
+            keys.add(key);
+            cacheGet.getFromCache(key);
+            assertTrue(cacheGet.size() <= 100);
+        }
+        assertEquals(100, cacheGet.size());
+
+        // 最后写入的缓存一定还在
+        final Object lastKey = keys.get(keys.size() - 1);
+        final int loadCount = cacheGet.loadCount.get();
+        cacheGet.getFromCache(lastKey);
+        assertEquals(loadCount, cacheGet.loadCount.get());
+    }
+
+    @Test
+    public void test$$weakKey() throws InterruptedException {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final WeakCacheGet<Object, Object> cacheGet = new WeakCacheGet<Object, Object>() {
+            @Override
+            protected Object load(Object key) {
+                loadCount.incrementAndGet();
+                return new Object();
+            }
+        };
+        final Object holdKey = new Object();
+        final Object holdValue = cacheGet.getFromCache(holdKey);
+        for (int index = 0; index < 100; index++) {
+            cacheGet.getFromCache(new Object());
+        }
+        for (int count = 0; count < 100 && cacheGet.size() > 1; count++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertEquals(1, cacheGet.size());
+        assertSame(holdValue, cacheGet.getFromCache(holdKey));
+        assertEquals(101, loadCount.get());
+    }
+
+    @Test
+    public void test$$weakValue() throws InterruptedException {
+        final CountingWeakCacheGet cacheGet = new CountingWeakCacheGet(16);
+
+        // VALUE引用着KEY，也不能让KEY无法被回收
+        cacheGet.getFromCache(new Object());
+        for (int count = 0; count < 50 && cacheGet.size() > 0; count++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, cacheGet.size());
+
+        // KEY还活着而VALUE被回收时，重新加载
+        final Object key = new Object();
+        final WeakReference<Object> valueRef = new WeakReference<Object>(cacheGet.getFromCache(key));
+        final int loadCount = cacheGet.loadCount.get();
+        for (int count = 0; count < 50 && null != valueRef.get(); count++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(valueRef.get());
+        assertSame(key, ((Object[]) cacheGet.getFromCache(key))[0]);
+        assertEquals(loadCount + 1, cacheGet.loadCount.get());
+        assertEquals(1, cacheGet.size());
+    }
+
+    @Test
+    public void test$$clear() {
+        final CountingWeakCacheGet cacheGet = new CountingWeakCacheGet(16);
+        final String key = "sandbox";
+        cacheGet.getFromCache(key);
+        cacheGet.clear();
+        assertEquals(0, cacheGet.size());
+        cacheGet.getFromCache(key);
+        assertEquals(2, cacheGet.loadCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test$$illegalMaximumSize() {
+        new CountingWeakCacheGet(0);
+    }
+
+    @Test
+    public void test$$concurrent() throws Exception {
+        final CountingWeakCacheGet cacheGet = new CountingWeakCacheGet(10000);
+        final Object[] keys = new Object[1000];
+        for (int index = 0; index < keys.length; index++) {
+            keys[index] = new Object();
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Object[]>> futures = new ArrayList<Future<Object[]>>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(new Callable<Object[]>() {
+                    @Override
+                    public Object[] call() {
+                        final Object[] values = new Object[keys.length];
+                        for (int index = 0; index < keys.length; index++) {
+                            values[index] = cacheGet.getFromCache(keys[index]);
+                        }
+                        return values;
+                    }
+                }));
+            }
+            final Object[] values = futures.get(0).get();
+            for (final Future<Object[]> future : futures) {
+                final Object[] otherValues = future.get();
+                for (int index = 0; index < keys.length; index++) {
+                    assertSame(values[index], otherValues[index]);
+                    assertSame(keys[index], ((Object[]) values[index])[0]);
+                }
+            }
+            assertEquals(keys.length, cacheGet.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test$$CacheGet$$nullKeyAndValue() {
+        final AtomicInteger loadCount = new AtomicInteger();
+        final CacheGet<String, String> cacheGet = new CacheGet<String, String>() {
+            @Override
+            protected String load(String key) {
+                loadCount.incrementAndGet();
+                return null == key ? null : key.toUpperCase();
+            }
+        };
+        assertNull(cacheGet.getFromCache(null));
+        assertNull(cacheGet.getFromCache(null));
+        assertEquals("SANDBOX", cacheGet.getFromCache("sandbox"));
+        assertEquals("SANDBOX", cacheGet.getFromCache("sandbox"));
+        assertEquals(2, loadCount.get());
+    }
+
+}
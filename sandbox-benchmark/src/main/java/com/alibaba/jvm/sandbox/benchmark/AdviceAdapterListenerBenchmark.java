@@ -0,0 +1,73 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.event.*;
+import com.alibaba.jvm.sandbox.api.listener.ext.AdviceAdapterListener;
+import com.alibaba.jvm.sandbox.api.listener.ext.AdviceListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通知监听器事件处理的性能测试
+ * <p>
+ * 模拟一次三层嵌套的调用过程，其中最内层方法还发生了一次方法调用，
+ * 对比每个BEFORE都分配新{@link com.alibaba.jvm.sandbox.api.listener.ext.Advice}
+ * 与在线程内复用通知的耗时，建议使用{@code -prof gc}观察每次调用过程的内存分配
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdviceAdapterListenerBenchmark {
+
+    private static final int DEPTH = 3;
+    private static final int PROCESS_ID = 1000;
+
+    @Param({"false", "true"})
+    public boolean isReusableAdvice;
+
+    private final ClassLoader loader = getClass().getClassLoader();
+    private final Object[] argumentArray = new Object[0];
+    private final BeforeEvent[] beforeEvents = new BeforeEvent[DEPTH];
+    private final ReturnEvent[] returnEvents = new ReturnEvent[DEPTH];
+    private CallBeforeEvent callBeforeEvent;
+    private CallReturnEvent callReturnEvent;
+    private AdviceAdapterListener listener;
+
+    @Setup
+    public void setup() {
+        for (int index = 0; index < DEPTH; index++) {
+            final int invokeId = PROCESS_ID + index;
+            beforeEvents[index] = new BeforeEvent(
+                    PROCESS_ID,
+                    invokeId,
+                    loader,
+                    AdviceAdapterListenerBenchmark.class.getName(),
+                    "process",
+                    "()V",
+                    this,
+                    argumentArray
+            );
+            returnEvents[index] = new ReturnEvent(PROCESS_ID, invokeId, null);
+        }
+        callBeforeEvent = new CallBeforeEvent(PROCESS_ID, PROCESS_ID + DEPTH - 1, 1, "java/lang/String", "length", "()I");
+        callReturnEvent = new CallReturnEvent(PROCESS_ID, PROCESS_ID + DEPTH - 1);
+        listener = new AdviceAdapterListener(new AdviceListener(), isReusableAdvice);
+    }
+
+    @Benchmark
+    public void process() throws Throwable {
+        for (int index = 0; index < DEPTH; index++) {
+            listener.onEvent(beforeEvents[index]);
+        }
+        listener.onEvent(callBeforeEvent);
+        listener.onEvent(callReturnEvent);
+        for (int index = DEPTH - 1; index >= 0; index--) {
+            listener.onEvent(returnEvents[index]);
+        }
+    }
+
+}
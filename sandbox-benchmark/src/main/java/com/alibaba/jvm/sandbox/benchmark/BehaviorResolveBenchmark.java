@@ -0,0 +1,120 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.listener.ext.Behavior;
+import com.alibaba.jvm.sandbox.api.util.BehaviorDescriptor;
+import com.alibaba.jvm.sandbox.api.util.CacheGet;
+import com.alibaba.jvm.sandbox.core.util.BehaviorIDs;
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通知获取触发事件行为的性能测试
+ * <p>
+ * 对比原来根据类名、方法名、方法签名构造缓存KEY、加载类再查缓存的实现，
+ * 与增强时登记行为ID、事件中直接按行为ID读取行为元数据的实现
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BehaviorResolveBenchmark {
+
+    private final ClassLoader loader = getClass().getClassLoader();
+    private final String javaClassName = BehaviorResolveBenchmark.class.getName();
+    private final String javaMethodName = "byBehaviorId";
+    private final String javaMethodDesc = "()Ljava/lang/Object;";
+    private final BehaviorCacheGet behaviorCacheGet = new BehaviorCacheGet();
+    private int behaviorId;
+
+    @Setup
+    public void setup() {
+        behaviorId = BehaviorIDs.instance.register(
+                ObjectIDs.instance.identity(loader),
+                javaClassName,
+                javaMethodName,
+                javaMethodDesc
+        );
+    }
+
+    @Benchmark
+    public Object byCacheGet() throws Throwable {
+        return behaviorCacheGet.getFromCache(new BehaviorCacheKey(
+                loader.loadClass(javaClassName),
+                javaMethodName,
+                javaMethodDesc
+        ));
+    }
+
+    @Benchmark
+    public Object byBehaviorId() throws Throwable {
+        return BehaviorIDs.instance.getBehaviorMeta(behaviorId).getBehavior();
+    }
+
+    /**
+     * 原AdviceAdapterListener的行为缓存KEY
+     */
+    private static class BehaviorCacheKey {
+        private final Class<?> clazz;
+        private final String javaMethodName;
+        private final String javaMethodDesc;
+
+        private BehaviorCacheKey(final Class<?> clazz,
+                                 final String javaMethodName,
+                                 final String javaMethodDesc) {
+            this.clazz = clazz;
+            this.javaMethodName = javaMethodName;
+            this.javaMethodDesc = javaMethodDesc;
+        }
+
+        @Override
+        public int hashCode() {
+            return clazz.hashCode()
+                    + javaMethodName.hashCode()
+                    + javaMethodDesc.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BehaviorCacheKey)) {
+                return false;
+            }
+            final BehaviorCacheKey key = (BehaviorCacheKey) o;
+            return clazz.equals(key.clazz)
+                    && javaMethodName.equals(key.javaMethodName)
+                    && javaMethodDesc.equals(key.javaMethodDesc);
+        }
+
+    }
+
+    /**
+     * 原AdviceAdapterListener的行为缓存
+     */
+    private static class BehaviorCacheGet extends CacheGet<BehaviorCacheKey, Behavior> {
+        @Override
+        protected Behavior load(BehaviorCacheKey key) {
+            if ("<init>".equals(key.javaMethodName)) {
+                for (final Constructor<?> constructor : key.clazz.getDeclaredConstructors()) {
+                    if (key.javaMethodDesc.equals(new BehaviorDescriptor(constructor).getDescriptor())) {
+                        return new Behavior.ConstructorImpl(constructor);
+                    }
+                }
+            } else {
+                for (final Method method : key.clazz.getDeclaredMethods()) {
+                    if (key.javaMethodName.equals(method.getName())
+                            && key.javaMethodDesc.equals(new BehaviorDescriptor(method).getDescriptor())) {
+                        return new Behavior.MethodImpl(method);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+}
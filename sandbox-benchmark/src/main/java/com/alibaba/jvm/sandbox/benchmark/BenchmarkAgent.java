@@ -0,0 +1,32 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * 性能测试用的Agent，只用于获取{@link Instrumentation}
+ * <p>
+ * 运行时通过{@code -javaagent:sandbox-benchmark.jar}挂载
+ * </p>
+ */
+public class BenchmarkAgent {
+
+    private static volatile Instrumentation inst;
+
+    public static void premain(String featureString, Instrumentation inst) {
+        BenchmarkAgent.inst = inst;
+    }
+
+    /**
+     * 获取Instrumentation
+     *
+     * @return Instrumentation
+     * @throws IllegalStateException 未通过-javaagent挂载时抛出
+     */
+    public static Instrumentation getInstrumentation() {
+        if (null == inst) {
+            throw new IllegalStateException("instrumentation not found, please run with -javaagent:sandbox-benchmark.jar");
+        }
+        return inst;
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
+import com.alibaba.jvm.sandbox.core.CoreModule;
+import com.alibaba.jvm.sandbox.core.enhance.EnhancedByteCodeCache;
+import com.alibaba.jvm.sandbox.core.manager.CoreLoadedClassDataSource;
+import com.alibaba.jvm.sandbox.core.manager.impl.DefaultCoreLoadedClassDataSource;
+import com.alibaba.jvm.sandbox.core.manager.impl.MergedClassFileTransformer;
+import com.alibaba.jvm.sandbox.core.util.SandboxClassUtils;
+import com.alibaba.jvm.sandbox.core.util.SandboxProtector;
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureCache;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.alibaba.jvm.sandbox.core.util.SandboxReflectUtils.defineClass;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * 观察类性能测试的公共工具
+ * <p>
+ * 负责创建{@link ModuleEventWatcher}和生成用于模拟已加载类数量的类，
+ * 需要通过{@code -javaagent:sandbox-benchmark.jar}获取Instrumentation
+ * </p>
+ */
+class BenchmarkWatchers {
+
+    /**
+     * 生成类的类名前缀
+     */
+    static final String GENERATED_CLASS_NAME_PREFIX = "benchmark.generated.Target";
+
+    /**
+     * 生成类中的方法名
+     */
+    static final String GENERATED_METHOD_NAME = "run";
+
+    /**
+     * 创建观察者
+     * <p>观察者和合并类形变器的构造函数都不对外开放，这里通过反射创建</p>
+     *
+     * @param namespace            命名空间
+     * @param reTransformBatchSize 每批重新形变的类个数
+     * @return 观察者
+     * @throws Exception 创建失败
+     */
+    static ModuleEventWatcher newModuleEventWatcher(final String namespace,
+                                                    final int reTransformBatchSize) throws Exception {
+        final Instrumentation inst = BenchmarkAgent.getInstrumentation();
+
+        // 预先加载ClassFileTransformer入口用到的类
+        // 沙箱在启动时已经加载了这些类，这里如果不预先加载，会在transform中递归加载导致LinkageError
+        SandboxProtector.instance.enterProtecting();
+        SandboxProtector.instance.exitProtecting();
+        SandboxClassUtils.isComeFromSandboxFamily(null, null);
+        ClassStructureCache.instance.size();
+
+        final CoreModule coreModule = new CoreModule(namespace, null, null, null).markActivated(true);
+        final Constructor<MergedClassFileTransformer> mergedConstructor = MergedClassFileTransformer.class
+                .getDeclaredConstructor(Instrumentation.class, boolean.class, boolean.class, String.class, EnhancedByteCodeCache.class);
+        mergedConstructor.setAccessible(true);
+        final Constructor<?> constructor = Class
+                .forName("com.alibaba.jvm.sandbox.core.manager.impl.DefaultModuleEventWatcher")
+                .getDeclaredConstructor(Instrumentation.class, CoreLoadedClassDataSource.class, CoreModule.class, MergedClassFileTransformer.class, int.class);
+        constructor.setAccessible(true);
+        return (ModuleEventWatcher) constructor.newInstance(
+                inst,
+                new DefaultCoreLoadedClassDataSource(inst, false),
+                coreModule,
+                mergedConstructor.newInstance(inst, false, false, namespace, null),
+                reTransformBatchSize
+        );
+    }
+
+    /**
+     * 在一个独立的ClassLoader中生成并加载类
+     *
+     * @param classCount 类个数
+     * @return 已加载的类
+     * @throws Exception 加载失败
+     */
+    static List<Class<?>> defineGeneratedClasses(final int classCount) throws Exception {
+        final List<Class<?>> loadedClasses = new ArrayList<Class<?>>();
+        final ClassLoader loader = new URLClassLoader(new URL[0], null);
+        for (int index = 0; index < classCount; index++) {
+            final String javaClassName = GENERATED_CLASS_NAME_PREFIX + index;
+            loadedClasses.add(defineClass(loader, javaClassName, generateClass(javaClassName)));
+        }
+        return loadedClasses;
+    }
+
+    // 生成一个只有默认构造函数和一个空方法的类
+    private static byte[] generateClass(final String javaClassName) {
+        final ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V1_6, ACC_PUBLIC, javaClassName.replace('.', '/'), null, "java/lang/Object", null);
+
+        final MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        final MethodVisitor run = cw.visitMethod(ACC_PUBLIC, GENERATED_METHOD_NAME, "()V", null, null);
+        run.visitCode();
+        run.visitInsn(RETURN);
+        run.visitMaxs(0, 0);
+        run.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+}
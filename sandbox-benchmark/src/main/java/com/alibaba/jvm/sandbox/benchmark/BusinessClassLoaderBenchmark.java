@@ -0,0 +1,48 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.core.classloader.BusinessClassLoaderHolder;
+import com.alibaba.jvm.sandbox.core.classloader.BusinessClassLoaderHolder.DelegateBizClassLoader;
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BEFORE事件记录业务类加载器的性能测试
+ * <p>
+ * 对比每次事件都构造一个{@link DelegateBizClassLoader}的原实现，
+ * 与只记录业务类加载器、模块类加载器找不到类时才获取委托类加载器的实现
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BusinessClassLoaderBenchmark {
+
+    private final ClassLoader loader = getClass().getClassLoader();
+    private SandboxThreadContext context;
+
+    @Setup
+    public void setup() {
+        context = SandboxThreadContext.current();
+    }
+
+    @Benchmark
+    public Object newDelegatePerEvent() {
+        return new DelegateBizClassLoader(loader);
+    }
+
+    @Benchmark
+    public void setPerEvent() {
+        BusinessClassLoaderHolder.setBussinessClassLoader(context, loader);
+    }
+
+    @Benchmark
+    public Object getDelegateOnMiss() {
+        return BusinessClassLoaderHolder.getDelegateBizClassLoader(loader);
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.api.listener.ext.AdviceListener;
+import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator;
+import com.alibaba.jvm.sandbox.qatest.core.util.JvmHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.jvm.sandbox.api.event.Event.Type.*;
+import static com.alibaba.jvm.sandbox.qatest.core.util.CalculatorHelper.CALCULATOR_CLASS_NAME;
+import static com.alibaba.jvm.sandbox.qatest.core.util.CalculatorHelper.CALCULATOR_SUM_FILTER;
+
+/**
+ * 被增强方法单次调用的开销
+ * <p>
+ * 复用sandbox-core测试用例中的{@link JvmHelper}和{@link Calculator}靶机，
+ * 对{@code Calculator#sum(int...)}分别以不同的观察方式进行增强，和未增强的基线进行对比
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnhancedInvokeBenchmark {
+
+    /**
+     * 观察场景
+     */
+    public enum Scenario {
+
+        /**
+         * 未增强
+         */
+        BASELINE,
+
+        /**
+         * 已增强，但监听器已冻结
+         */
+        NO_LISTENER,
+
+        /**
+         * 只观察BEFORE事件的EventListener
+         */
+        BEFORE_EVENT,
+
+        /**
+         * 只观察BEFORE事件的EventListener，且声明不需要参数
+         */
+        BEFORE_EVENT_WITHOUT_PARAMETERS,
+
+        /**
+         * 完整的AdviceListener
+         */
+        ADVICE,
+
+        /**
+         * 观察LINE事件
+         */
+        LINE,
+
+        /**
+         * 观察CALL_*事件
+         */
+        CALL
+
+    }
+
+    @Param
+    public Scenario scenario;
+
+    private final int[] numArray = new int[]{1, 2, 3};
+    private MethodHandle sum;
+
+    @Setup
+    public void setup() throws Throwable {
+        final JvmHelper jvmHelper = JvmHelper.createJvm("benchmark");
+        final EventListener listener = new EventListener() {
+            @Override
+            public void onEvent(Event event) {
+            }
+        };
+        switch (scenario) {
+            case BASELINE:
+                jvmHelper.defineClass(Calculator.class);
+                break;
+            case NO_LISTENER:
+                jvmHelper.defineClass(Calculator.class, CALCULATOR_SUM_FILTER, listener, BEFORE, RETURN, THROWS);
+                EventListenerHandler.getSingleton().frozen(ObjectIDs.instance.identity(listener));
+                break;
+            case BEFORE_EVENT:
+                jvmHelper.defineClass(Calculator.class, CALCULATOR_SUM_FILTER, listener, BEFORE);
+                break;
+            case BEFORE_EVENT_WITHOUT_PARAMETERS:
+                jvmHelper.defineClass(Calculator.class, new JvmHelper.Transformer(CALCULATOR_SUM_FILTER, listener, BEFORE).withoutParameters());
+                break;
+            case ADVICE:
+                jvmHelper.defineClass(Calculator.class, new JvmHelper.Transformer(CALCULATOR_SUM_FILTER, new AdviceListener()));
+                break;
+            case LINE:
+                jvmHelper.defineClass(Calculator.class, CALCULATOR_SUM_FILTER, listener, LINE);
+                break;
+            case CALL:
+                jvmHelper.defineClass(Calculator.class, CALCULATOR_SUM_FILTER, listener, CALL_BEFORE, CALL_RETURN, CALL_THROWS);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown scenario: " + scenario);
+        }
+
+        final Class<?> calculatorClass = jvmHelper.loadClass(CALCULATOR_CLASS_NAME);
+        sum = MethodHandles.publicLookup()
+                .findVirtual(calculatorClass, "sum", MethodType.methodType(int.class, int[].class))
+                .bindTo(calculatorClass.newInstance());
+    }
+
+    @Benchmark
+    public int sum() throws Throwable {
+        return (int) sum.invokeExact(numArray);
+    }
+
+}
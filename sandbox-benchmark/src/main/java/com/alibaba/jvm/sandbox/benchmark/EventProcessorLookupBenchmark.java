@@ -0,0 +1,99 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
+import com.alibaba.jvm.sandbox.core.util.CopyOnWriteIntMap;
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件处理器查找的性能对比
+ * <p>
+ * concurrentHashMap：旧版按{@code Integer}装箱后在{@link ConcurrentHashMap}中查找<br>
+ * copyOnWriteArray：以监听器ID为下标的写时复制数组，监听器ID取值稀疏，数组长度取决于最大的监听器ID<br>
+ * copyOnWriteIntMap：写时复制的开放寻址哈希表，容量只取决于监听器个数<br>
+ * handleOnCallReturn：{@link EventListenerHandler}完整的CALL_RETURN事件入口(无调用堆栈，查找后立即返回)
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventProcessorLookupBenchmark {
+
+    @Param({"1", "10", "100", "500"})
+    public int listenerCount;
+
+    private final EventListenerHandler handler = new EventListenerHandler();
+    private final Map<Integer, Object> mappingOfEventProcessor = new ConcurrentHashMap<Integer, Object>();
+    private Object[] eventProcessors;
+    private final CopyOnWriteIntMap<Object> copyOnWriteIntMap = new CopyOnWriteIntMap<Object>();
+    private int[] listenerIds;
+
+    @Setup
+    public void setup() {
+        listenerIds = new int[listenerCount];
+        int maxListenerId = 0;
+        for (int index = 0; index < listenerCount; index++) {
+            final EventListener listener = new EventListener() {
+                @Override
+                public void onEvent(Event event) {
+                }
+            };
+            final int listenerId = ObjectIDs.instance.identity(listener);
+            listenerIds[index] = listenerId;
+            maxListenerId = Math.max(maxListenerId, listenerId);
+            mappingOfEventProcessor.put(listenerId, listener);
+            copyOnWriteIntMap.put(listenerId, listener);
+            handler.active(listenerId, listener, new Event.Type[]{Event.Type.CALL_RETURN});
+        }
+        eventProcessors = new Object[maxListenerId + 1];
+        for (final Map.Entry<Integer, Object> entry : mappingOfEventProcessor.entrySet()) {
+            eventProcessors[entry.getKey()] = entry.getValue();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index;
+
+        int next(int[] listenerIds) {
+            if (++index >= listenerIds.length) {
+                index = 0;
+            }
+            return listenerIds[index];
+        }
+    }
+
+    @Benchmark
+    public Object concurrentHashMap(Cursor cursor) {
+        return mappingOfEventProcessor.get(cursor.next(listenerIds));
+    }
+
+    @Benchmark
+    public Object copyOnWriteArray(Cursor cursor) {
+        final Object[] processors = eventProcessors;
+        final int listenerId = cursor.next(listenerIds);
+        return listenerId >= 0 && listenerId < processors.length
+                ? processors[listenerId]
+                : null;
+    }
+
+    @Benchmark
+    public Object copyOnWriteIntMap(Cursor cursor) {
+        return copyOnWriteIntMap.get(cursor.next(listenerIds));
+    }
+
+    @Benchmark
+    public void handleOnCallReturn(Cursor cursor) throws Throwable {
+        handler.handleOnCallReturn(cursor.next(listenerIds));
+    }
+
+}
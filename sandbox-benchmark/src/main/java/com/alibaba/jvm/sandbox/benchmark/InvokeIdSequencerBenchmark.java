@@ -0,0 +1,59 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.core.util.InvokeIdSequencer;
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 调用ID生成的性能测试
+ * <p>
+ * 对比原来所有线程共用一个{@link AtomicInteger}的实现与每个线程预留一段ID的{@link InvokeIdSequencer}，
+ * 事件处理时线程上下文已经在手，所以同时给出通过线程上下文缓存ID区间的耗时，
+ * 通过{@code -t}参数观察线程数从1到128时的扩展性，例如：
+ * </p>
+ * <pre>
+ * for t in 1 2 4 8 16 32 64 128; do java -jar sandbox-benchmark.jar InvokeIdSequencerBenchmark -t $t; done
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvokeIdSequencerBenchmark {
+
+    private final AtomicInteger atomicInteger = new AtomicInteger(1000);
+    private final InvokeIdSequencer invokeIdSequencer = new InvokeIdSequencer(1000);
+
+    @State(Scope.Thread)
+    public static class Context {
+
+        SandboxThreadContext context;
+
+        @Setup
+        public void setup() {
+            context = SandboxThreadContext.current();
+        }
+
+    }
+
+    @Benchmark
+    public int atomicInteger() {
+        return atomicInteger.getAndIncrement();
+    }
+
+    @Benchmark
+    public int invokeIdSequencer() {
+        return invokeIdSequencer.next();
+    }
+
+    @Benchmark
+    public int invokeIdSequencerWithContext(final Context context) {
+        return invokeIdSequencer.next(context.context);
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.filter.Filter;
+import com.alibaba.jvm.sandbox.core.manager.CoreLoadedClassDataSource;
+import com.alibaba.jvm.sandbox.core.manager.impl.DefaultCoreLoadedClassDataSource;
+import com.alibaba.jvm.sandbox.core.util.matcher.ExtFilterMatcher;
+import com.alibaba.jvm.sandbox.core.util.matcher.Matcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.jvm.sandbox.api.filter.ExtFilter.ExtFilterFactory.make;
+import static com.alibaba.jvm.sandbox.benchmark.BenchmarkWatchers.*;
+
+/**
+ * 已加载类数量、扫描并行度与{@link CoreLoadedClassDataSource#findForReTransform(Matcher)}耗时的关系
+ * <p>
+ * 额外加载{@code classCount}个类，查找其中{@code run()}方法命中的类，
+ * 需要通过{@code -javaagent:sandbox-benchmark.jar}获取Instrumentation
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadedClassScanBenchmark {
+
+    @Param({"10000", "50000"})
+    public int classCount;
+
+    @Param({"1", "4"})
+    public int scanParallelism;
+
+    // 命中所有生成类的run()方法
+    private final Filter filter = new Filter() {
+        @Override
+        public boolean doClassFilter(int access,
+                                     String javaClassName,
+                                     String superClassTypeJavaClassName,
+                                     String[] interfaceTypeJavaClassNameArray,
+                                     String[] annotationTypeJavaClassNameArray) {
+            return javaClassName.startsWith(GENERATED_CLASS_NAME_PREFIX);
+        }
+
+        @Override
+        public boolean doMethodFilter(int access,
+                                      String javaMethodName,
+                                      String[] parameterTypeJavaClassNameArray,
+                                      String[] throwsTypeJavaClassNameArray,
+                                      String[] annotationTypeJavaClassNameArray) {
+            return GENERATED_METHOD_NAME.equals(javaMethodName);
+        }
+    };
+
+    private List<Class<?>> loadedClasses;
+    private CoreLoadedClassDataSource classDataSource;
+    private Matcher matcher;
+
+    @Setup
+    public void setup() throws Throwable {
+        loadedClasses = defineGeneratedClasses(classCount);
+        classDataSource = new DefaultCoreLoadedClassDataSource(BenchmarkAgent.getInstrumentation(), false, scanParallelism);
+        matcher = new ExtFilterMatcher(make(filter));
+    }
+
+    @Benchmark
+    public List<Class<?>> findForReTransform() {
+        return classDataSource.findForReTransform(matcher);
+    }
+
+}
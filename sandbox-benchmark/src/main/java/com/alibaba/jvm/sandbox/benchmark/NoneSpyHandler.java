@@ -0,0 +1,42 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import java.com.alibaba.jvm.sandbox.spy.Spy;
+import java.com.alibaba.jvm.sandbox.spy.SpyHandler;
+
+/**
+ * 什么都不做的间谍处理器，用于只测量Spy自身开销的场景
+ */
+public class NoneSpyHandler implements SpyHandler {
+
+    @Override
+    public void handleOnCallBefore(int listenerId, int lineNumber, String owner, String name, String desc) {
+    }
+
+    @Override
+    public void handleOnCallReturn(int listenerId) {
+    }
+
+    @Override
+    public void handleOnCallThrows(int listenerId, String throwException) {
+    }
+
+    @Override
+    public void handleOnLine(int listenerId, int lineNumber) {
+    }
+
+    @Override
+    public Spy.Ret handleOnBefore(int listenerId, int behaviorId, Object[] argumentArray, Object target) {
+        return Spy.Ret.newInstanceForNone();
+    }
+
+    @Override
+    public Spy.Ret handleOnThrows(int listenerId, Throwable throwable) {
+        return Spy.Ret.newInstanceForNone();
+    }
+
+    @Override
+    public Spy.Ret handleOnReturn(int listenerId, Object object) {
+        return Spy.Ret.newInstanceForNone();
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 对象ID映射的并发性能测试
+ * <p>
+ * 模拟大量线程同时触发BEFORE事件：每个事件都要根据ClassLoader的对象ID反查ClassLoader，
+ * 对比原读写锁实现与{@link ObjectIDs}无锁实现的耗时
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ObjectIDsBenchmark {
+
+    /**
+     * 模拟的业务ClassLoader个数
+     */
+    private static final int LOADER_COUNT = 64;
+
+    private final ClassLoader[] loaders = new ClassLoader[LOADER_COUNT];
+    private final int[] lockedObjectIDs = new int[LOADER_COUNT];
+    private final int[] lockFreeObjectIDs = new int[LOADER_COUNT];
+    private final LockedObjectIDs lockedInstance = new LockedObjectIDs();
+
+    @Setup
+    public void setup() {
+        for (int index = 0; index < LOADER_COUNT; index++) {
+            loaders[index] = new ClassLoader() {
+            };
+            lockedObjectIDs[index] = lockedInstance.identity(loaders[index]);
+            lockFreeObjectIDs[index] = ObjectIDs.instance.identity(loaders[index]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int index;
+
+        int next() {
+            return index = (index + 1) & (LOADER_COUNT - 1);
+        }
+
+    }
+
+    @Benchmark
+    public Object lockedGetObject(final Cursor cursor) {
+        return lockedInstance.getObject(lockedObjectIDs[cursor.next()]);
+    }
+
+    @Benchmark
+    public Object lockFreeGetObject(final Cursor cursor) {
+        return ObjectIDs.instance.getObject(lockFreeObjectIDs[cursor.next()]);
+    }
+
+    @Benchmark
+    public int lockedIdentity(final Cursor cursor) {
+        return lockedInstance.identity(loaders[cursor.next()]);
+    }
+
+    @Benchmark
+    public int lockFreeIdentity(final Cursor cursor) {
+        return ObjectIDs.instance.identity(loaders[cursor.next()]);
+    }
+
+    /**
+     * 原ObjectIDs的读写锁实现
+     */
+    private static class LockedObjectIDs {
+
+        private int sequence = 1000;
+        private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
+        private final WeakHashMap<Object, Integer> objectIDMapping = new WeakHashMap<Object, Integer>();
+        private final ReferenceQueue<Object> rQueue = new ReferenceQueue<Object>();
+        private final HashMap<Integer, IdentityWeakReference> identityObjectMapping = new HashMap<Integer, IdentityWeakReference>();
+
+        int identity(final Object object) {
+            rwLock.readLock().lock();
+            try {
+                final Integer objectID = objectIDMapping.get(object);
+                if (null != objectID) {
+                    return objectID;
+                }
+            } finally {
+                rwLock.readLock().unlock();
+                expungeIdentityObjectMapping();
+            }
+            rwLock.writeLock().lock();
+            try {
+                final Integer nextObjectID;
+                if (objectIDMapping.containsKey(object)) {
+                    nextObjectID = objectIDMapping.get(object);
+                } else {
+                    nextObjectID = sequence++;
+                    objectIDMapping.put(object, nextObjectID);
+                    identityObjectMapping.put(nextObjectID, new IdentityWeakReference(nextObjectID, object));
+                }
+                return nextObjectID;
+            } finally {
+                rwLock.writeLock().unlock();
+            }
+        }
+
+        private void expungeIdentityObjectMapping() {
+            for (Object x; (x = rQueue.poll()) != null; ) {
+                synchronized (rQueue) {
+                    rwLock.writeLock().lock();
+                    try {
+                        identityObjectMapping.remove(((IdentityWeakReference) x).objectID);
+                    } finally {
+                        rwLock.writeLock().unlock();
+                    }
+                }
+            }
+        }
+
+        Object getObject(final int objectID) {
+            rwLock.readLock().lock();
+            try {
+                final IdentityWeakReference reference = identityObjectMapping.get(objectID);
+                return null == reference ? null : reference.get();
+            } finally {
+                rwLock.readLock().unlock();
+                expungeIdentityObjectMapping();
+            }
+        }
+
+        private class IdentityWeakReference extends WeakReference<Object> {
+
+            private final Integer objectID;
+
+            private IdentityWeakReference(final Integer objectID, final Object referent) {
+                super(referent, rQueue);
+                this.objectID = objectID;
+            }
+
+        }
+
+    }
+
+}
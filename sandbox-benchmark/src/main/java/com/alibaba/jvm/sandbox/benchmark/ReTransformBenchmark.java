@@ -0,0 +1,79 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.filter.Filter;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.jvm.sandbox.api.event.Event.Type.BEFORE;
+import static com.alibaba.jvm.sandbox.benchmark.BenchmarkWatchers.*;
+
+/**
+ * 观察命中的类个数与{@link ModuleEventWatcher#watch}、{@link ModuleEventWatcher#delete}总耗时的关系
+ * <p>
+ * 加载{@code classCount}个类并全部命中观察，对比逐个类重新形变({@code batchSize=1})和分批重新形变的耗时，
+ * 需要通过{@code -javaagent:sandbox-benchmark.jar}获取Instrumentation
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReTransformBenchmark {
+
+    @Param({"100", "1000", "5000"})
+    public int classCount;
+
+    @Param({"1", "64"})
+    public int batchSize;
+
+    private final EventListener listener = new EventListener() {
+        @Override
+        public void onEvent(Event event) {
+        }
+    };
+
+    // 命中所有生成类的run()方法
+    private final Filter filter = new Filter() {
+        @Override
+        public boolean doClassFilter(int access,
+                                     String javaClassName,
+                                     String superClassTypeJavaClassName,
+                                     String[] interfaceTypeJavaClassNameArray,
+                                     String[] annotationTypeJavaClassNameArray) {
+            return javaClassName.startsWith(GENERATED_CLASS_NAME_PREFIX);
+        }
+
+        @Override
+        public boolean doMethodFilter(int access,
+                                      String javaMethodName,
+                                      String[] parameterTypeJavaClassNameArray,
+                                      String[] throwsTypeJavaClassNameArray,
+                                      String[] annotationTypeJavaClassNameArray) {
+            return GENERATED_METHOD_NAME.equals(javaMethodName);
+        }
+    };
+
+    private List<Class<?>> loadedClasses;
+    private ModuleEventWatcher moduleEventWatcher;
+
+    @Setup
+    public void setup() throws Throwable {
+        loadedClasses = defineGeneratedClasses(classCount);
+        moduleEventWatcher = newModuleEventWatcher("benchmark", batchSize);
+    }
+
+    @Benchmark
+    public int watchAndDelete() {
+        final int watchId = moduleEventWatcher.watch(filter, listener, BEFORE);
+        moduleEventWatcher.delete(watchId);
+        return watchId;
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.com.alibaba.jvm.sandbox.spy.Spy;
+import java.com.alibaba.jvm.sandbox.spy.SpyHandler;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spy自调用屏障的性能对比
+ * <p>
+ * lockBucket：旧版按线程hashCode分桶加自旋锁的实现<br>
+ * threadLocalFlag：当前Spy中的线程重入标记实现
+ * </p>
+ * <p>
+ * 两者都走一遍{@code Spy.spyMethodOnReturn()}的完整流程：屏障判断、进入、查找处理器、退出
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelfCallBarrierBenchmark {
+
+    private static final String NAMESPACE = "benchmark";
+
+    private final LockBucketSelfCallBarrier lockBucketSelfCallBarrier = new LockBucketSelfCallBarrier();
+    private final ConcurrentHashMap<String, SpyHandler> namespaceSpyHandlerMap = new ConcurrentHashMap<String, SpyHandler>();
+    private int namespaceIndex;
+
+    @Setup
+    public void setup() {
+        final SpyHandler spyHandler = new NoneSpyHandler();
+        namespaceSpyHandlerMap.put(NAMESPACE, spyHandler);
+        namespaceIndex = Spy.init(NAMESPACE, spyHandler);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Spy.clean(NAMESPACE);
+    }
+
+    @Benchmark
+    public Spy.Ret lockBucket() throws Throwable {
+        final Thread thread = Thread.currentThread();
+        if (lockBucketSelfCallBarrier.isEnter(thread)) {
+            return Spy.Ret.newInstanceForNone();
+        }
+        final LockBucketSelfCallBarrier.Node node = lockBucketSelfCallBarrier.enter(thread);
+        try {
+            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(NAMESPACE);
+            if (null == spyHandler) {
+                return Spy.Ret.newInstanceForNone();
+            }
+            return spyHandler.handleOnReturn(0, null);
+        } finally {
+            lockBucketSelfCallBarrier.exit(thread, node);
+        }
+    }
+
+    @Benchmark
+    public Spy.Ret threadLocalFlag() throws Throwable {
+        return Spy.spyMethodOnReturn(null, namespaceIndex, 0);
+    }
+
+    public static void main(String... args) throws RunnerException {
+        for (final int threads : new int[]{1, 8, 64, 512}) {
+            new Runner(new OptionsBuilder()
+                    .include(SelfCallBarrierBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()
+            ).run();
+        }
+    }
+
+}
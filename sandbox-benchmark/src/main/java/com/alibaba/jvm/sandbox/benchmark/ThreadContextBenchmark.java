@@ -0,0 +1,75 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
+import com.alibaba.jvm.sandbox.core.util.BehaviorIDs;
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程上下文查找的性能测试
+ * <p>
+ * 模拟一个方法被{@code listenerCount}个监听器同时观察时，
+ * 一次完整的BEFORE/RETURN事件处理过程的耗时
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThreadContextBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int listenerCount;
+
+    private final EventListenerHandler handler = new EventListenerHandler();
+    private final Object[] argumentArray = new Object[0];
+    private int[] listenerIds;
+    private int behaviorId;
+
+    @Setup
+    public void setup() {
+        behaviorId = BehaviorIDs.instance.register(ObjectIDs.NULL_ID, "Demo", "demo", "()V");
+        listenerIds = new int[listenerCount];
+        for (int index = 0; index < listenerCount; index++) {
+            final EventListener listener = new EventListener() {
+                @Override
+                public void onEvent(Event event) {
+                }
+            };
+            final int listenerId = ObjectIDs.instance.identity(listener);
+            listenerIds[index] = listenerId;
+            handler.active(listenerId, listener, new Event.Type[]{Event.Type.BEFORE, Event.Type.RETURN});
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (final int listenerId : listenerIds) {
+            handler.frozen(listenerId);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void beforeAndReturn() throws Throwable {
+        for (final int listenerId : listenerIds) {
+            handler.handleOnBefore(listenerId, behaviorId, argumentArray, this);
+        }
+        for (int index = listenerIds.length - 1; index >= 0; index--) {
+            handler.handleOnReturn(listenerIds[index], null);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void beforeAndReturnConcurrently() throws Throwable {
+        beforeAndReturn();
+    }
+
+}
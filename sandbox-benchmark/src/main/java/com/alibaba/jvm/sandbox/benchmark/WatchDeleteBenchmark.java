@@ -0,0 +1,107 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
+import com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator;
+import com.alibaba.jvm.sandbox.qatest.core.util.JvmHelper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.alibaba.jvm.sandbox.api.event.Event.Type.BEFORE;
+import static com.alibaba.jvm.sandbox.benchmark.BenchmarkWatchers.defineGeneratedClasses;
+import static com.alibaba.jvm.sandbox.benchmark.BenchmarkWatchers.newModuleEventWatcher;
+import static com.alibaba.jvm.sandbox.qatest.core.util.CalculatorHelper.CALCULATOR_SUM_FILTER;
+
+/**
+ * {@link ModuleEventWatcher#watch}和{@link ModuleEventWatcher#delete}的耗时与已加载类数量的关系
+ * <p>
+ * 额外加载{@code classCount}个无关的类，观察{@code Calculator#sum(int...)}，
+ * 需要通过{@code -javaagent:sandbox-benchmark.jar}获取Instrumentation
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WatchDeleteBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Watcher {
+
+        @Param({"0", "1000", "10000"})
+        public int classCount;
+
+        private List<Class<?>> loadedClasses;
+        private final EventListener listener = new EventListener() {
+            @Override
+            public void onEvent(Event event) {
+            }
+        };
+
+        private JvmHelper jvmHelper;
+        private ModuleEventWatcher moduleEventWatcher;
+
+        @Setup
+        public void setup() throws Throwable {
+
+            // 加载靶机类
+            jvmHelper = JvmHelper.createJvm("benchmark").defineClass(Calculator.class);
+
+            // 加载无关的类，模拟已加载类数量
+            loadedClasses = defineGeneratedClasses(classCount);
+
+            moduleEventWatcher = newModuleEventWatcher("benchmark", 1);
+        }
+
+        int watch() {
+            return moduleEventWatcher.watch(CALCULATOR_SUM_FILTER, listener, BEFORE);
+        }
+
+        void delete(final int watchId) {
+            moduleEventWatcher.delete(watchId);
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class Watched {
+
+        int watchId;
+
+        @Setup(Level.Invocation)
+        public void watch(Watcher watcher) {
+            watchId = watcher.watch();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class WatchIdHolder {
+
+        int watchId = -1;
+
+        @TearDown(Level.Invocation)
+        public void delete(Watcher watcher) {
+            if (watchId > 0) {
+                watcher.delete(watchId);
+                watchId = -1;
+            }
+        }
+
+    }
+
+    @Benchmark
+    public int watch(Watcher watcher, WatchIdHolder holder) {
+        return holder.watchId = watcher.watch();
+    }
+
+    @Benchmark
+    public void delete(Watcher watcher, Watched watched) {
+        watcher.delete(watched.watchId);
+    }
+
+}
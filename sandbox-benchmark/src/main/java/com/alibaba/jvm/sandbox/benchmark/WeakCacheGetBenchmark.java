@@ -0,0 +1,119 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.util.CacheGet;
+import com.alibaba.jvm.sandbox.api.util.WeakCacheGet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存并发读的性能测试
+ * <p>
+ * 模拟大量业务线程同时通过同一个监听器查找行为，对比原非线程安全的{@link HashMap}实现、
+ * 为了线程安全给原实现加锁、{@link CacheGet}和{@link WeakCacheGet}的读耗时
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class WeakCacheGetBenchmark {
+
+    /**
+     * 缓存的KEY个数
+     */
+    private static final int KEY_COUNT = 64;
+
+    private final Object[] keys = new Object[KEY_COUNT];
+
+    private final HashMapCacheGet<Object, Object> hashMapCacheGet = new HashMapCacheGet<Object, Object>() {
+        @Override
+        protected Object load(Object key) {
+            return new Object();
+        }
+    };
+
+    private final CacheGet<Object, Object> cacheGet = new CacheGet<Object, Object>() {
+        @Override
+        protected Object load(Object key) {
+            return new Object();
+        }
+    };
+
+    private final WeakCacheGet<Object, Object> weakCacheGet = new WeakCacheGet<Object, Object>() {
+        @Override
+        protected Object load(Object key) {
+            return new Object();
+        }
+    };
+
+    @Setup
+    public void setup() {
+        for (int index = 0; index < KEY_COUNT; index++) {
+            keys[index] = new Object();
+            hashMapCacheGet.getFromCache(keys[index]);
+            cacheGet.getFromCache(keys[index]);
+            weakCacheGet.getFromCache(keys[index]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int index;
+
+        int next() {
+            return index = (index + 1) & (KEY_COUNT - 1);
+        }
+
+    }
+
+    @Benchmark
+    public Object hashMapCacheGet(final Cursor cursor) {
+        return hashMapCacheGet.getFromCache(keys[cursor.next()]);
+    }
+
+    @Benchmark
+    public Object lockedHashMapCacheGet(final Cursor cursor) {
+        synchronized (hashMapCacheGet) {
+            return hashMapCacheGet.getFromCache(keys[cursor.next()]);
+        }
+    }
+
+    @Benchmark
+    public Object cacheGet(final Cursor cursor) {
+        return cacheGet.getFromCache(keys[cursor.next()]);
+    }
+
+    @Benchmark
+    public Object weakCacheGet(final Cursor cursor) {
+        return weakCacheGet.getFromCache(keys[cursor.next()]);
+    }
+
+    /**
+     * 原CacheGet的HashMap实现
+     */
+    private static abstract class HashMapCacheGet<K, V> {
+
+        private final Map<K, V> cache = new HashMap<K, V>();
+
+        V getFromCache(K key) {
+            if (!cache.containsKey(key)) {
+                final V value;
+                cache.put(key, value = load(key));
+                return value;
+            } else {
+                return cache.get(key);
+            }
+        }
+
+        protected abstract V load(K key);
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.alibaba.jvm.sandbox.benchmark;
+
+import com.alibaba.jvm.sandbox.api.util.GaWildcardPattern;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 通配符匹配的性能测试
+ * <p>
+ * 对比原递归匹配与{@link GaWildcardPattern}编译后匹配一批类名的耗时，
+ * {@code *a*b*c*}一类的多星号表达式在递归匹配下会产生大量回溯
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildcardMatchingBenchmark {
+
+    @Param({"com.alibaba.*", "*Service", "*Service*", "com.*.*Service*Impl", "*a*b*c*"})
+    public String wildcard;
+
+    private final String[] javaClassNames = new String[]{
+            "java.lang.String",
+            "java.util.concurrent.ConcurrentHashMap$Node",
+            "com.alibaba.jvm.sandbox.core.manager.impl.DefaultCoreModuleManager",
+            "com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler",
+            "com.taobao.trade.order.service.impl.TradeOrderQueryServiceImpl",
+            "org.springframework.beans.factory.support.DefaultListableBeanFactory",
+            "com.example.payment.gateway.AlipayPaymentGatewayServiceAdapter",
+            "sun.reflect.GeneratedMethodAccessor1024"
+    };
+
+    private GaWildcardPattern pattern;
+
+    @Setup
+    public void setup() {
+        pattern = GaWildcardPattern.compile(wildcard);
+    }
+
+    @Benchmark
+    public void recursive(final Blackhole blackhole) {
+        for (final String javaClassName : javaClassNames) {
+            blackhole.consume(recursiveMatching(javaClassName, wildcard, 0, 0));
+        }
+    }
+
+    @Benchmark
+    public void compiled(final Blackhole blackhole) {
+        for (final String javaClassName : javaClassNames) {
+            blackhole.consume(pattern.matching(javaClassName));
+        }
+    }
+
+    // 原GaStringUtils.matching()的递归实现
+    private static boolean recursiveMatching(String string, String wildcard, int stringStartNdx, int patternStartNdx) {
+        int pNdx = patternStartNdx;
+        int sNdx = stringStartNdx;
+        int pLen = wildcard.length();
+        if (pLen == 1) {
+            if (wildcard.charAt(0) == '*') {
+                return true;
+            }
+        }
+        int sLen = string.length();
+        boolean nextIsNotWildcard = false;
+        while (true) {
+            if ((sNdx >= sLen)) {
+                while ((pNdx < pLen) && (wildcard.charAt(pNdx) == '*')) {
+                    pNdx++;
+                }
+                return pNdx >= pLen;
+            }
+            if (pNdx >= pLen) {
+                return false;
+            }
+            char p = wildcard.charAt(pNdx);
+            if (!nextIsNotWildcard) {
+                if (p == '\\') {
+                    pNdx++;
+                    nextIsNotWildcard = true;
+                    continue;
+                }
+                if (p == '?') {
+                    sNdx++;
+                    pNdx++;
+                    continue;
+                }
+                if (p == '*') {
+                    char pnext = 0;
+                    if (pNdx + 1 < pLen) {
+                        pnext = wildcard.charAt(pNdx + 1);
+                    }
+                    if (pnext == '*') {
+                        pNdx++;
+                        continue;
+                    }
+                    pNdx++;
+                    for (int i = string.length(); i >= sNdx; i--) {
+                        if (recursiveMatching(string, wildcard, i, pNdx)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+            } else {
+                nextIsNotWildcard = false;
+            }
+            if (p != string.charAt(sNdx)) {
+                return false;
+            }
+            sNdx++;
+            pNdx++;
+        }
+    }
+
+}
@@ -37,6 +37,13 @@ public class CoreConfigure {
     private static final String VAL_LAUNCH_MODE_ATTACH = "attach";
 
     private static final String KEY_UNSAFE_ENABLE = "unsafe.enable";
+    private static final String KEY_SPY_MERGE_ENABLE = "spy.merge.enable";
+    private static final String KEY_RETRANSFORM_BATCH_SIZE = "retransform.batch.size";
+    private static final String KEY_SCAN_PARALLELISM = "scan.parallelism";
+    private static final String KEY_ENHANCE_CACHE_ENABLE = "enhance.cache.enable";
+
+    // 默认每批重新形变的类个数
+    private static final int DEFAULT_RETRANSFORM_BATCH_SIZE = 64;
 
     // 受保护key数组，在保护key范围之内，以用户传递的配置为准，系统配置不允许覆盖
     private static final String[] PROTECT_KEY_ARRAY = {KEY_NAMESPACE, KEY_SANDBOX_HOME, KEY_LAUNCH_MODE, KEY_SERVER_IP, KEY_SERVER_PORT, KEY_SERVER_CHARSET};
@@ -287,6 +294,60 @@ public class CoreConfigure {
         return BooleanUtils.toBoolean(featureMap.get(KEY_UNSAFE_ENABLE));
     }
 
+    /**
+     * 是否启用合并埋点
+     * <p>
+     * 启用后多个观察命中同一个方法时只埋入一组Spy调用，由事件处理器分发给所有监听器
+     * </p>
+     *
+     * @return spy.merge.enable
+     */
+    public boolean isEnableSpyMerge() {
+        return BooleanUtils.toBoolean(featureMap.get(KEY_SPY_MERGE_ENABLE));
+    }
+
+    /**
+     * 获取每批重新形变的类个数
+     * <p>
+     * 观察和删除观察时，每次调用{@code Instrumentation#retransformClasses(Class[])}重新形变的类个数，
+     * 未配置或配置非法时使用默认值，配置为1时退化为逐个类重新形变
+     * </p>
+     *
+     * @return retransform.batch.size
+     */
+    public int getReTransformBatchSize() {
+        final int batchSize = NumberUtils.toInt(featureMap.get(KEY_RETRANSFORM_BATCH_SIZE), DEFAULT_RETRANSFORM_BATCH_SIZE);
+        return batchSize > 0
+                ? batchSize
+                : DEFAULT_RETRANSFORM_BATCH_SIZE;
+    }
+
+    /**
+     * 获取扫描已加载类的并行度
+     * <p>
+     * 观察时查找匹配的已加载类所使用的线程数，
+     * 未配置或配置小于等于1时在当前线程中串行扫描
+     * </p>
+     *
+     * @return scan.parallelism
+     */
+    public int getScanParallelism() {
+        return Math.max(1, NumberUtils.toInt(featureMap.get(KEY_SCAN_PARALLELISM), 1));
+    }
+
+    /**
+     * 是否启用增强字节码缓存
+     * <p>
+     * 启用后缓存类在每组增强单元下增强前后的字节码，重新形变回到已经编织过的组合时不再经过ASM编织；
+     * 缓存的字节码占用业务堆内存，观察删除后包含其监听器的缓存随之清理
+     * </p>
+     *
+     * @return enhance.cache.enable
+     */
+    public boolean isEnableEnhanceCache() {
+        return BooleanUtils.toBoolean(featureMap.get(KEY_ENHANCE_CACHE_ENABLE));
+    }
+
     /**
      * 获取沙箱安装目录
      *
@@ -43,7 +43,7 @@ public class JvmSandbox {
         this.coreModuleManager = SandboxProtector.instance.protectProxy(CoreModuleManager.class, new DefaultCoreModuleManager(
                 cfg,
                 inst,
-                new DefaultCoreLoadedClassDataSource(inst, cfg.isEnableUnsafe()),
+                new DefaultCoreLoadedClassDataSource(inst, cfg.isEnableUnsafe(), cfg.getScanParallelism()),
                 new DefaultProviderManager(cfg)
         ));
         //3初始化spy类
@@ -1,29 +1,76 @@
 package com.alibaba.jvm.sandbox.core.classloader;
 
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
 /**
+ * 业务类加载器持有者
+ * <p>
+ * 事件处理时只在线程上下文中记录业务类加载器本身，
+ * 模块类加载器找不到类、需要委托给业务类加载器时才获取对应的{@link DelegateBizClassLoader}，
+ * 每个业务类加载器只对应一个{@link DelegateBizClassLoader}
+ * </p>
+ *
  * @author zhuangpeng
  * @since 2020/1/15
  */
 public class BusinessClassLoaderHolder {
 
-    private static final ThreadLocal<DelegateBizClassLoader> holder = new ThreadLocal<DelegateBizClassLoader>();
+    // 业务类加载器:委托类加载器
+    // 委托类加载器强引用业务类加载器，所以两者都只能弱引用，业务类加载器被回收后随之回收
+    private static final Cache<ClassLoader, DelegateBizClassLoader> delegateBizClassLoaderCache
+            = CacheBuilder.newBuilder().weakKeys().weakValues().build();
 
     public static void setBussinessClassLoader(ClassLoader classLoader){
+        setBussinessClassLoader(SandboxThreadContext.current(), classLoader);
+    }
+
+    public static void setBussinessClassLoader(SandboxThreadContext context, ClassLoader classLoader){
         if(null == classLoader){
             return;
         }
-        DelegateBizClassLoader delegateBizClassLoader = new DelegateBizClassLoader(classLoader);
-        holder.set(delegateBizClassLoader);
+        context.setBizClassLoader(classLoader);
     }
 
 
     public static void removeBussinessClassLoader(){
-        holder.remove();
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if(null != context){
+            context.setBizClassLoader(null);
+        }
     }
 
     public static DelegateBizClassLoader getBussinessClassLoader(){
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        return null == context
+                ? null
+                : getDelegateBizClassLoader(context.getBizClassLoader());
+    }
 
-        return holder.get();
+    /**
+     * 获取业务类加载器对应的委托类加载器
+     *
+     * @param classLoader 业务类加载器
+     * @return 委托类加载器，业务类加载器为null时返回null
+     */
+    public static DelegateBizClassLoader getDelegateBizClassLoader(final ClassLoader classLoader) {
+        if (null == classLoader) {
+            return null;
+        }
+        try {
+            return delegateBizClassLoaderCache.get(classLoader, new Callable<DelegateBizClassLoader>() {
+                @Override
+                public DelegateBizClassLoader call() {
+                    return new DelegateBizClassLoader(classLoader);
+                }
+            });
+        } catch (ExecutionException cause) {
+            throw new IllegalStateException(cause.getCause());
+        }
     }
 
     public static class DelegateBizClassLoader extends ClassLoader{
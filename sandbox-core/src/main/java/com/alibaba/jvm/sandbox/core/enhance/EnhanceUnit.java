@@ -0,0 +1,89 @@
+package com.alibaba.jvm.sandbox.core.enhance;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+
+import java.util.Set;
+
+/**
+ * 增强单元
+ * <p>
+ * 描述一个监听器需要在类中埋入的行为和事件，
+ * 同一个类的多个增强单元可以在一次字节码解析中完成编织
+ * </p>
+ */
+public class EnhanceUnit {
+
+    private final int listenerId;
+    private final Set<String> signCodes;
+    private final Event.Type[] eventTypeArray;
+    private final boolean isWithoutParameters;
+
+    /**
+     * 构造增强单元
+     *
+     * @param listenerId     需要埋入的监听器ID
+     * @param signCodes      需要被增强的行为签名
+     * @param eventTypeArray 需要配埋入的事件类型
+     */
+    public EnhanceUnit(final int listenerId,
+                       final Set<String> signCodes,
+                       final Event.Type[] eventTypeArray) {
+        this(listenerId, signCodes, eventTypeArray, false);
+    }
+
+    /**
+     * 构造增强单元
+     *
+     * @param listenerId          需要埋入的监听器ID
+     * @param signCodes           需要被增强的行为签名
+     * @param eventTypeArray      需要配埋入的事件类型
+     * @param isWithoutParameters 是否不需要构造参数数组
+     */
+    public EnhanceUnit(final int listenerId,
+                       final Set<String> signCodes,
+                       final Event.Type[] eventTypeArray,
+                       final boolean isWithoutParameters) {
+        this.listenerId = listenerId;
+        this.signCodes = signCodes;
+        this.eventTypeArray = eventTypeArray;
+        this.isWithoutParameters = isWithoutParameters;
+    }
+
+    /**
+     * 获取需要埋入的监听器ID
+     *
+     * @return 监听器ID
+     */
+    public int getListenerId() {
+        return listenerId;
+    }
+
+    /**
+     * 获取需要被增强的行为签名
+     *
+     * @return 行为签名集合
+     */
+    public Set<String> getSignCodes() {
+        return signCodes;
+    }
+
+    /**
+     * 获取需要配埋入的事件类型
+     *
+     * @return 事件类型数组
+     */
+    public Event.Type[] getEventTypeArray() {
+        return eventTypeArray;
+    }
+
+    /**
+     * 是否不需要构造参数数组
+     * <p>监听器不读取方法的参数和{@code this}时，BEFORE埋点不再构造参数数组</p>
+     *
+     * @return TRUE:不需要构造参数数组；FALSE:需要构造参数数组
+     */
+    public boolean isWithoutParameters() {
+        return isWithoutParameters;
+    }
+
+}
@@ -0,0 +1,299 @@
+package com.alibaba.jvm.sandbox.core.enhance;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 增强字节码缓存
+ * <p>
+ * 同一个类在同一组增强单元下的编织结果是确定的，
+ * 以(ClassLoader,命名空间,原始字节码校验和,增强单元)为键缓存增强前后的字节码，
+ * 重新形变回到已经编织过的增强单元组合时可以直接返回缓存的字节码，不再经过ASM编织
+ * </p>
+ * <p>
+ * 监听器ID会被编织进字节码，所以是键的一部分。每次观察都会产生新的监听器，
+ * 同一个过滤器删除后重新添加观察不会命中缓存；能命中的是仍然存活的监听器组合，
+ * 例如在长期存在的观察之上临时添加、删除一个观察，删除后按剩余观察重新编织的结果已经被缓存。
+ * 观察删除后通过{@link #invalidate(Collection)}清理包含其监听器的缓存，这些缓存不会再被命中
+ * </p>
+ * <p>
+ * ClassLoader只被弱引用，字节码被软引用，缓存总量按原始和增强后的字节码大小限制；
+ * 命中时会再比较一次原始字节码，校验和冲突不会返回错误的增强结果。
+ * 缓存的字节码占用业务堆内存，默认不启用，见{@code enhance.cache.enable}
+ * </p>
+ */
+public class EnhancedByteCodeCache {
+
+    /**
+     * 缓存的最小容量(字节)
+     */
+    private static final long MIN_MAXIMUM_WEIGHT = 8L * 1024 * 1024;
+
+    /**
+     * 每个缓存项在字节码之外的额外开销
+     */
+    private static final int WEIGHT_OF_OVERHEAD = 128;
+
+    // 已被回收的ClassLoader
+    private final ReferenceQueue<ClassLoader> collectedLoaderQueue = new ReferenceQueue<ClassLoader>();
+
+    private final long maximumWeight;
+    private final Cache<Key, Value> cache;
+
+    /**
+     * 构造增强字节码缓存，容量为最大堆内存的1/64，不小于8MB
+     */
+    public EnhancedByteCodeCache() {
+        this(Math.max(MIN_MAXIMUM_WEIGHT, Runtime.getRuntime().maxMemory() / 64));
+    }
+
+    /**
+     * 构造增强字节码缓存
+     *
+     * @param maximumWeight 最大容量(字节估算值)
+     */
+    public EnhancedByteCodeCache(final long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(new Weigher<Key, Value>() {
+                    @Override
+                    public int weigh(Key key, Value value) {
+                        return value.srcByteCodeArray.length
+                                + value.toByteCodeArray.length
+                                + key.enhanceUnitsCode.length() * 2
+                                + WEIGHT_OF_OVERHEAD;
+                    }
+                })
+                .softValues()
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 构造缓存键
+     *
+     * @param loader           目标类所在的ClassLoader
+     * @param srcByteCodeArray 原始字节码
+     * @param namespace        命名空间
+     * @param enhanceUnits     增强单元，按编织顺序排列
+     * @return 缓存键
+     */
+    Key toKey(final ClassLoader loader,
+              final byte[] srcByteCodeArray,
+              final String namespace,
+              final List<EnhanceUnit> enhanceUnits) {
+        return new Key(loader, namespace, checksum(srcByteCodeArray), toEnhanceUnitsCode(enhanceUnits), toListenerIds(enhanceUnits), collectedLoaderQueue);
+    }
+
+    /**
+     * 获取已缓存的增强后字节码
+     *
+     * @param key              缓存键
+     * @param srcByteCodeArray 原始字节码
+     * @return 增强后字节码的副本，不存在时返回null
+     */
+    byte[] get(final Key key, final byte[] srcByteCodeArray) {
+        final Value value = cache.getIfPresent(key);
+        return null != value && Arrays.equals(value.srcByteCodeArray, srcByteCodeArray)
+                ? value.toByteCodeArray.clone()
+                : null;
+    }
+
+    /**
+     * 缓存增强后字节码
+     *
+     * @param key              缓存键
+     * @param srcByteCodeArray 原始字节码
+     * @param toByteCodeArray  增强后字节码
+     */
+    void put(final Key key, final byte[] srcByteCodeArray, final byte[] toByteCodeArray) {
+        expungeCollectedLoaders();
+        cache.put(key, new Value(srcByteCodeArray.clone(), toByteCodeArray.clone()));
+    }
+
+    /**
+     * 清理包含指定监听器的缓存
+     * <p>
+     * 观察删除后调用，监听器ID(包括监听器组ID)不会被复用，包含它们的缓存不会再被命中
+     * </p>
+     *
+     * @param listenerIds 已删除的监听器ID或已释放的监听器组ID
+     */
+    public void invalidate(final Collection<Integer> listenerIds) {
+        if (listenerIds.isEmpty()) {
+            return;
+        }
+        final Iterator<Key> it = cache.asMap().keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().containsAnyListener(listenerIds)) {
+                it.remove();
+            }
+        }
+        expungeCollectedLoaders();
+    }
+
+    // 清理ClassLoader已被回收的缓存，被回收的键只与自己相等
+    private void expungeCollectedLoaders() {
+        Reference<? extends ClassLoader> reference;
+        while (null != (reference = collectedLoaderQueue.poll())) {
+            cache.invalidate(reference);
+        }
+    }
+
+    // 计算原始字节码的校验和，长度放在高位
+    private static long checksum(final byte[] byteCodeArray) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(byteCodeArray, 0, byteCodeArray.length);
+        return ((long) byteCodeArray.length << 32) | crc32.getValue();
+    }
+
+    // 增强单元的编码，监听器ID、参数开关、事件类型和行为签名共同决定编织结果
+    // 监听器ID随每次观察变化，重新添加的观察即使过滤器相同也不会命中
+    private static String toEnhanceUnitsCode(final List<EnhanceUnit> enhanceUnits) {
+        final StringBuilder code = new StringBuilder();
+        for (final EnhanceUnit enhanceUnit : enhanceUnits) {
+            code.append(enhanceUnit.getListenerId())
+                    .append(enhanceUnit.isWithoutParameters() ? ":w:" : ":p:")
+                    .append(Arrays.toString(enhanceUnit.getEventTypeArray()))
+                    .append(':')
+                    .append(enhanceUnit.getSignCodes())
+                    .append('|');
+        }
+        return code.toString();
+    }
+
+    // 增强单元中的监听器ID，用于删除观察时清理缓存
+    private static int[] toListenerIds(final List<EnhanceUnit> enhanceUnits) {
+        final int[] listenerIds = new int[enhanceUnits.size()];
+        for (int index = 0; index < listenerIds.length; index++) {
+            listenerIds[index] = enhanceUnits.get(index).getListenerId();
+        }
+        return listenerIds;
+    }
+
+    /**
+     * 获取缓存的最大容量
+     *
+     * @return 最大容量(字节估算值)
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * 获取已缓存的类个数
+     *
+     * @return 类个数
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * 获取缓存命中统计
+     *
+     * @return 命中统计
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 缓存值
+     */
+    private static class Value {
+
+        private final byte[] srcByteCodeArray;
+        private final byte[] toByteCodeArray;
+
+        Value(final byte[] srcByteCodeArray, final byte[] toByteCodeArray) {
+            this.srcByteCodeArray = srcByteCodeArray;
+            this.toByteCodeArray = toByteCodeArray;
+        }
+
+    }
+
+    /**
+     * 缓存键
+     * <p>弱引用ClassLoader，ClassLoader被回收后的键只与自己相等</p>
+     */
+    static class Key extends WeakReference<ClassLoader> {
+
+        private final boolean isBootstrap;
+        private final String namespace;
+        private final long checksum;
+        private final String enhanceUnitsCode;
+
+        // 增强单元中的监听器ID，已经包含在enhanceUnitsCode中，不参与比较
+        private final int[] listenerIds;
+        private final int hashCode;
+
+        Key(final ClassLoader loader,
+            final String namespace,
+            final long checksum,
+            final String enhanceUnitsCode,
+            final int[] listenerIds,
+            final ReferenceQueue<ClassLoader> queue) {
+            super(loader, null == loader ? null : queue);
+            this.isBootstrap = null == loader;
+            this.namespace = namespace;
+            this.checksum = checksum;
+            this.enhanceUnitsCode = enhanceUnitsCode;
+            this.listenerIds = listenerIds;
+            this.hashCode = 31 * (31 * (31 * System.identityHashCode(loader) + StringUtils.defaultString(namespace).hashCode())
+                    + (int) (checksum ^ (checksum >>> 32))) + enhanceUnitsCode.hashCode();
+        }
+
+        boolean containsAnyListener(final Collection<Integer> targetListenerIds) {
+            for (final int listenerId : listenerIds) {
+                if (targetListenerIds.contains(listenerId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) obj;
+            if (hashCode != key.hashCode
+                    || isBootstrap != key.isBootstrap
+                    || checksum != key.checksum
+                    || !StringUtils.equals(namespace, key.namespace)
+                    || !StringUtils.equals(enhanceUnitsCode, key.enhanceUnitsCode)) {
+                return false;
+            }
+            if (isBootstrap) {
+                return true;
+            }
+            final ClassLoader loader = get();
+            return null != loader && loader == key.get();
+        }
+
+    }
+
+}
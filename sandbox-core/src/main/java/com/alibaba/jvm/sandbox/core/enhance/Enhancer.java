@@ -2,6 +2,7 @@ package com.alibaba.jvm.sandbox.core.enhance;
 
 import com.alibaba.jvm.sandbox.api.event.Event;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -28,4 +29,22 @@ public interface Enhancer {
                            int listenerId,
                            Event.Type[] eventTypeArray);
 
+    /**
+     * 转换为增强后的字节码数组
+     * <p>
+     * 在一次字节码解析中完成多个增强单元的编织，
+     * 编织结果与按顺序逐个增强相同
+     * </p>
+     *
+     * @param loader           目标类加载器
+     * @param srcByteCodeArray 源字节码数组
+     * @param namespace        命名空间
+     * @param enhanceUnits     需要编织的增强单元
+     * @return 增强后的字节码数组
+     */
+    byte[] toByteCodeArray(ClassLoader loader,
+                           byte[] srcByteCodeArray,
+                           String namespace,
+                           List<EnhanceUnit> enhanceUnits);
+
 }
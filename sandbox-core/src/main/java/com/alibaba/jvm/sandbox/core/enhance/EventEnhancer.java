@@ -5,14 +5,18 @@ import com.alibaba.jvm.sandbox.core.enhance.weaver.asm.EventWeaver;
 import com.alibaba.jvm.sandbox.core.util.AsmUtils;
 import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.com.alibaba.jvm.sandbox.spy.Spy;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Set;
 
+import static java.util.Collections.singletonList;
 import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
 import static org.objectweb.asm.ClassReader.EXPAND_FRAMES;
 import static org.objectweb.asm.ClassWriter.COMPUTE_FRAMES;
@@ -28,6 +32,25 @@ public class EventEnhancer implements Enhancer {
 
     private static final Logger logger = LoggerFactory.getLogger(EventEnhancer.class);
 
+    // 增强字节码缓存，未启用时为null
+    private final EnhancedByteCodeCache enhancedByteCodeCache;
+
+    /**
+     * 构造不使用增强字节码缓存的事件代码增强器
+     */
+    public EventEnhancer() {
+        this(null);
+    }
+
+    /**
+     * 构造事件代码增强器
+     *
+     * @param enhancedByteCodeCache 增强字节码缓存，为null时不缓存
+     */
+    public EventEnhancer(final EnhancedByteCodeCache enhancedByteCodeCache) {
+        this.enhancedByteCodeCache = enhancedByteCodeCache;
+    }
+
     /**
      * 创建ClassWriter for asm
      *
@@ -103,6 +126,30 @@ public class EventEnhancer implements Enhancer {
                                   final String namespace,
                                   final int listenerId,
                                   final Event.Type[] eventTypeArray) {
+        return toByteCodeArray(
+                targetClassLoader,
+                byteCodeArray,
+                namespace,
+                singletonList(new EnhanceUnit(listenerId, signCodes, eventTypeArray))
+        );
+    }
+
+    @Override
+    public byte[] toByteCodeArray(final ClassLoader targetClassLoader,
+                                  final byte[] byteCodeArray,
+                                  final String namespace,
+                                  final List<EnhanceUnit> enhanceUnits) {
+        // 同一个类在同一组增强单元下已经编织过，直接返回缓存的增强结果
+        final EnhancedByteCodeCache.Key cacheKey = null == enhancedByteCodeCache
+                ? null
+                : enhancedByteCodeCache.toKey(targetClassLoader, byteCodeArray, namespace, enhanceUnits);
+        if (null != cacheKey) {
+            final byte[] cachedByteCodeArray = enhancedByteCodeCache.get(cacheKey, byteCodeArray);
+            if (null != cachedByteCodeArray) {
+                return cachedByteCodeArray;
+            }
+        }
+
         // 返回增强后字节码
 
         //ClassReader读取字节码数据
@@ -111,20 +158,32 @@ public class EventEnhancer implements Enhancer {
         final ClassWriter cw = createClassWriter(targetClassLoader, cr);
         //映射Java对象为对象ID(JVM唯一)
         final int targetClassLoaderObjectID = ObjectIDs.instance.identity(targetClassLoader);
+        final int namespaceIndex = Spy.getNamespaceIndex(namespace);
+
+        // 将多个EventWeaver串成一条编织链：cr -> 第一个增强单元 -> ... -> 最后一个增强单元 -> cw
+        // 后面的增强单元能看到前面增强单元埋入的代码(由代码锁保护)，和逐个增强的效果一致
+        ClassVisitor cv = cw;
+        for (int index = enhanceUnits.size() - 1; index >= 0; index--) {
+            final EnhanceUnit enhanceUnit = enhanceUnits.get(index);
+            cv = new EventWeaver(//通过EventWeaver把spy编织到目标类（因为EventWeaver中的onMethodEnter，会调用spy的onMethodEnter）
+                    ASM7, cv, namespaceIndex, enhanceUnit.getListenerId(),
+                    targetClassLoaderObjectID,
+                    cr.getClassName(),
+                    enhanceUnit.getSignCodes(),
+                    enhanceUnit.getEventTypeArray(),
+                    enhanceUnit.isWithoutParameters()
+            );
+        }
+
         //调用ClassReader的accept方法，接收一个实现了抽象类 ClassVisitor的EventWeaver（方法事件编织者）对象实例作为参数，
         // EventWeaver对象实现了ClassVisitor 的各个visitxxxx方法。
-        cr.accept(
-                new EventWeaver(//通过EventWeaver把spy编织到目标类（因为EventWeaver中的onMethodEnter，会调用spy的onMethodEnter）
-                        ASM7, cw, namespace, listenerId,
-                        targetClassLoaderObjectID,
-                        cr.getClassName(),
-                        signCodes,
-                        eventTypeArray
-                ),
-                EXPAND_FRAMES
-        );
+        cr.accept(cv, EXPAND_FRAMES);
         //最终得到的cw.toByteArray() 即是我们重新transform之后的字节码。
-        return dumpClassIfNecessary(cr.getClassName(), cw.toByteArray());
+        final byte[] toByteCodeArray = cw.toByteArray();
+        if (null != cacheKey) {
+            enhancedByteCodeCache.put(cacheKey, byteCodeArray, toByteCodeArray);
+        }
+        return dumpClassIfNecessary(cr.getClassName(), toByteCodeArray);
     }
 
 }
@@ -2,26 +2,36 @@ package com.alibaba.jvm.sandbox.core.enhance.weaver;
 
 import com.alibaba.jvm.sandbox.api.ProcessControlException;
 import com.alibaba.jvm.sandbox.api.event.BeforeEvent;
+import com.alibaba.jvm.sandbox.api.event.BehaviorMeta;
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.api.event.InvokeEvent;
 import com.alibaba.jvm.sandbox.api.listener.EventListener;
 import com.alibaba.jvm.sandbox.core.classloader.BusinessClassLoaderHolder;
-import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
-import com.alibaba.jvm.sandbox.core.util.SandboxProtector;
+import com.alibaba.jvm.sandbox.core.util.BehaviorIDs;
+import com.alibaba.jvm.sandbox.core.util.CopyOnWriteIntMap;
+import com.alibaba.jvm.sandbox.core.util.InvokeIdSequencer;
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import com.alibaba.jvm.sandbox.core.util.Sequencer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.com.alibaba.jvm.sandbox.spy.Spy;
 import java.com.alibaba.jvm.sandbox.spy.SpyHandler;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.alibaba.jvm.sandbox.api.event.Event.Type.IMMEDIATELY_RETURN;
 import static com.alibaba.jvm.sandbox.api.event.Event.Type.IMMEDIATELY_THROWS;
 import static com.alibaba.jvm.sandbox.core.util.SandboxReflectUtils.isInterruptEventHandler;
+import static java.com.alibaba.jvm.sandbox.spy.Spy.Ret.RET_STATE_RETURN;
+import static java.com.alibaba.jvm.sandbox.spy.Spy.Ret.RET_STATE_THROWS;
 import static java.com.alibaba.jvm.sandbox.spy.Spy.Ret.newInstanceForNone;
 import static java.com.alibaba.jvm.sandbox.spy.Spy.Ret.newInstanceForThrows;
+import static org.apache.commons.lang3.ArrayUtils.EMPTY_OBJECT_ARRAY;
 import static org.apache.commons.lang3.ArrayUtils.contains;
 import static org.apache.commons.lang3.StringUtils.join;
 
@@ -36,11 +46,38 @@ public class EventListenerHandler implements SpyHandler {
 
     // 调用序列生成器
     // private final Sequencer invokeIdSequencer = new Sequencer();
-    private final AtomicInteger invokeIdSequencer = new AtomicInteger(1000);
+    // 每个线程预留一段调用ID，避免所有线程争用同一个计数器
+    private final InvokeIdSequencer invokeIdSequencer = new InvokeIdSequencer(1000);
 
     // 全局处理器ID:处理器映射集合
-    private final Map<Integer/*LISTENER_ID*/, EventProcessor> mappingOfEventProcessor
-            = new ConcurrentHashMap<Integer, EventProcessor>();
+    // 处理器ID来自ObjectIDs，与其他对象ID、观察ID共用全局序列，取值稀疏，不适合直接作为数组下标；
+    // 这里用写时复制的开放寻址哈希表，事件处理时不加锁、不装箱，容量只取决于激活的处理器个数
+    private final CopyOnWriteIntMap<EventProcessor> mappingOfEventProcessor
+            = new CopyOnWriteIntMap<EventProcessor>();
+
+    /**
+     * 根据处理器ID获取事件处理器
+     *
+     * @param listenerId 事件监听器ID
+     * @return 事件处理器，未激活时返回null
+     */
+    private EventProcessor getEventProcessor(final int listenerId) {
+        return mappingOfEventProcessor.get(listenerId);
+    }
+
+    // 已分配的事件处理器槽位
+    // 槽位是事件处理单元在线程上下文中的下标，处理器冻结后槽位回收复用
+    private final BitSet eventProcessorSlots = new BitSet();
+
+    private synchronized int allocateSlot() {
+        final int slot = eventProcessorSlots.nextClearBit(0);
+        eventProcessorSlots.set(slot);
+        return slot;
+    }
+
+    private synchronized void freeSlot(final int slot) {
+        eventProcessorSlots.clear(slot);
+    }
 
     /**
      * 注册事件处理器
@@ -52,7 +89,13 @@ public class EventListenerHandler implements SpyHandler {
     public void active(final int listenerId,
                        final EventListener listener,
                        final Event.Type[] eventTypes) {
-        mappingOfEventProcessor.put(listenerId, new EventProcessor(listenerId, listener, eventTypes));
+        final EventProcessor previous = mappingOfEventProcessor.put(
+                listenerId,
+                new EventProcessor(listenerId, allocateSlot(), listener, eventTypes)
+        );
+        if (null != previous) {
+            freeSlot(previous.slot);
+        }
         logger.info("activated listener[id={};target={};] event={}",
                 listenerId,
                 listener,
@@ -71,6 +114,7 @@ public class EventListenerHandler implements SpyHandler {
             logger.debug("ignore frozen listener={}, because not found.", listenerId);
             return;
         }
+        freeSlot(processor.slot);
 
         logger.info("frozen listener[id={};target={};]",
                 listenerId,
@@ -80,6 +124,88 @@ public class EventListenerHandler implements SpyHandler {
         // processor.clean();
     }
 
+    // 监听器组ID生成器，与监听器ID共用全局序列，两者不会冲突
+    private final Sequencer listenerGroupIdSequencer = new Sequencer();
+
+    // 组内监听器ID序列:监听器组ID映射集合，相同的监听器序列只注册一次
+    private final Map<String/*LISTENER_IDS*/, Integer/*GROUP_ID*/> mappingOfListenerGroupId
+            = new HashMap<String, Integer>();
+
+    // 监听器组ID:组内监听器ID映射集合，监听器组ID同样来自全局序列，所以使用写时复制的哈希表而不是数组
+    private final CopyOnWriteIntMap<int[]> listenerGroups = new CopyOnWriteIntMap<int[]>();
+
+    /**
+     * 注册监听器组
+     * <p>
+     * 合并埋点时，同一个方法上的多个监听器只埋入一组Spy调用，
+     * Spy调用携带的是监听器组ID，事件到达后再由这里分发给组内的每个监听器。
+     * 组内监听器按照观察的先后顺序排列，分发顺序与逐个埋点时的嵌套顺序保持一致。
+     * 模块冻结后监听器在组内自然失效，激活后恢复；观察被删除时由{@link #releaseListenerGroups(int)}释放
+     * </p>
+     *
+     * @param listenerIds 组内监听器ID，按照观察的先后顺序排列
+     * @return 监听器组ID
+     */
+    public synchronized int registerListenerGroup(final int[] listenerIds) {
+        final String key = join(listenerIds, ',');
+        final Integer existedGroupId = mappingOfListenerGroupId.get(key);
+        if (null != existedGroupId) {
+            return existedGroupId;
+        }
+
+        final int groupId = listenerGroupIdSequencer.next();
+        listenerGroups.put(groupId, listenerIds.clone());
+        mappingOfListenerGroupId.put(key, groupId);
+        logger.info("registered listener-group[id={};listeners={};]", groupId, key);
+        return groupId;
+    }
+
+    /**
+     * 释放包含指定监听器的所有监听器组
+     * <p>
+     * 观察被删除、增强过的类重新形变之后调用，此后不会再有新的编织用到这些监听器组。
+     * 监听器组ID不会被复用，重新形变失败而残留的埋点只会找不到监听器组，不会被分发给其他监听器
+     * </p>
+     *
+     * @param listenerId 被删除的监听器ID
+     * @return 被释放的监听器组ID
+     */
+    public synchronized List<Integer> releaseListenerGroups(final int listenerId) {
+        final List<Integer> releasedGroupIds = new ArrayList<Integer>();
+        final Iterator<Map.Entry<String, Integer>> it = mappingOfListenerGroupId.entrySet().iterator();
+        while (it.hasNext()) {
+            final int groupId = it.next().getValue();
+            final int[] group = listenerGroups.get(groupId);
+            if (null != group
+                    && contains(group, listenerId)) {
+                listenerGroups.remove(groupId);
+                it.remove();
+                releasedGroupIds.add(groupId);
+                logger.info("released listener-group[id={};] by listener={}", groupId, listenerId);
+            }
+        }
+        return releasedGroupIds;
+    }
+
+    /**
+     * 获取当前注册的监听器组个数
+     *
+     * @return 监听器组个数
+     */
+    public int getListenerGroupCount() {
+        return listenerGroups.size();
+    }
+
+    /**
+     * 根据监听器组ID获取组内监听器ID
+     *
+     * @param groupId 监听器组ID
+     * @return 组内监听器ID，不是监听器组时返回null
+     */
+    private int[] getListenerGroup(final int groupId) {
+        return listenerGroups.get(groupId);
+    }
+
     /**
      * 调用出发事件处理&调用执行流程控制
      *
@@ -88,6 +214,7 @@ public class EventListenerHandler implements SpyHandler {
      * @param invokeId   调用ID
      * @param event      调用事件
      * @param processor  事件处理器
+     * @param process    事件处理单元
      * @return 处理返回结果
      * @throws Throwable 当出现未知异常时,且事件处理器为中断流程事件时抛出
      */
@@ -95,7 +222,8 @@ public class EventListenerHandler implements SpyHandler {
                                 final int processId,
                                 final int invokeId,
                                 final Event event,
-                                final EventProcessor processor) throws Throwable {
+                                final EventProcessor processor,
+                                final EventProcessor.Process process) throws Throwable {
         // 获取事件监听器
         final EventListener listener = processor.listener;
 
@@ -120,8 +248,6 @@ public class EventListenerHandler implements SpyHandler {
         // 代码执行流程变更
         catch (ProcessControlException pce) {
 
-            final EventProcessor.Process process = processor.processRef.get();
-
             final ProcessControlException.State state = pce.getState();
             logger.debug("on-event: event|{}|{}|{}|{}, process-changed: {}. isIgnoreProcessEvent={};",
                     event.type,
@@ -303,25 +429,45 @@ public class EventListenerHandler implements SpyHandler {
     }
 
     @Override
-    public Spy.Ret handleOnBefore(int listenerId, int targetClassLoaderObjectID, Object[] argumentArray, String javaClassName, String javaMethodName, String javaMethodDesc, Object target) throws Throwable {
+    public Spy.Ret handleOnBefore(int listenerId, int behaviorId, Object[] argumentArray, Object target) throws Throwable {
 
         // 在守护区内产生的事件不需要响应
-        if (SandboxProtector.instance.isInProtecting()) {
+        final SandboxThreadContext contextOrNull = SandboxThreadContext.peek();
+        if (null != contextOrNull
+                && contextOrNull.isInProtecting()) {
             logger.debug("listener={} is in protecting, ignore processing before-event", listenerId);
             return newInstanceForNone();
         }
 
         // 获取事件处理器
-        final EventProcessor processor = mappingOfEventProcessor.get(listenerId);
+        final EventProcessor processor = getEventProcessor(listenerId);
 
         // 如果尚未注册,则直接返回,不做任何处理
         if (null == processor) {
+
+            // 合并埋点，分发给组内的监听器
+            final int[] group = getListenerGroup(listenerId);
+            if (null != group) {
+                return handleGroupOnBefore(group, behaviorId, argumentArray, target);
+            }
+
             logger.debug("listener={} is not activated, ignore processing before-event.", listenerId);
             return newInstanceForNone();
         }
 
+        // 行为元数据，增强时已经登记
+        // 必须在获取调用跟踪信息之前判断，否则提前返回时会遗留已经创建的调用过程
+        final BehaviorMeta behaviorMeta = BehaviorIDs.instance.getBehaviorMeta(behaviorId);
+        if (null == behaviorMeta) {
+            logger.debug("listener={} behavior={} is not registered, ignore processing before-event.", listenerId, behaviorId);
+            return newInstanceForNone();
+        }
+
         // 获取调用跟踪信息
-        final EventProcessor.Process process = processor.processRef.get();
+        final SandboxThreadContext context = null != contextOrNull
+                ? contextOrNull
+                : SandboxThreadContext.current();
+        final EventProcessor.Process process = processor.getProcess(context);
 
         // 如果当前处理ID被忽略，则立即返回
         if (process.isIgnoreProcess()) {
@@ -330,27 +476,26 @@ public class EventListenerHandler implements SpyHandler {
         }
 
         // 调用ID
-        final int invokeId = invokeIdSequencer.getAndIncrement();
+        final int invokeId = invokeIdSequencer.next(context);
         process.pushInvokeId(invokeId);
 
         // 调用过程ID
         final int processId = process.getProcessId();
 
-        final ClassLoader javaClassLoader = ObjectIDs.instance.getObject(targetClassLoaderObjectID);
+        final ClassLoader javaClassLoader = behaviorMeta.getJavaClassLoader();
         //放置业务类加载器
-        BusinessClassLoaderHolder.setBussinessClassLoader(javaClassLoader);
+        BusinessClassLoaderHolder.setBussinessClassLoader(context, javaClassLoader);
         final BeforeEvent event = process.getEventFactory().makeBeforeEvent(
                 processId,
                 invokeId,
                 javaClassLoader,
-                javaClassName,
-                javaMethodName,
-                javaMethodDesc,
+                behaviorMeta,
                 target,
-                argumentArray
+                // 观察声明了不需要参数时，埋点不会构造参数数组
+                null == argumentArray ? EMPTY_OBJECT_ARRAY : argumentArray
         );
         try {
-            return handleEvent(listenerId, processId, invokeId, event, processor);
+            return handleEvent(listenerId, processId, invokeId, event, processor, process);
         } finally {
             process.getEventFactory().returnEvent(event);
         }
@@ -358,48 +503,67 @@ public class EventListenerHandler implements SpyHandler {
 
     @Override
     public Spy.Ret handleOnThrows(int listenerId, Throwable throwable) throws Throwable {
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if (null == context) {
+            return newInstanceForNone();
+        }
         try{
-            return handleOnEnd(listenerId, throwable, false);
+            return handleOnEnd(context, listenerId, throwable, false);
         }finally {
-            BusinessClassLoaderHolder.removeBussinessClassLoader();
+            context.setBizClassLoader(null);
         }
     }
 
     @Override
     public Spy.Ret handleOnReturn(int listenerId, Object object) throws Throwable {
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if (null == context) {
+            return newInstanceForNone();
+        }
         try{
-            return handleOnEnd(listenerId, object, true);
+            return handleOnEnd(context, listenerId, object, true);
         }finally {
-            BusinessClassLoaderHolder.removeBussinessClassLoader();
+            context.setBizClassLoader(null);
         }
     }
 
 
-    private Spy.Ret handleOnEnd(final int listenerId,
+    private Spy.Ret handleOnEnd(final SandboxThreadContext context,
+                                final int listenerId,
                                 final Object object,
                                 final boolean isReturn) throws Throwable {
 
         // 在守护区内产生的事件不需要响应
-        if (SandboxProtector.instance.isInProtecting()) {
+        if (context.isInProtecting()) {
             logger.debug("listener={} is in protecting, ignore processing {}-event", listenerId, isReturn ? "return" : "throws");
             return newInstanceForNone();
         }
 
-        final EventProcessor wrap = mappingOfEventProcessor.get(listenerId);
+        final EventProcessor wrap = getEventProcessor(listenerId);
 
         // 如果尚未注册,则直接返回,不做任何处理
         if (null == wrap) {
+
+            // 合并埋点，分发给组内的监听器
+            final int[] group = getListenerGroup(listenerId);
+            if (null != group) {
+                return isReturn
+                        ? handleGroupOnReturn(context, group, object)
+                        : handleGroupOnThrows(context, group, (Throwable) object);
+            }
+
             logger.debug("listener={} is not activated, ignore processing return-event|throws-event.", listenerId);
             return newInstanceForNone();
         }
 
-        final EventProcessor.Process process = wrap.processRef.get();
+        final EventProcessor.Process process = wrap.peekProcess(context);
 
         // 如果当前调用过程信息堆栈是空的,说明
         // 1. BEFORE/RETURN错位
         // 2. super.<init>
         // 处理方式是直接返回,不做任何事件的处理和代码流程的改变,放弃对super.<init>的观察，可惜了
-        if (process.isEmptyStack()) {
+        if (null == process
+                || process.isEmptyStack()) {
             return newInstanceForNone();
         }
 
@@ -434,7 +598,7 @@ public class EventListenerHandler implements SpyHandler {
                 : process.getEventFactory().makeThrowsEvent(processId, invokeId, (Throwable) object);
 
         try {
-            return handleEvent(listenerId, processId, invokeId, event, wrap);
+            return handleEvent(listenerId, processId, invokeId, event, wrap, process);
         } finally {
             process.getEventFactory().returnEvent(event);
         }
@@ -445,26 +609,43 @@ public class EventListenerHandler implements SpyHandler {
     @Override
     public void handleOnCallBefore(int listenerId, int lineNumber, String owner, String name, String desc) throws Throwable {
 
+        // 当前线程没有上下文，说明没有正在进行的调用过程
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if (null == context) {
+            return;
+        }
+
         // 在守护区内产生的事件不需要响应
-        if (SandboxProtector.instance.isInProtecting()) {
+        if (context.isInProtecting()) {
             logger.debug("listener={} is in protecting, ignore processing call-before-event", listenerId);
             return;
         }
 
-        final EventProcessor wrap = mappingOfEventProcessor.get(listenerId);
+        final EventProcessor wrap = getEventProcessor(listenerId);
         if (null == wrap) {
+
+            // 合并埋点，分发给组内的监听器
+            final int[] group = getListenerGroup(listenerId);
+            if (null != group) {
+                for (int index = 0; index < group.length; index++) {
+                    handleOnCallBefore(group[index], lineNumber, owner, name, desc);
+                }
+                return;
+            }
+
             logger.debug("listener={} is not activated, ignore processing call-before-event.", listenerId);
             return;
         }
 
-        final EventProcessor.Process process = wrap.processRef.get();
+        final EventProcessor.Process process = wrap.peekProcess(context);
 
         // 如果当前调用过程信息堆栈是空的,有两种情况
         // 1. CALL_BEFORE事件和BEFORE事件错位
         // 2. 当前方法是<init>，而CALL_BEFORE事件触发是当前方法在调用父类的<init>
         //    super.<init>会导致CALL_BEFORE事件优先于BEFORE事件
         // 但如果按照现在的架构要兼容这种情况，比较麻烦，所以暂时先放弃了这部分的消息，可惜可惜
-        if (process.isEmptyStack()) {
+        if (null == process
+                || process.isEmptyStack()) {
             return;
         }
 
@@ -480,7 +661,7 @@ public class EventListenerHandler implements SpyHandler {
                 .getEventFactory()
                 .makeCallBeforeEvent(processId, invokeId, lineNumber, owner, name, desc);
         try {
-            handleEvent(listenerId, processId, invokeId, event, wrap);
+            handleEvent(listenerId, processId, invokeId, event, wrap, process);
         } finally {
             process.getEventFactory().returnEvent(event);
         }
@@ -489,20 +670,37 @@ public class EventListenerHandler implements SpyHandler {
     @Override
     public void handleOnCallReturn(int listenerId) throws Throwable {
 
+        // 当前线程没有上下文，说明没有正在进行的调用过程
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if (null == context) {
+            return;
+        }
+
         // 在守护区内产生的事件不需要响应
-        if (SandboxProtector.instance.isInProtecting()) {
+        if (context.isInProtecting()) {
             logger.debug("listener={} is in protecting, ignore processing call-return-event", listenerId);
             return;
         }
 
-        final EventProcessor wrap = mappingOfEventProcessor.get(listenerId);
+        final EventProcessor wrap = getEventProcessor(listenerId);
         if (null == wrap) {
+
+            // 合并埋点，分发给组内的监听器
+            final int[] group = getListenerGroup(listenerId);
+            if (null != group) {
+                for (int index = group.length - 1; index >= 0; index--) {
+                    handleOnCallReturn(group[index]);
+                }
+                return;
+            }
+
             logger.debug("listener={} is not activated, ignore processing call-return-event.", listenerId);
             return;
         }
 
-        final EventProcessor.Process process = wrap.processRef.get();
-        if (process.isEmptyStack()) {
+        final EventProcessor.Process process = wrap.peekProcess(context);
+        if (null == process
+                || process.isEmptyStack()) {
             return;
         }
 
@@ -518,7 +716,7 @@ public class EventListenerHandler implements SpyHandler {
                 .getEventFactory()
                 .makeCallReturnEvent(processId, invokeId);
         try {
-            handleEvent(listenerId, processId, invokeId, event, wrap);
+            handleEvent(listenerId, processId, invokeId, event, wrap, process);
         } finally {
             process.getEventFactory().returnEvent(event);
         }
@@ -527,20 +725,37 @@ public class EventListenerHandler implements SpyHandler {
     @Override
     public void handleOnCallThrows(int listenerId, String throwException) throws Throwable {
 
+        // 当前线程没有上下文，说明没有正在进行的调用过程
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if (null == context) {
+            return;
+        }
+
         // 在守护区内产生的事件不需要响应
-        if (SandboxProtector.instance.isInProtecting()) {
+        if (context.isInProtecting()) {
             logger.debug("listener={} is in protecting, ignore processing call-throws-event", listenerId);
             return;
         }
 
-        final EventProcessor wrap = mappingOfEventProcessor.get(listenerId);
+        final EventProcessor wrap = getEventProcessor(listenerId);
         if (null == wrap) {
+
+            // 合并埋点，分发给组内的监听器
+            final int[] group = getListenerGroup(listenerId);
+            if (null != group) {
+                for (int index = group.length - 1; index >= 0; index--) {
+                    handleOnCallThrows(group[index], throwException);
+                }
+                return;
+            }
+
             logger.debug("listener={} is not activated, ignore processing call-throws-event.", listenerId);
             return;
         }
 
-        final EventProcessor.Process process = wrap.processRef.get();
-        if (process.isEmptyStack()) {
+        final EventProcessor.Process process = wrap.peekProcess(context);
+        if (null == process
+                || process.isEmptyStack()) {
             return;
         }
 
@@ -556,7 +771,7 @@ public class EventListenerHandler implements SpyHandler {
                 .getEventFactory()
                 .makeCallThrowsEvent(processId, invokeId, throwException);
         try {
-            handleEvent(listenerId, processId, invokeId, event, wrap);
+            handleEvent(listenerId, processId, invokeId, event, wrap, process);
         } finally {
             process.getEventFactory().returnEvent(event);
         }
@@ -565,23 +780,40 @@ public class EventListenerHandler implements SpyHandler {
     @Override
     public void handleOnLine(int listenerId, int lineNumber) throws Throwable {
 
+        // 当前线程没有上下文，说明没有正在进行的调用过程
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        if (null == context) {
+            return;
+        }
+
         // 在守护区内产生的事件不需要响应
-        if (SandboxProtector.instance.isInProtecting()) {
+        if (context.isInProtecting()) {
             logger.debug("listener={} is in protecting, ignore processing call-line-event", listenerId);
             return;
         }
 
-        final EventProcessor wrap = mappingOfEventProcessor.get(listenerId);
+        final EventProcessor wrap = getEventProcessor(listenerId);
         if (null == wrap) {
+
+            // 合并埋点，分发给组内的监听器
+            final int[] group = getListenerGroup(listenerId);
+            if (null != group) {
+                for (int index = 0; index < group.length; index++) {
+                    handleOnLine(group[index], lineNumber);
+                }
+                return;
+            }
+
             logger.debug("listener={} is not activated, ignore processing line-event.", listenerId);
             return;
         }
 
-        final EventProcessor.Process process = wrap.processRef.get();
+        final EventProcessor.Process process = wrap.peekProcess(context);
 
         // 如果当前调用过程信息堆栈是空的,说明BEFORE/LINE错位
         // 处理方式是直接返回,不做任何事件的处理和代码流程的改变
-        if (process.isEmptyStack()) {
+        if (null == process
+                || process.isEmptyStack()) {
             return;
         }
 
@@ -595,16 +827,122 @@ public class EventListenerHandler implements SpyHandler {
 
         final Event event = process.getEventFactory().makeLineEvent(processId, invokeId, lineNumber);
         try {
-            handleEvent(listenerId, processId, invokeId, event, wrap);
+            handleEvent(listenerId, processId, invokeId, event, wrap, process);
         } finally {
             process.getEventFactory().returnEvent(event);
         }
     }
 
+    /*
+     * 监听器组的BEFORE事件
+     * 逐个埋点时后观察的监听器在最外层，所以BEFORE从组尾向组头分发，
+     * 一旦有监听器改变了流程，内层的监听器不再收到BEFORE，外层已经收到BEFORE的监听器需要继续收到RETURN/THROWS
+     */
+    private Spy.Ret handleGroupOnBefore(final int[] group,
+                                        final int behaviorId,
+                                        final Object[] argumentArray,
+                                        final Object target) throws Throwable {
+        for (int index = group.length - 1; index >= 0; index--) {
+            final Spy.Ret ret = handleOnBefore(group[index], behaviorId, argumentArray, target);
+            switch (ret.state) {
+                case RET_STATE_RETURN:
+                    return markGroupThrowable(fanOutReturn(group, index + 1, ret.respond, ret));
+                case RET_STATE_THROWS:
+                    return markGroupThrowable(fanOutThrows(group, index, (Throwable) ret.respond, ret));
+                default:
+            }
+        }
+        return newInstanceForNone();
+    }
+
+    /*
+     * 监听器组的RETURN事件
+     */
+    private Spy.Ret handleGroupOnReturn(final SandboxThreadContext context,
+                                        final int[] group,
+                                        final Object object) throws Throwable {
+        final Spy.Ret ret = fanOutReturn(group, 0, object, newInstanceForNone());
+        if (ret.state == RET_STATE_THROWS) {
+            context.markGroupThrowable((Throwable) ret.respond);
+        }
+        return ret;
+    }
+
+    /*
+     * 监听器组的THROWS事件
+     * 如果异常是本组在BEFORE/RETURN中要求立即抛出的，组内监听器已经处理过，直接放行
+     */
+    private Spy.Ret handleGroupOnThrows(final SandboxThreadContext context,
+                                        final int[] group,
+                                        final Throwable throwable) throws Throwable {
+        if (context.consumeGroupThrowable(throwable)) {
+            return newInstanceForNone();
+        }
+        return fanOutThrows(group, 0, throwable, newInstanceForNone());
+    }
+
+    // 组内的流程变更为立即抛出时，异常会再次进入本组的THROWS埋点，需要提前标记
+    private Spy.Ret markGroupThrowable(final Spy.Ret ret) {
+        if (ret.state == RET_STATE_THROWS) {
+            SandboxThreadContext.current().markGroupThrowable((Throwable) ret.respond);
+        }
+        return ret;
+    }
+
+    /*
+     * 从组内第from个监听器开始由内向外分发RETURN事件
+     * 监听器立即返回时替换返回值继续向外分发，立即抛出时转为THROWS事件，与逐个埋点时的嵌套行为保持一致
+     */
+    private Spy.Ret fanOutReturn(final int[] group,
+                                 final int from,
+                                 final Object object,
+                                 final Spy.Ret current) throws Throwable {
+        Object returnObject = object;
+        Spy.Ret result = current;
+        for (int index = from; index < group.length; index++) {
+            final Spy.Ret ret = handleOnReturn(group[index], returnObject);
+            switch (ret.state) {
+                case RET_STATE_RETURN:
+                    returnObject = ret.respond;
+                    result = ret;
+                    break;
+                case RET_STATE_THROWS:
+                    return fanOutThrows(group, index, (Throwable) ret.respond, ret);
+                default:
+            }
+        }
+        return result;
+    }
+
+    /*
+     * 从组内第from个监听器开始由内向外分发THROWS事件
+     * 监听器立即抛出时替换异常继续向外分发，立即返回时转为RETURN事件，与逐个埋点时的嵌套行为保持一致
+     */
+    private Spy.Ret fanOutThrows(final int[] group,
+                                 final int from,
+                                 final Throwable throwable,
+                                 final Spy.Ret current) throws Throwable {
+        Throwable throwsThrowable = throwable;
+        Spy.Ret result = current;
+        for (int index = from; index < group.length; index++) {
+            final Spy.Ret ret = handleOnThrows(group[index], throwsThrowable);
+            switch (ret.state) {
+                case RET_STATE_RETURN:
+                    return fanOutReturn(group, index + 1, ret.respond, ret);
+                case RET_STATE_THROWS:
+                    throwsThrowable = (Throwable) ret.respond;
+                    result = ret;
+                    break;
+                default:
+            }
+        }
+        return result;
+    }
+
     // ---- 自检查
     public void checkEventProcessor(final int... listenerIds) {
         for (int listenerId : listenerIds) {
-            final EventProcessor processor = mappingOfEventProcessor.get(listenerId);
+            final EventProcessor processor = getEventProcessor(listenerId);
             if (null == processor) {
                 throw new IllegalStateException(String.format("listener=%s not existed.", listenerId));
             }
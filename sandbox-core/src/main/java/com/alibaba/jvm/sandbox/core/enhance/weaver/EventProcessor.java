@@ -3,8 +3,9 @@ package com.alibaba.jvm.sandbox.core.enhance.weaver;
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.api.listener.EventListener;
 import com.alibaba.jvm.sandbox.core.enhance.annotation.Interrupted;
-import com.alibaba.jvm.sandbox.core.util.collection.GaStack;
-import com.alibaba.jvm.sandbox.core.util.collection.ThreadUnsafeGaStack;
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import com.alibaba.jvm.sandbox.core.util.collection.GaIntStack;
+import com.alibaba.jvm.sandbox.core.util.collection.ThreadUnsafeGaIntStack;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -22,13 +23,16 @@ class EventProcessor {
      */
     class Process {
 
+        // 所属线程上下文
+        private final SandboxThreadContext context;
+
         // 事件工厂
         private final SingleEventFactory eventFactory
                 = new SingleEventFactory();
 
         // 调用堆栈
-        private final GaStack<Integer> stack
-                = new ThreadUnsafeGaStack<Integer>();
+        private final GaIntStack stack
+                = new ThreadUnsafeGaIntStack();
 
         // 是否需要忽略整个调用过程
         private boolean isIgnoreProcess = false;
@@ -36,6 +40,10 @@ class EventProcessor {
         // 是否来自ImmediatelyThrowsException所抛出的异常
         private boolean isExceptionFromImmediately = false;
 
+        private Process(final SandboxThreadContext context) {
+            this.context = context;
+        }
+
         /**
          * 压入调用ID
          *
@@ -73,7 +81,7 @@ class EventProcessor {
                 invokeId = stack.pop();
             }
             if (stack.isEmpty()) {
-                processRef.remove();
+                context.removeProcess(slot, this);
                 logger.debug("clean TLS: event-processor, listener={};", listenerId);
             }
             return invokeId;
@@ -152,6 +160,15 @@ class EventProcessor {
             return eventFactory;
         }
 
+        /**
+         * 获取所属的事件处理器
+         *
+         * @return 事件处理器
+         */
+        EventProcessor getEventProcessor() {
+            return EventProcessor.this;
+        }
+
     }
 
     @Interrupted
@@ -173,18 +190,17 @@ class EventProcessor {
     final int listenerId;
     final EventListener listener;
     final Event.Type[] eventTypes;
-    final ThreadLocal<Process> processRef = new ThreadLocal<Process>() {
-        @Override
-        protected Process initialValue() {
-            return new Process();
-        }
-    };
+
+    // 事件处理单元在线程上下文中的槽位
+    final int slot;
 
     EventProcessor(final int listenerId,
+                   final int slot,
                    final EventListener listener,
                    final Event.Type[] eventTypes) {
 
         this.listenerId = listenerId;
+        this.slot = slot;
         this.eventTypes = eventTypes;
         this.listener = isInterruptEventHandler(listener.getClass())
                 ? new InterruptedEventListenerImpl(listener)
@@ -192,6 +208,36 @@ class EventProcessor {
     }
 
 
+    /**
+     * 获取当前线程的事件处理单元
+     *
+     * @param context 当前线程上下文
+     * @return 事件处理单元，当前线程没有正在处理的调用过程时返回null
+     */
+    Process peekProcess(final SandboxThreadContext context) {
+        final Object object = context.getProcess(slot);
+        return object instanceof Process
+                && ((Process) object).getEventProcessor() == this
+                ? (Process) object
+                : null;
+    }
+
+    /**
+     * 获取当前线程的事件处理单元，如果不存在则创建
+     *
+     * @param context 当前线程上下文
+     * @return 事件处理单元
+     */
+    Process getProcess(final SandboxThreadContext context) {
+        final Process process = peekProcess(context);
+        if (null != process) {
+            return process;
+        }
+        final Process newProcess = new Process(context);
+        context.putProcess(slot, newProcess);
+        return newProcess;
+    }
+
     /**
      * 校验器，用于校验事件处理器状态是否正确
      * <p>用于测试用例</p>
@@ -200,8 +246,17 @@ class EventProcessor {
 
         void check() {
 
-            final EventProcessor.Process process = processRef.get();
-            final ThreadUnsafeGaStack<Integer> stack = (ThreadUnsafeGaStack<Integer>) process.stack;
+            final SandboxThreadContext context = SandboxThreadContext.peek();
+            final EventProcessor.Process process = null == context
+                    ? null
+                    : peekProcess(context);
+
+            // 当前线程没有处理单元，说明调用过程已经完整结束
+            if (null == process) {
+                return;
+            }
+
+            final ThreadUnsafeGaIntStack stack = (ThreadUnsafeGaIntStack) process.stack;
 
             if (!process.isEmptyStack()) {
                 throw new IllegalStateException(String.format("process-stack is not empty! listener=%s;\n%s",
@@ -212,16 +267,16 @@ class EventProcessor {
 
             for (int index = 0; index < stack.getElementArray().length; index++) {
                 if (index <= stack.getCurrent()) {
-                    if (null == stack.getElementArray()[index]) {
-                        throw new IllegalStateException(String.format("process-stack element is null at index=[%d], listener=%s;\n%s",
+                    if (ThreadUnsafeGaIntStack.EMPTY_ELEMENT == stack.getElementArray()[index]) {
+                        throw new IllegalStateException(String.format("process-stack element is empty at index=[%d], listener=%s;\n%s",
                                 index,
                                 listenerId,
                                 toString(stack)
                         ));
                     }
                 } else {
-                    if (null != stack.getElementArray()[index]) {
-                        throw new IllegalStateException(String.format("process-stack element is not null at index=[%d], listener=%s;\n%s",
+                    if (ThreadUnsafeGaIntStack.EMPTY_ELEMENT != stack.getElementArray()[index]) {
+                        throw new IllegalStateException(String.format("process-stack element is not empty at index=[%d], listener=%s;\n%s",
                                 index,
                                 listenerId,
                                 toString(stack)
@@ -237,7 +292,7 @@ class EventProcessor {
 
         }
 
-        String toString(ThreadUnsafeGaStack<Integer> stack) {
+        String toString(ThreadUnsafeGaIntStack stack) {
             final StringBuilder stackSB = new StringBuilder(String.format("stack[deep=%d;current=%d;]{\n", stack.deep(), stack.getCurrent()));
             for (int index = 0; index < stack.getElementArray().length; index++) {
                 stackSB.append("\t[").append(index).append("] = ").append(stack.getElementArray()[index]).append("\n");
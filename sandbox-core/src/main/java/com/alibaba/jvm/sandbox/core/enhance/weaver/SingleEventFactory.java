@@ -23,6 +23,7 @@ class SingleEventFactory {
     private static final long javaMethodDescFieldInBeforeEventOffset;
     private static final long targetFieldInBeforeEventOffset;
     private static final long argumentArrayFieldInBeforeEventOffset;
+    private static final long behaviorMetaFieldInBeforeEventOffset;
     private static final long objectFieldInReturnEventOffset;
     private static final long throwableFieldInThrowsEventOffset;
     private static final long lineNumberFieldInLineEventOffset;
@@ -44,6 +45,7 @@ class SingleEventFactory {
             javaMethodDescFieldInBeforeEventOffset = unsafe.objectFieldOffset(BeforeEvent.class.getDeclaredField("javaMethodDesc"));
             targetFieldInBeforeEventOffset = unsafe.objectFieldOffset(BeforeEvent.class.getDeclaredField("target"));
             argumentArrayFieldInBeforeEventOffset = unsafe.objectFieldOffset(BeforeEvent.class.getDeclaredField("argumentArray"));
+            behaviorMetaFieldInBeforeEventOffset = unsafe.objectFieldOffset(BeforeEvent.class.getDeclaredField("behaviorMeta"));
             objectFieldInReturnEventOffset = unsafe.objectFieldOffset(ReturnEvent.class.getDeclaredField("object"));
             throwableFieldInThrowsEventOffset = unsafe.objectFieldOffset(ThrowsEvent.class.getDeclaredField("throwable"));
             lineNumberFieldInLineEventOffset = unsafe.objectFieldOffset(LineEvent.class.getDeclaredField("lineNumber"));
@@ -72,9 +74,7 @@ class SingleEventFactory {
     public BeforeEvent makeBeforeEvent(final int processId,
                                        final int invokeId,
                                        final ClassLoader javaClassLoader,
-                                       final String javaClassName,
-                                       final String javaMethodName,
-                                       final String javaMethodDesc,
+                                       final BehaviorMeta behaviorMeta,
                                        final Object target,
                                        final Object[] argumentArray) {
         if (null == beforeEvent) {
@@ -83,11 +83,12 @@ class SingleEventFactory {
         unsafe.putInt(beforeEvent, processIdFieldInInvokeEventOffset, processId);
         unsafe.putInt(beforeEvent, invokeIdFieldInInvokeEventOffset, invokeId);
         unsafe.putObject(beforeEvent, javaClassLoaderFieldInBeforeEventOffset, javaClassLoader);
-        unsafe.putObject(beforeEvent, javaClassNameFieldInBeforeEventOffset, javaClassName);
-        unsafe.putObject(beforeEvent, javaMethodNameFieldInBeforeEventOffset, javaMethodName);
-        unsafe.putObject(beforeEvent, javaMethodDescFieldInBeforeEventOffset, javaMethodDesc);
+        unsafe.putObject(beforeEvent, javaClassNameFieldInBeforeEventOffset, behaviorMeta.getJavaClassName());
+        unsafe.putObject(beforeEvent, javaMethodNameFieldInBeforeEventOffset, behaviorMeta.getJavaMethodName());
+        unsafe.putObject(beforeEvent, javaMethodDescFieldInBeforeEventOffset, behaviorMeta.getJavaMethodDesc());
         unsafe.putObject(beforeEvent, targetFieldInBeforeEventOffset, target);
         unsafe.putObject(beforeEvent, argumentArrayFieldInBeforeEventOffset, argumentArray);
+        unsafe.putObject(beforeEvent, behaviorMetaFieldInBeforeEventOffset, behaviorMeta);
         return beforeEvent;
     }
 
@@ -2,6 +2,7 @@ package com.alibaba.jvm.sandbox.core.enhance.weaver.asm;
 
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.core.enhance.weaver.CodeLock;
+import com.alibaba.jvm.sandbox.core.util.BehaviorIDs;
 import org.objectweb.asm.*;
 import org.objectweb.asm.commons.AdviceAdapter;
 import org.objectweb.asm.commons.JSRInlinerAdapter;
@@ -62,12 +63,16 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final int targetClassLoaderObjectID;
-    private final String namespace;
+    private final int namespaceIndex;
     private final int listenerId;
     private final String targetJavaClassName;
     private final Set<String> signCodes;
     private final Event.Type[] eventTypeArray;
 
+    // 是否不需要构造参数数组
+    // 监听器不读取方法的参数和this时，BEFORE埋点直接传null，避免每次调用的数组分配和装箱
+    private final boolean isWithoutParameters;
+
     // 是否支持LINE_EVENT
     // LINE_EVENT需要对Class做特殊的增强，所以需要在这里做特殊的判断
     private final boolean isLineEnable;
@@ -81,19 +86,21 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
 
     public EventWeaver(final int api,
                        final ClassVisitor cv,
-                       final String namespace,
+                       final int namespaceIndex,
                        final int listenerId,
                        final int targetClassLoaderObjectID,
                        final String targetClassInternalName,
                        final Set<String/*BehaviorStructure#getSignCode()*/> signCodes,
-                       final Event.Type[] eventTypeArray) {
+                       final Event.Type[] eventTypeArray,
+                       final boolean isWithoutParameters) {
         super(api, cv);
         this.targetClassLoaderObjectID = targetClassLoaderObjectID;
-        this.namespace = namespace;
+        this.namespaceIndex = namespaceIndex;
         this.listenerId = listenerId;
         this.targetJavaClassName = toJavaClassName(targetClassInternalName);
         this.signCodes = signCodes;
         this.eventTypeArray = eventTypeArray;
+        this.isWithoutParameters = isWithoutParameters;
 
         this.isLineEnable = contains(eventTypeArray, Event.Type.LINE);
         this.hasCallBefore = contains(eventTypeArray, Event.Type.CALL_BEFORE);
@@ -140,6 +147,9 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                 join(eventTypeArray, ",")
         );
 
+        // 登记行为，埋点中只需要传递行为ID
+        final int behaviorId = BehaviorIDs.instance.register(targetClassLoaderObjectID, targetJavaClassName, name, desc);
+
         return new ReWriteMethod(api, new JSRInlinerAdapter(mv, access, name, desc, signature, exceptions), access, name, desc) {
 
             private final Label beginLabel = new Label();
@@ -185,25 +195,31 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                 pop();
             }
 
-            // 加载ClassLoader
-            private void loadClassLoader() {
-                push(targetClassLoaderObjectID);
-            }
-
             @Override
             protected void onMethodEnter() {
                 codeLockForTracing.lock(new CodeLock.Block() {
                     @Override
                     public void code() {
                         mark(beginLabel);
+
+                        // 不需要参数时不构造参数数组，也不需要回写参数
+                        if (isWithoutParameters) {
+                            pushNull();
+                            push(namespaceIndex);
+                            push(listenerId);
+                            push(behaviorId);
+                            pushNull();
+                            invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnBefore);
+                            processControl();
+                            isMethodEnter = true;
+                            return;
+                        }
+
                         loadArgArray();
                         dup();
-                        push(namespace);
+                        push(namespaceIndex);
                         push(listenerId);
-                        loadClassLoader();
-                        push(targetJavaClassName);
-                        push(name);
-                        push(desc);
+                        push(behaviorId);
                         loadThisOrPushNullIfIsStatic();
                         invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnBefore);
                         swap();
@@ -265,7 +281,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                         @Override
                         public void code() {
                             loadReturn(opcode);
-                            push(namespace);
+                            push(namespaceIndex);
                             push(listenerId);
                             invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnReturn);
                             processControl();
@@ -286,7 +302,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                         newlocal = newLocal(ASM_TYPE_THROWABLE);
                         storeLocal(newlocal);
                         loadLocal(newlocal);
-                        push(namespace);
+                        push(namespaceIndex);
                         push(listenerId);
                         invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnThrows);
                         processControl();
@@ -309,7 +325,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                         @Override
                         public void code() {
                             push(lineNumber);
-                            push(namespace);
+                            push(namespaceIndex);
                             push(listenerId);
                             invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnLine);
                         }
@@ -348,7 +364,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                             push(toJavaClassName(owner));
                             push(name);
                             push(desc);
-                            push(namespace);
+                            push(namespaceIndex);
                             push(listenerId);
                             invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnCallBefore);
                         }
@@ -362,7 +378,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                     codeLockForTracing.lock(new CodeLock.Block() {
                         @Override
                         public void code() {
-                            push(namespace);
+                            push(namespaceIndex);
                             push(listenerId);
                             invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnCallReturn);
                         }
@@ -388,7 +404,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                     codeLockForTracing.lock(new CodeLock.Block() {
                         @Override
                         public void code() {
-                            push(namespace);
+                            push(namespaceIndex);
                             push(listenerId);
                             invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnCallReturn);
                         }
@@ -407,7 +423,7 @@ public class EventWeaver extends ClassVisitor implements Opcodes, AsmTypes, AsmM
                         dup();
                         invokeVirtual(ASM_TYPE_OBJECT, ASM_METHOD_Object$getClass);
                         invokeVirtual(ASM_TYPE_CLASS, ASM_METHOD_Class$getName);
-                        push(namespace);
+                        push(namespaceIndex);
                         push(listenerId);
                         invokeStatic(ASM_TYPE_SPY, ASM_METHOD_Spy$spyMethodOnCallThrows);
                     }
@@ -0,0 +1,81 @@
+package com.alibaba.jvm.sandbox.core.manager.impl;
+
+import com.alibaba.jvm.sandbox.api.resource.CacheMonitor;
+import com.alibaba.jvm.sandbox.core.enhance.EnhancedByteCodeCache;
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureCache;
+import com.google.common.cache.CacheStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 默认缓存监控器实现
+ */
+class DefaultCacheMonitor implements CacheMonitor {
+
+    // 增强字节码缓存，未启用时为null
+    private final EnhancedByteCodeCache enhancedByteCodeCache;
+
+    DefaultCacheMonitor(final EnhancedByteCodeCache enhancedByteCodeCache) {
+        this.enhancedByteCodeCache = enhancedByteCodeCache;
+    }
+
+    @Override
+    public List<CacheInfo> listCacheInfos() {
+        final List<CacheInfo> cacheInfos = new ArrayList<CacheInfo>();
+        cacheInfos.add(new CacheInfoImpl(
+                "class-structure",
+                ClassStructureCache.instance.size(),
+                ClassStructureCache.instance.stats()
+        ));
+        if (null != enhancedByteCodeCache) {
+            cacheInfos.add(new CacheInfoImpl(
+                    "enhanced-bytecode",
+                    enhancedByteCodeCache.size(),
+                    enhancedByteCodeCache.stats()
+            ));
+        }
+        return cacheInfos;
+    }
+
+    // 缓存信息快照
+    private static class CacheInfoImpl implements CacheInfo {
+
+        private final String name;
+        private final long size;
+        private final CacheStats stats;
+
+        CacheInfoImpl(final String name, final long size, final CacheStats stats) {
+            this.name = name;
+            this.size = size;
+            this.stats = stats;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public long getHitCount() {
+            return stats.hitCount();
+        }
+
+        @Override
+        public long getMissCount() {
+            return stats.missCount();
+        }
+
+        @Override
+        public long getEvictionCount() {
+            return stats.evictionCount();
+        }
+
+    }
+
+}
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.instrument.Instrumentation;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.alibaba.jvm.sandbox.api.filter.ExtFilter.ExtFilterFactory.make;
 import static com.alibaba.jvm.sandbox.core.util.SandboxClassUtils.isComeFromSandboxFamily;
@@ -25,13 +27,38 @@ import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toInternalCla
 public class DefaultCoreLoadedClassDataSource implements CoreLoadedClassDataSource {
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    // 每个扫描线程至少分到的类个数，类太少时并行的开销得不偿失
+    private static final int MIN_CLASSES_PER_PARTITION = 1024;
+
+    // 每个扫描线程平均分到的分片数，分片更细可以平衡各线程的耗时
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     private final Instrumentation inst;
     private final boolean isEnableUnsafe;
+    private final int scanParallelism;
+
+    // 扫描线程池，只在并行扫描时创建，空闲的线程会超时退出
+    private volatile ExecutorService scanExecutor;
 
     public DefaultCoreLoadedClassDataSource(final Instrumentation inst,
                                             final boolean isEnableUnsafe) {
+        this(inst, isEnableUnsafe, 1);
+    }
+
+    /**
+     * 构造已加载类数据源
+     *
+     * @param inst            inst
+     * @param isEnableUnsafe  是否允许增强BootstrapClassLoader所加载的类
+     * @param scanParallelism 扫描已加载类的并行度，小于等于1时串行扫描
+     */
+    public DefaultCoreLoadedClassDataSource(final Instrumentation inst,
+                                            final boolean isEnableUnsafe,
+                                            final int scanParallelism) {
         this.inst = inst;
         this.isEnableUnsafe = isEnableUnsafe;
+        this.scanParallelism = Math.max(1, scanParallelism);
     }
 
     @Override
@@ -79,55 +106,144 @@ public class DefaultCoreLoadedClassDataSource implements CoreLoadedClassDataSour
         SandboxProtector.instance.enterProtecting();
         try {
 
-            final List<Class<?>> classes = new ArrayList<Class<?>>();
             if (null == matcher) {
-                return classes;
+                return new ArrayList<Class<?>>();
             }
             //这个方法中执行了inst.getAllLoadedClasses()这个方法，最终会调用sandbox自己实现的类加载器SandboxClassLoader的loadClass方法。
-            final Iterator<Class<?>> itForLoaded = iteratorForLoadedClasses();
-            while (itForLoaded.hasNext()) {
-                final Class<?> clazz = itForLoaded.next();
+            final Class<?>[] loaded = inst.getAllLoadedClasses();
+            final int partitionCount = Math.min(
+                    scanParallelism * PARTITIONS_PER_THREAD,
+                    loaded.length / MIN_CLASSES_PER_PARTITION
+            );
+            return scanParallelism > 1 && partitionCount > 1
+                    ? findInParallel(loaded, partitionCount, matcher, isRemoveUnsupported)
+                    : find(loaded, 0, loaded.length, matcher, isRemoveUnsupported);
 
-                // #242 的建议，过滤掉sandbox家族的类
-                if (isComeFromSandboxFamily(toInternalClassName(clazz.getName()), clazz.getClassLoader())) {
-                    continue;
-                }
+        } finally {
+            SandboxProtector.instance.exitProtecting();
+        }
 
-                // 过滤掉对于JVM认为不可修改的类
-                if (isRemoveUnsupported
-                        && !inst.isModifiableClass(clazz)) {
-                    // logger.debug("remove from findForReTransform, because class:{} is unModifiable", clazz.getName());
-                    continue;
-                }
-                try {
-                    if (isRemoveUnsupported) {
-                        if (new UnsupportedMatcher(clazz.getClassLoader(), isEnableUnsafe)
-                                .and(matcher)
-                                .matching(ClassStructureFactory.createClassStructure(clazz))
-                                .isMatched()) {
-                            classes.add(clazz);
-                        }
-                    } else {
-                        if (matcher.matching(ClassStructureFactory.createClassStructure(clazz)).isMatched()) {
-                            classes.add(clazz);
+    }
+
+    // 将已加载类分片后并行匹配，按分片顺序合并结果，结果顺序和串行扫描一致
+    private List<Class<?>> findInParallel(final Class<?>[] loaded,
+                                          final int partitionCount,
+                                          final Matcher matcher,
+                                          final boolean isRemoveUnsupported) {
+        final ExecutorService executor = getScanExecutor();
+        final List<Future<List<Class<?>>>> futures = new ArrayList<Future<List<Class<?>>>>(partitionCount);
+        try {
+            for (int index = 0; index < partitionCount; index++) {
+                final int from = (int) ((long) loaded.length * index / partitionCount);
+                final int to = (int) ((long) loaded.length * (index + 1) / partitionCount);
+                futures.add(executor.submit(new Callable<List<Class<?>>>() {
+                    @Override
+                    public List<Class<?>> call() {
+                        // 扫描线程同样需要处于守护区域中，扫描过程中触发的事件不被响应
+                        SandboxProtector.instance.enterProtecting();
+                        try {
+                            return find(loaded, from, to, matcher, isRemoveUnsupported);
+                        } finally {
+                            SandboxProtector.instance.exitProtecting();
                         }
                     }
-
-                } catch (Throwable cause) {
-                    // 在这里可能会遇到非常坑爹的模块卸载错误
-                    // 当一个URLClassLoader被动态关闭之后，但JVM已经加载的类并不知情（因为没有GC）
-                    // 所以当尝试获取这个类更多详细信息的时候会引起关联类的ClassNotFoundException等未知的错误（取决于底层ClassLoader的实现）
-                    // 这里没有办法穷举出所有的异常情况，所以catch Throwable来完成异常容灾处理
-                    // 当解析类出现异常的时候，直接简单粗暴的认为根本没有这个类就好了
-                    logger.debug("remove from findForReTransform, because loading class:{} occur an exception", clazz.getName(), cause);
-                }
+                }));
+            }
+            final List<Class<?>> classes = new ArrayList<Class<?>>();
+            for (final Future<List<Class<?>>> future : futures) {
+                classes.addAll(future.get());
             }
             return classes;
-
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("find loaded classes interrupted.", cause);
+        } catch (ExecutionException cause) {
+            throw new IllegalStateException("find loaded classes failed.", cause.getCause());
         } finally {
-            SandboxProtector.instance.exitProtecting();
+            for (final Future<List<Class<?>>> future : futures) {
+                future.cancel(true);
+            }
         }
+    }
+
+    private ExecutorService getScanExecutor() {
+        if (null == scanExecutor) {
+            synchronized (this) {
+                if (null == scanExecutor) {
+                    final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                            scanParallelism,
+                            scanParallelism,
+                            60L,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(),
+                            new ThreadFactory() {
+
+                                private final AtomicInteger sequence = new AtomicInteger();
+
+                                @Override
+                                public Thread newThread(Runnable runnable) {
+                                    final Thread thread = new Thread(runnable, "sandbox-class-scanner-" + sequence.incrementAndGet());
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+
+                            }
+                    );
+                    executor.allowCoreThreadTimeOut(true);
+                    scanExecutor = executor;
+                }
+            }
+        }
+        return scanExecutor;
+    }
+
+    // 匹配已加载类中[from,to)范围内的类
+    private List<Class<?>> find(final Class<?>[] loaded,
+                                final int from,
+                                final int to,
+                                final Matcher matcher,
+                                final boolean isRemoveUnsupported) {
+        final List<Class<?>> classes = new ArrayList<Class<?>>();
+        for (int index = from; index < to; index++) {
+            final Class<?> clazz = loaded[index];
+
+            // #242 的建议，过滤掉sandbox家族的类
+            if (isComeFromSandboxFamily(toInternalClassName(clazz.getName()), clazz.getClassLoader())) {
+                continue;
+            }
 
+            // 过滤掉对于JVM认为不可修改的类
+            if (isRemoveUnsupported
+                    && !inst.isModifiableClass(clazz)) {
+                // logger.debug("remove from findForReTransform, because class:{} is unModifiable", clazz.getName());
+                continue;
+            }
+            try {
+                final Matcher classMatcher = isRemoveUnsupported
+                        ? new UnsupportedMatcher(clazz.getClassLoader(), isEnableUnsafe).and(matcher)
+                        : matcher;
+
+                // 先根据类名预匹配，一定不会匹配的类不再构造类结构
+                // 数组的类名和类结构中的类名格式不同，不参与预匹配
+                if (!clazz.isArray()
+                        && !classMatcher.preMatching(clazz.getName())) {
+                    continue;
+                }
+
+                if (classMatcher.matching(ClassStructureFactory.createClassStructure(clazz)).isMatched()) {
+                    classes.add(clazz);
+                }
+
+            } catch (Throwable cause) {
+                // 在这里可能会遇到非常坑爹的模块卸载错误
+                // 当一个URLClassLoader被动态关闭之后，但JVM已经加载的类并不知情（因为没有GC）
+                // 所以当尝试获取这个类更多详细信息的时候会引起关联类的ClassNotFoundException等未知的错误（取决于底层ClassLoader的实现）
+                // 这里没有办法穷举出所有的异常情况，所以catch Throwable来完成异常容灾处理
+                // 当解析类出现异常的时候，直接简单粗暴的认为根本没有这个类就好了
+                logger.debug("remove from findForReTransform, because loading class:{} occur an exception", clazz.getName(), cause);
+            }
+        }
+        return classes;
     }
 
 
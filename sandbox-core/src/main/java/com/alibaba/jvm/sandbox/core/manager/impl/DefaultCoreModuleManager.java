@@ -7,12 +7,14 @@ import com.alibaba.jvm.sandbox.core.CoreConfigure;
 import com.alibaba.jvm.sandbox.core.CoreModule;
 import com.alibaba.jvm.sandbox.core.CoreModule.ReleaseResource;
 import com.alibaba.jvm.sandbox.core.classloader.ModuleJarClassLoader;
+import com.alibaba.jvm.sandbox.core.enhance.EnhancedByteCodeCache;
 import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
 import com.alibaba.jvm.sandbox.core.manager.CoreLoadedClassDataSource;
 import com.alibaba.jvm.sandbox.core.manager.CoreModuleManager;
 import com.alibaba.jvm.sandbox.core.manager.ProviderManager;
 import com.alibaba.jvm.sandbox.core.manager.impl.ModuleLibLoader.ModuleJarLoadCallback;
 import com.alibaba.jvm.sandbox.core.util.SandboxProtector;
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureCache;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -44,6 +46,12 @@ public class DefaultCoreModuleManager implements CoreModuleManager {
     private final CoreLoadedClassDataSource classDataSource;
     private final ProviderManager providerManager;
 
+    // 命名空间下所有模块共享的合并类形变器
+    private final MergedClassFileTransformer mergedClassFileTransformer;
+
+    // 增强字节码缓存，未启用时为null
+    private final EnhancedByteCodeCache enhancedByteCodeCache;
+
     // 模块目录&文件集合
     private final File[] moduleLibDirArray;
 
@@ -66,6 +74,10 @@ public class DefaultCoreModuleManager implements CoreModuleManager {
         this.inst = inst;
         this.classDataSource = classDataSource;
         this.providerManager = providerManager;
+        this.enhancedByteCodeCache = cfg.isEnableEnhanceCache()
+                ? new EnhancedByteCodeCache()
+                : null;
+        this.mergedClassFileTransformer = new MergedClassFileTransformer(inst, cfg.isEnableUnsafe(), cfg.isEnableSpyMerge(), cfg.getNamespace(), enhancedByteCodeCache);
 
         // 初始化模块目录
         // （cfg.getSystemModuleLibPath()获取sandbox的系统模块加载路径。
@@ -219,7 +231,7 @@ public class DefaultCoreModuleManager implements CoreModuleManager {
                             new ReleaseResource<ModuleEventWatcher>(
                                     SandboxProtector.instance.protectProxy(
                                             ModuleEventWatcher.class,
-                                            new DefaultModuleEventWatcher(inst, classDataSource, coreModule, cfg.isEnableUnsafe(), cfg.getNamespace())
+                                            new DefaultModuleEventWatcher(inst, classDataSource, coreModule, mergedClassFileTransformer, cfg.getReTransformBatchSize())
                                     )
                             ) {
                                 @Override
@@ -273,6 +285,16 @@ public class DefaultCoreModuleManager implements CoreModuleManager {
                     );
                 }
 
+                // CacheMonitor注入
+                else if (CacheMonitor.class.isAssignableFrom(fieldType)) {
+                    writeField(
+                            resourceField,
+                            module,
+                            new DefaultCacheMonitor(enhancedByteCodeCache),
+                            true
+                    );
+                }
+
                 // EventMonitor注入
                 else if (EventMonitor.class.isAssignableFrom(fieldType)) {
                     writeField(
@@ -638,6 +660,7 @@ public class DefaultCoreModuleManager implements CoreModuleManager {
         if (!hasRef) {
             logger.info("ModuleJarClassLoader={} will be close: all module unloaded.", loader);
             ((ModuleJarClassLoader) loader).closeIfPossible();
+            ClassStructureCache.instance.invalidate(loader);
         }
 
     }
@@ -10,13 +10,13 @@ import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
 import com.alibaba.jvm.sandbox.core.manager.CoreLoadedClassDataSource;
 import com.alibaba.jvm.sandbox.core.util.Sequencer;
 import com.alibaba.jvm.sandbox.core.util.matcher.ExtFilterMatcher;
-import com.alibaba.jvm.sandbox.core.util.matcher.GroupMatcher;
 import com.alibaba.jvm.sandbox.core.util.matcher.Matcher;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.instrument.Instrumentation;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -37,8 +37,10 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
     private final Instrumentation inst;
     private final CoreLoadedClassDataSource classDataSource;
     private final CoreModule coreModule;
-    private final boolean isEnableUnsafe;
-    private final String namespace;
+    private final MergedClassFileTransformer mergedClassFileTransformer;
+
+    // 每批重新形变的类个数
+    private final int reTransformBatchSize;
 
     // 观察ID序列生成器
     private final Sequencer watchIdSequencer = new Sequencer();
@@ -46,13 +48,13 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
     DefaultModuleEventWatcher(final Instrumentation inst,
                               final CoreLoadedClassDataSource classDataSource,
                               final CoreModule coreModule,
-                              final boolean isEnableUnsafe,
-                              final String namespace) {
+                              final MergedClassFileTransformer mergedClassFileTransformer,
+                              final int reTransformBatchSize) {
         this.inst = inst;
         this.classDataSource = classDataSource;
         this.coreModule = coreModule;
-        this.isEnableUnsafe = isEnableUnsafe;
-        this.namespace = namespace;
+        this.mergedClassFileTransformer = mergedClassFileTransformer;
+        this.reTransformBatchSize = reTransformBatchSize;
     }
 
 
@@ -79,8 +81,50 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
         }
     }
 
+    // 汇报形变成功进度
+    private void progressOnSuccess(final int watchId,
+                                   final Progress progress,
+                                   final Class<?> clazz,
+                                   final int index,
+                                   final int total) {
+        if (null != progress) {
+            try {
+                progress.progressOnSuccess(clazz, index);
+            } catch (Throwable cause) {
+                // 在进行进度汇报的过程中抛出异常,直接进行忽略,因为不影响形变的主体流程
+                // 仅仅只是一个汇报作用而已
+                logger.warn("watch={} in module={} on {} report progressOnSuccess occur exception at index={};total={};",
+                        watchId, coreModule.getUniqueId(), clazz,
+                        index - 1, total,
+                        cause
+                );
+            }
+        }
+    }
+
+    // 汇报形变失败进度
+    private void progressOnFailed(final int watchId,
+                                  final Progress progress,
+                                  final Class<?> clazz,
+                                  final int index,
+                                  final int total,
+                                  final Throwable causeOfReTransform) {
+        if (null != progress) {
+            try {
+                progress.progressOnFailed(clazz, index, causeOfReTransform);
+            } catch (Throwable cause) {
+                logger.warn("watch={} in module={} on {} report progressOnFailed occur exception, at index={};total={};",
+                        watchId, coreModule.getUniqueId(), clazz,
+                        index - 1, total,
+                        cause
+                );
+            }
+        }
+    }
+
     /*
      * 形变观察所影响的类
+     * 每批最多reTransformBatchSize个类，一次JVMTI调用完成整批的形变
      */
     private void reTransformClasses(
         final int watchId,
@@ -99,49 +143,62 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
                     waitingReTransformClasses, coreModule.getUniqueId(), watchId);
         }
 
-        int index = 0;
-        for (final Class<?> waitingReTransformClass : waitingReTransformClasses) {
-            index++;
-            try {
-                if (null != progress) {
-                    try {
-                        progress.progressOnSuccess(waitingReTransformClass, index);
-                    } catch (Throwable cause) {
-                        // 在进行进度汇报的过程中抛出异常,直接进行忽略,因为不影响形变的主体流程
-                        // 仅仅只是一个汇报作用而已
-                        logger.warn("watch={} in module={} on {} report progressOnSuccess occur exception at index={};total={};",
-                                watchId, coreModule.getUniqueId(), waitingReTransformClass,
-                                index - 1, total,
-                                cause
-                        );
-                    }
-                }
-                //转换 待转换的类(最终会执行SandboxClassFileTransformer的transform方法。)
-                inst.retransformClasses(waitingReTransformClass);
-                logger.info("watch={} in module={} single reTransform {} success, at index={};total={};",
-                        watchId, coreModule.getUniqueId(), waitingReTransformClass,
-                        index - 1, total
-                );
-            } catch (Throwable causeOfReTransform) {
+        for (int from = 0; from < total; from += reTransformBatchSize) {
+            reTransformClasses(
+                    watchId,
+                    waitingReTransformClasses,
+                    from,
+                    Math.min(from + reTransformBatchSize, total),
+                    progress
+            );
+        }
+
+    }
+
+    /*
+     * 形变[from,to)范围内的类
+     * 整批形变失败时JVM不会形变其中任何一个类，此时将这一批对半拆开分别重试，
+     * 直到定位出形变失败的类，其余的类仍然能形变成功
+     */
+    private void reTransformClasses(
+        final int watchId,
+        final List<Class<?>> waitingReTransformClasses,
+        final int from,
+        final int to,
+        final Progress progress) {
+        final int total = waitingReTransformClasses.size();
+        try {
+            //转换 待转换的类(最终会执行MergedClassFileTransformer的transform方法。)
+            inst.retransformClasses(waitingReTransformClasses.subList(from, to).toArray(new Class<?>[0]));
+            logger.info("watch={} in module={} batch reTransform {} classes success, at index=[{},{});total={};",
+                    watchId, coreModule.getUniqueId(), to - from,
+                    from, to, total
+            );
+            for (int index = from; index < to; index++) {
+                progressOnSuccess(watchId, progress, waitingReTransformClasses.get(index), index + 1, total);
+            }
+        } catch (Throwable causeOfReTransform) {
+
+            // 只剩下一个类，说明就是这个类形变失败
+            if (to - from == 1) {
+                final Class<?> waitingReTransformClass = waitingReTransformClasses.get(from);
                 logger.warn("watch={} in module={} single reTransform {} failed, at index={};total={}. ignore this class.",
                         watchId, coreModule.getUniqueId(), waitingReTransformClass,
-                        index - 1, total,
+                        from, total,
                         causeOfReTransform
                 );
-                if (null != progress) {
-                    try {
-                        progress.progressOnFailed(waitingReTransformClass, index, causeOfReTransform);
-                    } catch (Throwable cause) {
-                        logger.warn("watch={} in module={} on {} report progressOnFailed occur exception, at index={};total={};",
-                                watchId, coreModule.getUniqueId(), waitingReTransformClass,
-                                index - 1, total,
-                                cause
-                        );
-                    }
-                }
+                progressOnFailed(watchId, progress, waitingReTransformClass, from + 1, total, causeOfReTransform);
+                return;
             }
-        }//for
 
+            logger.info("watch={} in module={} batch reTransform {} classes failed, at index=[{},{});total={}. bisect this batch.",
+                    watchId, coreModule.getUniqueId(), to - from,
+                    from, to, total
+            );
+            final int middle = (from + to) >>> 1;
+            reTransformClasses(watchId, waitingReTransformClasses, from, middle, progress);
+            reTransformClasses(watchId, waitingReTransformClasses, middle, to, progress);
+        }
     }
 
     @Override
@@ -164,27 +221,43 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
                      final EventListener listener,
                      final Progress progress,
                      final Event.Type... eventType) {
-        return watch(toOrGroupMatcher(condition.getOrFilterArray()), listener, progress, eventType);
+        return watch(condition, listener, progress, false, eventType);
+    }
+
+    @Override
+    public int watch(final EventWatchCondition condition,
+                     final EventListener listener,
+                     final Progress progress,
+                     final boolean isWithoutParameters,
+                     final Event.Type... eventType) {
+        return watch(toOrGroupMatcher(condition.getOrFilterArray()), listener, progress, isWithoutParameters, eventType);
+    }
+
+    private int watch(final Matcher matcher,
+                      final EventListener listener,
+                      final Progress progress,
+                      final Event.Type... eventType) {
+        return watch(matcher, listener, progress, false, eventType);
     }
 
     // 这里是用matcher重制过后的watch
     private int watch(final Matcher matcher,
                       final EventListener listener,
                       final Progress progress,
+                      final boolean isWithoutParameters,
                       final Event.Type... eventType) {
         //生成watchId,其本质是使用了一个全局的AtomicInteger
         final int watchId = watchIdSequencer.next();
-        // 给对应的模块追加ClassFileTransformer
-        //这是 JDK 提供的一个接口ClassFileTransformer，其主要实现了 transform 方法用于修改类的字节码
-        // ，通过这个方法，可以得到虚拟机载入的类的字节码。
+        // 给对应的模块追加本次观察的形变规则
         final SandboxClassFileTransformer sandClassFileTransformer = new SandboxClassFileTransformer(
-                watchId, coreModule.getUniqueId(), matcher, listener, isEnableUnsafe, eventType, namespace);
+                watchId, coreModule.getUniqueId(), matcher, listener, eventType, isWithoutParameters);
 
         // 注册到CoreModule中
         coreModule.getSandboxClassFileTransformers().add(sandClassFileTransformer);
 
-        //这里addTransformer后，接下来引起的类加载都会经过sandClassFileTransformer
-        inst.addTransformer(sandClassFileTransformer, true);
+        // 追加到命名空间的合并形变器后，接下来引起的类加载都会经过sandClassFileTransformer的匹配
+        // 同一命名空间只向JVM注册一个ClassFileTransformer，类结构只解析一次
+        mergedClassFileTransformer.add(sandClassFileTransformer);
 
         // 查找需要渲染的类集合
         //这里会调用iteratorForLoadedClasses这个方法，这个方法中执行了inst.getAllLoadedClasses()这个方法，
@@ -203,7 +276,7 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
         try {
 
             // 应用JVM
-            reTransformClasses(watchId,waitingReTransformClasses, progress);
+            reTransformClasses(watchId, waitingReTransformClasses, progress);
 
             // 计数
             cCnt += sandClassFileTransformer.getAffectStatistic().cCnt();
@@ -224,11 +297,42 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
         return watchId;
     }
 
+    /*
+     * 列出形变规则增强过的类
+     * 重新形变时增强的类已经记录了Class对象，可以直接使用；
+     * 类首次加载时增强的类只记录了类名，需要遍历一次已加载的类按名称找回，这个过程不需要解析类结构
+     */
+    private List<Class<?>> listAffectClasses(final List<SandboxClassFileTransformer> sandboxClassFileTransformers) {
+        final Set<Class<?>> affectClassSet = new LinkedHashSet<Class<?>>();
+        final List<SandboxClassFileTransformer> unresolvedSandboxClassFileTransformers
+                = new ArrayList<SandboxClassFileTransformer>();
+        for (final SandboxClassFileTransformer sandboxClassFileTransformer : sandboxClassFileTransformers) {
+            affectClassSet.addAll(sandboxClassFileTransformer.listAffectClasses());
+            if (sandboxClassFileTransformer.hasUnresolvedAffectClass()) {
+                unresolvedSandboxClassFileTransformers.add(sandboxClassFileTransformer);
+            }
+        }
+        if (!unresolvedSandboxClassFileTransformers.isEmpty()) {
+            final Iterator<Class<?>> itForLoaded = classDataSource.iteratorForLoadedClasses();
+            while (itForLoaded.hasNext()) {
+                final Class<?> clazz = itForLoaded.next();
+                for (final SandboxClassFileTransformer sandboxClassFileTransformer : unresolvedSandboxClassFileTransformers) {
+                    if (sandboxClassFileTransformer.isUnresolvedAffectClass(clazz)) {
+                        affectClassSet.add(clazz);
+                        break;
+                    }
+                }
+            }
+        }
+        return new ArrayList<Class<?>>(affectClassSet);
+    }
+
     @Override
     public void delete(final int watcherId,
                        final Progress progress) {
 
-        final Set<Matcher> waitingRemoveMatcherSet = new LinkedHashSet<Matcher>();
+        final List<SandboxClassFileTransformer> waitingRemoveSandboxClassFileTransformers
+                = new ArrayList<SandboxClassFileTransformer>();
 
         // 找出待删除的SandboxClassFileTransformer
         final Iterator<SandboxClassFileTransformer> cftIt = coreModule.getSandboxClassFileTransformers().iterator();
@@ -241,15 +345,15 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
                 EventListenerHandler.getSingleton()
                         .frozen(sandboxClassFileTransformer.getListenerId());
 
-                // 在JVM中移除掉命中的ClassFileTransformer
-                inst.removeTransformer(sandboxClassFileTransformer);
+                // 在合并形变器中移除掉命中的形变规则
+                mergedClassFileTransformer.remove(sandboxClassFileTransformer);
 
                 // 计数
                 cCnt += sandboxClassFileTransformer.getAffectStatistic().cCnt();
                 mCnt += sandboxClassFileTransformer.getAffectStatistic().mCnt();
 
-                // 追加到待删除过滤器集合
-                waitingRemoveMatcherSet.add(sandboxClassFileTransformer.getMatcher());
+                // 追加到待删除形变规则集合
+                waitingRemoveSandboxClassFileTransformers.add(sandboxClassFileTransformer);
 
                 // 清除掉该SandboxClassFileTransformer
                 cftIt.remove();
@@ -257,10 +361,8 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
             }
         }
 
-        // 查找需要删除后重新渲染的类集合
-        final List<Class<?>> waitingReTransformClasses = classDataSource.findForReTransform(
-                new GroupMatcher.Or(waitingRemoveMatcherSet.toArray(new Matcher[0]))
-        );
+        // 需要删除后重新渲染的类就是这些观察曾经增强过的类，不再重新匹配所有已加载的类
+        final List<Class<?>> waitingReTransformClasses = listAffectClasses(waitingRemoveSandboxClassFileTransformers);
         logger.info("watch={} in module={} found {} classes for delete.",
                 watcherId,
                 coreModule.getUniqueId(),
@@ -272,6 +374,16 @@ public class DefaultModuleEventWatcher implements ModuleEventWatcher {
             // 应用JVM
             reTransformClasses(watcherId, waitingReTransformClasses, progress);
         } finally {
+
+            // 增强过的类已经重新形变，释放这些监听器参与的监听器组，并清理包含它们的增强字节码缓存
+            final List<Integer> releasedListenerIds = new ArrayList<Integer>();
+            for (final SandboxClassFileTransformer sandboxClassFileTransformer : waitingRemoveSandboxClassFileTransformers) {
+                releasedListenerIds.add(sandboxClassFileTransformer.getListenerId());
+                releasedListenerIds.addAll(EventListenerHandler.getSingleton()
+                        .releaseListenerGroups(sandboxClassFileTransformer.getListenerId()));
+            }
+            mergedClassFileTransformer.invalidateEnhancedByteCodes(releasedListenerIds);
+
             finishProgress(progress, cCnt, mCnt);
         }
     }
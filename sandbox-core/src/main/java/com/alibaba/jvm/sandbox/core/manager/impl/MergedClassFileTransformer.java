@@ -0,0 +1,342 @@
+package com.alibaba.jvm.sandbox.core.manager.impl;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.core.enhance.EnhanceUnit;
+import com.alibaba.jvm.sandbox.core.enhance.EnhancedByteCodeCache;
+import com.alibaba.jvm.sandbox.core.enhance.EventEnhancer;
+import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
+import com.alibaba.jvm.sandbox.core.util.SandboxClassUtils;
+import com.alibaba.jvm.sandbox.core.util.SandboxProtector;
+import com.alibaba.jvm.sandbox.core.util.matcher.MatchingResult;
+import com.alibaba.jvm.sandbox.core.util.matcher.UnsupportedMatcher;
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.BehaviorStructure;
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.Instrumentation;
+import java.security.ProtectionDomain;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toJavaClassName;
+import static com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureFactory.createClassStructure;
+
+/**
+ * 合并类形变器
+ * <p>
+ * 每个命名空间只向JVM注册一个ClassFileTransformer，
+ * 类加载时只解析一次类结构，依次匹配所有观察的{@link SandboxClassFileTransformer}，
+ * 再将所有命中的监听器在一次{@link EventEnhancer}编织中完成增强
+ * </p>
+ * <p>
+ * 开启合并埋点后，命中同一个方法的多个监听器会注册为一个监听器组，
+ * 方法中只埋入一组Spy调用，由{@link EventListenerHandler}分发给组内的监听器
+ * </p>
+ */
+public class MergedClassFileTransformer implements ClassFileTransformer {
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Instrumentation inst;
+    private final boolean isEnableUnsafe;
+    private final boolean isEnableSpyMerge;
+    private final String namespace;
+
+    // 增强字节码缓存，未启用时为null
+    private final EnhancedByteCodeCache enhancedByteCodeCache;
+
+    // 当前所有生效的观察，按观察的先后顺序进行编织
+    private final List<SandboxClassFileTransformer> sandboxClassFileTransformers
+            = new CopyOnWriteArrayList<SandboxClassFileTransformer>();
+
+    // 是否已经注册到JVM
+    private boolean isRegistered = false;
+
+    MergedClassFileTransformer(final Instrumentation inst,
+                               final boolean isEnableUnsafe,
+                               final boolean isEnableSpyMerge,
+                               final String namespace,
+                               final EnhancedByteCodeCache enhancedByteCodeCache) {
+        this.inst = inst;
+        this.isEnableUnsafe = isEnableUnsafe;
+        this.isEnableSpyMerge = isEnableSpyMerge;
+        this.namespace = namespace;
+        this.enhancedByteCodeCache = enhancedByteCodeCache;
+    }
+
+    /**
+     * 追加一个观察
+     * <p>第一个观察追加时才会向JVM注册</p>
+     *
+     * @param sandboxClassFileTransformer 观察的形变规则
+     */
+    synchronized void add(final SandboxClassFileTransformer sandboxClassFileTransformer) {
+        sandboxClassFileTransformers.add(sandboxClassFileTransformer);
+        if (!isRegistered) {
+            inst.addTransformer(this, true);
+            isRegistered = true;
+        }
+    }
+
+    /**
+     * 移除一个观察
+     * <p>最后一个观察被移除后从JVM中注销，没有观察时不再对类加载产生任何开销</p>
+     *
+     * @param sandboxClassFileTransformer 观察的形变规则
+     */
+    synchronized void remove(final SandboxClassFileTransformer sandboxClassFileTransformer) {
+        sandboxClassFileTransformers.remove(sandboxClassFileTransformer);
+        if (isRegistered
+                && sandboxClassFileTransformers.isEmpty()) {
+            inst.removeTransformer(this);
+            isRegistered = false;
+        }
+    }
+
+    /**
+     * 清理包含已删除监听器的增强字节码缓存
+     * <p>观察删除、增强过的类重新形变之后调用，未启用缓存时什么都不做</p>
+     *
+     * @param listenerIds 已删除的监听器ID和随之释放的监听器组ID
+     */
+    void invalidateEnhancedByteCodes(final Collection<Integer> listenerIds) {
+        if (null != enhancedByteCodeCache) {
+            enhancedByteCodeCache.invalidate(listenerIds);
+        }
+    }
+
+    // 获取当前类结构
+    private ClassStructure getClassStructure(final ClassLoader loader,
+                                             final Class<?> classBeingRedefined,
+                                             final byte[] srcByteCodeArray) {
+        return null == classBeingRedefined
+                ? createClassStructure(srcByteCodeArray, loader)
+                : createClassStructure(classBeingRedefined);
+    }
+
+    // 获取根据类名预匹配可能命中的观察
+    private List<SandboxClassFileTransformer> getCandidateTransformers(final String internalClassName) {
+        if (null == internalClassName) {
+            return sandboxClassFileTransformers;
+        }
+        final String javaClassName = toJavaClassName(internalClassName);
+        final List<SandboxClassFileTransformer> candidateTransformers = new ArrayList<SandboxClassFileTransformer>();
+        for (final SandboxClassFileTransformer sandboxClassFileTransformer : sandboxClassFileTransformers) {
+            if (sandboxClassFileTransformer.getMatcher().preMatching(javaClassName)) {
+                candidateTransformers.add(sandboxClassFileTransformer);
+            }
+        }
+        return candidateTransformers;
+    }
+
+    @Override
+    public byte[] transform(final ClassLoader loader,
+                            final String internalClassName,
+                            final Class<?> classBeingRedefined,
+                            final ProtectionDomain protectionDomain,
+                            final byte[] srcByteCodeArray) {
+
+        SandboxProtector.instance.enterProtecting();
+        try {
+
+            // 这里过滤掉Sandbox所需要的类|来自SandboxClassLoader所加载的类|来自ModuleJarClassLoader加载的类
+            // 防止ClassCircularityError的发生
+            if (SandboxClassUtils.isComeFromSandboxFamily(internalClassName, loader)) {
+                return null;
+            }
+
+            return _transform(
+                    loader,
+                    internalClassName,
+                    classBeingRedefined,
+                    srcByteCodeArray
+            );
+
+        } catch (Throwable cause) {
+            logger.warn("sandbox transform {} in loader={}; failed, will ignore this transform.",
+                    internalClassName,
+                    loader,
+                    cause
+            );
+            return null;
+        } finally {
+            SandboxProtector.instance.exitProtecting();
+        }
+    }
+
+    private byte[] _transform(final ClassLoader loader,
+                              final String internalClassName,
+                              final Class<?> classBeingRedefined,
+                              final byte[] srcByteCodeArray) {
+        // 如果未开启unsafe开关，是不允许增强来自BootStrapClassLoader的类
+        if (!isEnableUnsafe
+                && null == loader) {
+            logger.debug("transform ignore {}, class from bootstrap but unsafe.enable=false.", internalClassName);
+            return null;
+        }
+
+        // 先根据类名预匹配，没有任何观察可能命中时不再解析类结构
+        final List<SandboxClassFileTransformer> candidateTransformers = getCandidateTransformers(internalClassName);
+        if (candidateTransformers.isEmpty()) {
+            return null;
+        }
+
+        // 类结构只解析一次，由所有观察共享
+        final ClassStructure classStructure = getClassStructure(loader, classBeingRedefined, srcByteCodeArray);
+
+        // 不支持增强的行为对所有观察都一样，在第一个观察命中时才计算
+        Set<BehaviorStructure> supportedBehaviorStructures = null;
+
+        final List<SandboxClassFileTransformer> matchedTransformers = new ArrayList<SandboxClassFileTransformer>();
+        final List<EnhanceUnit> enhanceUnits = new ArrayList<EnhanceUnit>();
+        for (final SandboxClassFileTransformer sandboxClassFileTransformer : candidateTransformers) {
+            final MatchingResult matchingResult = sandboxClassFileTransformer.getMatcher().matching(classStructure);
+            if (!matchingResult.isMatched()) {
+                continue;
+            }
+
+            if (null == supportedBehaviorStructures) {
+                supportedBehaviorStructures = new UnsupportedMatcher(loader, isEnableUnsafe)
+                        .matching(classStructure)
+                        .getBehaviorStructures();
+            }
+
+            final Set<String> behaviorSignCodes = new LinkedHashSet<String>();
+            for (final BehaviorStructure behaviorStructure : matchingResult.getBehaviorStructures()) {
+                if (supportedBehaviorStructures.contains(behaviorStructure)) {
+                    behaviorSignCodes.add(behaviorStructure.getSignCode());
+                }
+            }
+
+            // 如果一个行为都没匹配上也不用继续了
+            if (behaviorSignCodes.isEmpty()) {
+                continue;
+            }
+
+            matchedTransformers.add(sandboxClassFileTransformer);
+            enhanceUnits.add(new EnhanceUnit(
+                    sandboxClassFileTransformer.getListenerId(),
+                    behaviorSignCodes,
+                    sandboxClassFileTransformer.getEventTypeArray(),
+                    sandboxClassFileTransformer.isWithoutParameters()
+            ));
+        }
+
+        if (enhanceUnits.isEmpty()) {
+            logger.debug("transform ignore {}, no behaviors matched in loader={}", internalClassName, loader);
+            return null;
+        }
+
+        // 开始进行类增强，所有命中的监听器在一次编织中完成
+        try {
+            final byte[] toByteCodeArray = new EventEnhancer(enhancedByteCodeCache).toByteCodeArray(
+                    loader,
+                    srcByteCodeArray,
+                    namespace,
+                    isEnableSpyMerge && enhanceUnits.size() > 1
+                            ? mergeEnhanceUnits(enhanceUnits)
+                            : enhanceUnits
+            );
+            if (srcByteCodeArray == toByteCodeArray) {
+                logger.debug("transform ignore {}, nothing changed in loader={}", internalClassName, loader);
+                return null;
+            }
+
+            // statistic affect
+            final String javaClassName = toJavaClassName(internalClassName);
+
+            for (int index = 0; index < matchedTransformers.size(); index++) {
+                final SandboxClassFileTransformer sandboxClassFileTransformer = matchedTransformers.get(index);
+                sandboxClassFileTransformer.getAffectStatistic()
+                        .statisticAffect(loader, internalClassName, enhanceUnits.get(index).getSignCodes());
+                sandboxClassFileTransformer.markAffectClass(loader, javaClassName, classBeingRedefined);
+                logger.info("transform {} finished, by module={} at watch={} in loader={}",
+                        internalClassName,
+                        sandboxClassFileTransformer.getUniqueId(),
+                        sandboxClassFileTransformer.getWatchId(),
+                        loader
+                );
+            }
+            return toByteCodeArray;
+        } catch (Throwable cause) {
+            logger.warn("transform {} failed, by {} watch(es) in loader={}", internalClassName, enhanceUnits.size(), loader, cause);
+            return null;
+        }
+    }
+
+    /*
+     * 合并增强单元
+     * 按行为归集命中的监听器，命中监听器完全相同的行为归为同一个增强单元，
+     * 多于一个监听器时注册为监听器组，一个行为最终只埋入一组Spy调用
+     */
+    private List<EnhanceUnit> mergeEnhanceUnits(final List<EnhanceUnit> enhanceUnits) {
+
+        // 行为签名:命中的增强单元下标，下标按观察的先后顺序排列
+        final Map<String, List<Integer>> indexesOfSignCode = new LinkedHashMap<String, List<Integer>>();
+        for (int index = 0; index < enhanceUnits.size(); index++) {
+            for (final String signCode : enhanceUnits.get(index).getSignCodes()) {
+                List<Integer> indexes = indexesOfSignCode.get(signCode);
+                if (null == indexes) {
+                    indexesOfSignCode.put(signCode, indexes = new ArrayList<Integer>());
+                }
+                indexes.add(index);
+            }
+        }
+
+        // 命中的增强单元下标:行为签名集合
+        final Map<List<Integer>, Set<String>> signCodesOfIndexes = new LinkedHashMap<List<Integer>, Set<String>>();
+        for (final Map.Entry<String, List<Integer>> entry : indexesOfSignCode.entrySet()) {
+            Set<String> signCodes = signCodesOfIndexes.get(entry.getValue());
+            if (null == signCodes) {
+                signCodesOfIndexes.put(entry.getValue(), signCodes = new LinkedHashSet<String>());
+            }
+            signCodes.add(entry.getKey());
+        }
+
+        final List<EnhanceUnit> mergedEnhanceUnits = new ArrayList<EnhanceUnit>();
+        for (final Map.Entry<List<Integer>, Set<String>> entry : signCodesOfIndexes.entrySet()) {
+            final List<Integer> indexes = entry.getKey();
+
+            // 只有一个监听器，不需要合并
+            if (indexes.size() == 1) {
+                final EnhanceUnit enhanceUnit = enhanceUnits.get(indexes.get(0));
+                mergedEnhanceUnits.add(new EnhanceUnit(
+                        enhanceUnit.getListenerId(),
+                        entry.getValue(),
+                        enhanceUnit.getEventTypeArray(),
+                        enhanceUnit.isWithoutParameters()
+                ));
+                continue;
+            }
+
+            final int[] listenerIds = new int[indexes.size()];
+            final Set<Event.Type> eventTypes = new LinkedHashSet<Event.Type>();
+
+            // 组内所有监听器都不需要参数时，才能不构造参数数组
+            boolean isWithoutParameters = true;
+            for (int index = 0; index < indexes.size(); index++) {
+                final EnhanceUnit enhanceUnit = enhanceUnits.get(indexes.get(index));
+                listenerIds[index] = enhanceUnit.getListenerId();
+                eventTypes.addAll(Arrays.asList(enhanceUnit.getEventTypeArray()));
+                isWithoutParameters &= enhanceUnit.isWithoutParameters();
+            }
+            mergedEnhanceUnits.add(new EnhanceUnit(
+                    EventListenerHandler.getSingleton().registerListenerGroup(listenerIds),
+                    entry.getValue(),
+                    eventTypes.toArray(new Event.Type[0]),
+                    isWithoutParameters
+            ));
+        }
+        return mergedEnhanceUnits;
+    }
+
+}
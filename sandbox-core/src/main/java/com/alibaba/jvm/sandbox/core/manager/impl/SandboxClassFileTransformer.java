@@ -2,165 +2,70 @@ package com.alibaba.jvm.sandbox.core.manager.impl;
 
 import com.alibaba.jvm.sandbox.api.event.Event;
 import com.alibaba.jvm.sandbox.api.listener.EventListener;
-import com.alibaba.jvm.sandbox.core.enhance.EventEnhancer;
 import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
-import com.alibaba.jvm.sandbox.core.util.SandboxClassUtils;
-import com.alibaba.jvm.sandbox.core.util.SandboxProtector;
 import com.alibaba.jvm.sandbox.core.util.matcher.Matcher;
-import com.alibaba.jvm.sandbox.core.util.matcher.MatchingResult;
-import com.alibaba.jvm.sandbox.core.util.matcher.UnsupportedMatcher;
-import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructure;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.lang.instrument.ClassFileTransformer;
-import java.security.ProtectionDomain;
-import java.util.Set;
 
-import static com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureFactory.createClassStructure;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * 沙箱类形变器
+ * <p>
+ * 描述一次观察的形变规则，同一命名空间下所有观察的形变
+ * 由{@link MergedClassFileTransformer}统一完成
+ * </p>
  *
  * @author luanjia@taobao.com
  */
-public class SandboxClassFileTransformer implements ClassFileTransformer {
-
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+public class SandboxClassFileTransformer {
 
     private final int watchId;
     private final String uniqueId;
     private final Matcher matcher;
     private final EventListener eventListener;
-    private final boolean isEnableUnsafe;
     private final Event.Type[] eventTypeArray;
+    private final boolean isWithoutParameters;
 
-    private final String namespace;
     private final int listenerId;
     private final AffectStatistic affectStatistic = new AffectStatistic();
 
+    // 本次观察增强过的类，弱引用持有，类被卸载后自动移除
+    private final Set<Class<?>> affectClasses
+            = Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>());
+
+    // 类首次加载时完成的增强还拿不到Class对象，先按ClassLoader记录类名
+    private final Map<ClassLoader, Set<String>> unresolvedAffectClassNames
+            = new WeakHashMap<ClassLoader, Set<String>>();
+
     SandboxClassFileTransformer(final int watchId,
                                 final String uniqueId,
                                 final Matcher matcher,
                                 final EventListener eventListener,
-                                final boolean isEnableUnsafe,
                                 final Event.Type[] eventTypeArray,
-                                final String namespace) {
+                                final boolean isWithoutParameters) {
         this.watchId = watchId;
         this.uniqueId = uniqueId;
         this.matcher = matcher;
         this.eventListener = eventListener;
-        this.isEnableUnsafe = isEnableUnsafe;
         this.eventTypeArray = eventTypeArray;
-        this.namespace = namespace;
+        this.isWithoutParameters = isWithoutParameters;
         this.listenerId = ObjectIDs.instance.identity(eventListener);
     }
 
-    // 获取当前类结构
-    private ClassStructure getClassStructure(final ClassLoader loader,
-                                             final Class<?> classBeingRedefined,
-                                             final byte[] srcByteCodeArray) {
-        return null == classBeingRedefined
-                ? createClassStructure(srcByteCodeArray, loader)
-                : createClassStructure(classBeingRedefined);
-    }
-
     /**
-     * 这个方法主要实现过滤sandbox相关的类和增强符合条件的字节码文件
-     * @param loader
-     * @param internalClassName
-     * @param classBeingRedefined
-     * @param protectionDomain
-     * @param srcByteCodeArray
-     * @return
+     * 获取模块ID
+     *
+     * @return 模块ID
      */
-    @Override
-    public byte[] transform(final ClassLoader loader,
-                            final String internalClassName,
-                            final Class<?> classBeingRedefined,
-                            final ProtectionDomain protectionDomain,
-                            final byte[] srcByteCodeArray) {
-
-        SandboxProtector.instance.enterProtecting();
-        try {
-
-            // 这里过滤掉Sandbox所需要的类|来自SandboxClassLoader所加载的类|来自ModuleJarClassLoader加载的类
-            // 防止ClassCircularityError的发生
-            if (SandboxClassUtils.isComeFromSandboxFamily(internalClassName, loader)) {
-                return null;
-            }
-
-            return _transform(
-                    loader,
-                    internalClassName,
-                    classBeingRedefined,
-                    srcByteCodeArray
-            );
-
-
-        } catch (Throwable cause) {
-            logger.warn("sandbox transform {} in loader={}; failed, module={} at watch={}, will ignore this transform.",
-                    internalClassName,
-                    loader,
-                    uniqueId,
-                    watchId,
-                    cause
-            );
-            return null;
-        } finally {
-            SandboxProtector.instance.exitProtecting();
-        }
-    }
-
-    private byte[] _transform(final ClassLoader loader,
-                              final String internalClassName,
-                              final Class<?> classBeingRedefined,
-                              final byte[] srcByteCodeArray) {
-        // 如果未开启unsafe开关，是不允许增强来自BootStrapClassLoader的类
-        if (!isEnableUnsafe
-                && null == loader) {
-            logger.debug("transform ignore {}, class from bootstrap but unsafe.enable=false.", internalClassName);
-            return null;
-        }
-
-        final ClassStructure classStructure = getClassStructure(loader, classBeingRedefined, srcByteCodeArray);
-        final MatchingResult matchingResult = new UnsupportedMatcher(loader, isEnableUnsafe).and(matcher).matching(classStructure);
-        final Set<String> behaviorSignCodes = matchingResult.getBehaviorSignCodes();
-
-        // 如果一个行为都没匹配上也不用继续了
-        if (!matchingResult.isMatched()) {
-            logger.debug("transform ignore {}, no behaviors matched in loader={}", internalClassName, loader);
-            return null;
-        }
-
-        // 开始进行类匹配
-        try {
-            // 类增强(jvm-sandbox是如何实现字节码修改的)
-            final byte[] toByteCodeArray = new EventEnhancer().toByteCodeArray(
-                    loader,
-                    srcByteCodeArray,
-                    behaviorSignCodes,
-                    namespace,
-                    listenerId,
-                    eventTypeArray
-            );
-            if (srcByteCodeArray == toByteCodeArray) {
-                logger.debug("transform ignore {}, nothing changed in loader={}", internalClassName, loader);
-                return null;
-            }
-
-            // statistic affect
-            affectStatistic.statisticAffect(loader, internalClassName, behaviorSignCodes);
-
-            logger.info("transform {} finished, by module={} in loader={}", internalClassName, uniqueId, loader);
-            return toByteCodeArray;
-        } catch (Throwable cause) {
-            logger.warn("transform {} failed, by module={} in loader={}", internalClassName, uniqueId, loader, cause);
-            return null;
-        }
+    String getUniqueId() {
+        return uniqueId;
     }
 
-
     /**
      * 获取观察ID
      *
@@ -206,6 +111,15 @@ public class SandboxClassFileTransformer implements ClassFileTransformer {
         return eventTypeArray;
     }
 
+    /**
+     * 获取本次观察是否不需要方法的参数和{@code this}
+     *
+     * @return TRUE:不需要参数；FALSE:需要参数
+     */
+    boolean isWithoutParameters() {
+        return isWithoutParameters;
+    }
+
     /**
      * 获取本次增强的影响统计
      *
@@ -215,4 +129,61 @@ public class SandboxClassFileTransformer implements ClassFileTransformer {
         return affectStatistic;
     }
 
+    /**
+     * 记录本次观察增强过的类
+     *
+     * @param loader              加载的ClassLoader
+     * @param javaClassName       类名
+     * @param classBeingRedefined 重新形变的类，类首次加载时为null
+     */
+    synchronized void markAffectClass(final ClassLoader loader,
+                                      final String javaClassName,
+                                      final Class<?> classBeingRedefined) {
+        if (null != classBeingRedefined) {
+            affectClasses.add(classBeingRedefined);
+            final Set<String> javaClassNames = unresolvedAffectClassNames.get(loader);
+            if (null != javaClassNames
+                    && javaClassNames.remove(javaClassName)
+                    && javaClassNames.isEmpty()) {
+                unresolvedAffectClassNames.remove(loader);
+            }
+        } else {
+            Set<String> javaClassNames = unresolvedAffectClassNames.get(loader);
+            if (null == javaClassNames) {
+                unresolvedAffectClassNames.put(loader, javaClassNames = new HashSet<String>());
+            }
+            javaClassNames.add(javaClassName);
+        }
+    }
+
+    /**
+     * 获取本次观察增强过且仍然存活的类
+     *
+     * @return 增强过的类
+     */
+    synchronized List<Class<?>> listAffectClasses() {
+        return new ArrayList<Class<?>>(affectClasses);
+    }
+
+    /**
+     * 是否存在首次加载时增强、还未对应到Class对象的类
+     *
+     * @return TRUE:存在；FALSE:不存在
+     */
+    synchronized boolean hasUnresolvedAffectClass() {
+        return !unresolvedAffectClassNames.isEmpty();
+    }
+
+    /**
+     * 判断类是否为本次观察在首次加载时增强过的类
+     *
+     * @param clazz 已加载的类
+     * @return TRUE:是；FALSE:否
+     */
+    synchronized boolean isUnresolvedAffectClass(final Class<?> clazz) {
+        final Set<String> javaClassNames = unresolvedAffectClassNames.get(clazz.getClassLoader());
+        return null != javaClassNames
+                && javaClassNames.contains(clazz.getName());
+    }
+
 }
@@ -2,11 +2,14 @@ package com.alibaba.jvm.sandbox.core.util;
 
 import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructure;
 import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureFactory;
-import org.apache.commons.io.IOUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
-import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toInternalClassName;
+import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toJavaClassName;
 
 /**
  * ASM工具集
@@ -15,6 +18,16 @@ import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toInternalCla
  */
 public class AsmUtils {
 
+    /**
+     * 每个ClassLoader最多缓存的共同父类个数
+     */
+    private static final int MAXIMUM_COMMON_SUPER_CLASS_PER_LOADER = 4096;
+
+    // ClassLoader:(类型1;类型2:共同父类)
+    // COMPUTE_FRAMES会对同一组类型反复计算共同父类，ClassLoader被回收后缓存随之回收
+    private static final Cache<ClassLoader, Cache<String, String>> commonSuperClassCache
+            = CacheBuilder.newBuilder().weakKeys().build();
+
     /**
      * 获取两个类型的共同父类
      * just the same
@@ -25,53 +38,64 @@ public class AsmUtils {
      * @param loader 所在ClassLoader
      * @return 共同的父类
      */
-    public static String getCommonSuperClass(String type1, String type2, ClassLoader loader) {
-        return getCommonSuperClassImplByAsm(type1, type2, loader);
+    public static String getCommonSuperClass(final String type1, final String type2, final ClassLoader loader) {
+
+        //loader 为null，说明是BootStrapClassLoader，不能显式引用，故使用系统类加载器间接引用
+        final ClassLoader targetClassLoader = null == loader
+                ? ClassLoader.getSystemClassLoader()
+                : loader;
+        if (null == targetClassLoader) {
+            return "java/lang/Object";
+        }
+
+        try {
+            return commonSuperClassCache
+                    .get(targetClassLoader, new Callable<Cache<String, String>>() {
+                        @Override
+                        public Cache<String, String> call() {
+                            return CacheBuilder.newBuilder().maximumSize(MAXIMUM_COMMON_SUPER_CLASS_PER_LOADER).build();
+                        }
+                    })
+                    .get(type1 + ";" + type2, new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return getCommonSuperClassImplByAsm(type1, type2, targetClassLoader);
+                        }
+                    });
+        } catch (ExecutionException cause) {
+            throw new IllegalStateException(cause.getCause());
+        }
     }
 
     // implements by ASM
+    // 类结构从ClassStructureCache中获取，与匹配器共享已经解析过的类结构和家族关系
     private static String getCommonSuperClassImplByAsm(String type1, String type2, ClassLoader targetClassLoader) {
-        InputStream inputStreamOfType1 = null, inputStreamOfType2 = null;
-        try {
-            //targetClassLoader 为null，说明是BootStrapClassLoader，不能显式引用，故使用系统类加载器间接引用
-            if (null == targetClassLoader) {
-                targetClassLoader = ClassLoader.getSystemClassLoader();
-            }
-            if (null == targetClassLoader) {
-                return "java/lang/Object";
-            }
-            inputStreamOfType1 = targetClassLoader.getResourceAsStream(type1 + ".class");
-            if (null == inputStreamOfType1) {
-                return "java/lang/Object";
-            }
-            inputStreamOfType2 = targetClassLoader.getResourceAsStream(type2 + ".class");
-            if (null == inputStreamOfType2) {
-                return "java/lang/Object";
-            }
-            final ClassStructure classStructureOfType1 = ClassStructureFactory.createClassStructure(inputStreamOfType1, targetClassLoader);
-            final ClassStructure classStructureOfType2 = ClassStructureFactory.createClassStructure(inputStreamOfType2, targetClassLoader);
-            if (classStructureOfType2.getFamilyTypeClassStructures().contains(classStructureOfType1)) {
-                return type1;
-            }
-            if (classStructureOfType1.getFamilyTypeClassStructures().contains(classStructureOfType2)) {
-                return type2;
-            }
-            if (classStructureOfType1.getAccess().isInterface()
-                    || classStructureOfType2.getAccess().isInterface()) {
+        final ClassStructure classStructureOfType1 = ClassStructureFactory.createClassStructure(toJavaClassName(type1), targetClassLoader);
+        if (null == classStructureOfType1) {
+            return "java/lang/Object";
+        }
+        final ClassStructure classStructureOfType2 = ClassStructureFactory.createClassStructure(toJavaClassName(type2), targetClassLoader);
+        if (null == classStructureOfType2) {
+            return "java/lang/Object";
+        }
+        if (classStructureOfType2.getFamilyTypeClassStructures().contains(classStructureOfType1)) {
+            return type1;
+        }
+        if (classStructureOfType1.getFamilyTypeClassStructures().contains(classStructureOfType2)) {
+            return type2;
+        }
+        if (classStructureOfType1.getAccess().isInterface()
+                || classStructureOfType2.getAccess().isInterface()) {
+            return "java/lang/Object";
+        }
+        ClassStructure classStructure = classStructureOfType1;
+        do {
+            classStructure = classStructure.getSuperClassStructure();
+            if (null == classStructure) {
                 return "java/lang/Object";
             }
-            ClassStructure classStructure = classStructureOfType1;
-            do {
-                classStructure = classStructure.getSuperClassStructure();
-                if (null == classStructure) {
-                    return "java/lang/Object";
-                }
-            } while (!classStructureOfType2.getFamilyTypeClassStructures().contains(classStructure));
-            return toInternalClassName(classStructure.getJavaClassName());
-        } finally {
-            IOUtils.closeQuietly(inputStreamOfType1);
-            IOUtils.closeQuietly(inputStreamOfType2);
-        }
+        } while (!classStructureOfType2.getFamilyTypeClassStructures().contains(classStructure));
+        return toInternalClassName(classStructure.getJavaClassName());
     }
 
 }
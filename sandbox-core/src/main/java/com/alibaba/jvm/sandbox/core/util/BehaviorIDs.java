@@ -0,0 +1,308 @@
+package com.alibaba.jvm.sandbox.core.util;
+
+import com.alibaba.jvm.sandbox.api.event.BehaviorMeta;
+import com.alibaba.jvm.sandbox.api.listener.ext.Behavior;
+import com.alibaba.jvm.sandbox.api.util.BehaviorDescriptor;
+import com.alibaba.jvm.sandbox.core.util.collection.GaIntStack;
+import com.alibaba.jvm.sandbox.core.util.collection.ThreadUnsafeGaIntStack;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 行为ID表 <br>
+ * <p>
+ * 1. 增强类时为每个被增强的行为分配一个JVM唯一的int型ID，织入埋点的只有这个ID
+ * 2. 同一个ClassLoader中的同一个行为无论被增强多少次都分配同一个ID，所以增强后的字节码可以被缓存复用
+ * 3. ID是稠密的整数，直接作为数组下标，方法调用时通过ID获取行为元数据的读操作不加锁
+ * 4. 行为元数据只通过对象ID记录ClassLoader，解析出的行为是弱引用，不会妨碍业务类和ClassLoader的卸载
+ * 5. ClassLoader被回收后，它的类不会再被执行，下次登记行为时清理它的所有行为，行为ID留给之后登记的行为复用
+ * </p>
+ *
+ * @author luanjia@taobao.com
+ */
+public class BehaviorIDs {
+
+    // <行为:ID>映射表，只在增强类时访问
+    private final Map<BehaviorKey, Integer> behaviorIDMapping = new HashMap<BehaviorKey, Integer>();
+
+    // [behaviorID : 行为元数据]映射，数组只在分配ID时加锁扩容，读操作无锁
+    private volatile AtomicReferenceArray<BehaviorMetaImpl> behaviorMetaMapping
+            = new AtomicReferenceArray<BehaviorMetaImpl>(1024);
+
+    private int behaviorIDSequence = 0;
+
+    // ClassLoader对象ID:该ClassLoader中登记的行为，弱引用ClassLoader，被回收后进入队列等待清理
+    private final Map<Integer, LoaderBehaviors> loaderBehaviorsMapping = new HashMap<Integer, LoaderBehaviors>();
+    private final ReferenceQueue<ClassLoader> collectedLoaderQueue = new ReferenceQueue<ClassLoader>();
+
+    // 已清理、可以复用的行为ID
+    private final GaIntStack freeBehaviorIDs = new ThreadUnsafeGaIntStack();
+
+    private BehaviorIDs() {
+
+    }
+
+    /**
+     * 登记行为并分配行为ID
+     * <p>
+     * 如果行为之前已经登记，则会返回之前已经分配的ID
+     * </p>
+     *
+     * @param targetClassLoaderObjectID 行为所在ClassLoader的对象ID
+     * @param javaClassName             行为所在的类名称
+     * @param javaMethodName            行为名称
+     * @param javaMethodDesc            行为签名
+     * @return 行为ID
+     */
+    public synchronized int register(final int targetClassLoaderObjectID,
+                                     final String javaClassName,
+                                     final String javaMethodName,
+                                     final String javaMethodDesc) {
+        expungeCollectedLoaders();
+        final BehaviorKey key = new BehaviorKey(targetClassLoaderObjectID, javaClassName, javaMethodName, javaMethodDesc);
+        final Integer existedBehaviorID = behaviorIDMapping.get(key);
+        if (null != existedBehaviorID) {
+            return existedBehaviorID;
+        }
+
+        final int behaviorID = freeBehaviorIDs.isEmpty()
+                ? behaviorIDSequence++
+                : freeBehaviorIDs.pop();
+        AtomicReferenceArray<BehaviorMetaImpl> mapping = behaviorMetaMapping;
+        if (behaviorID >= mapping.length()) {
+            final AtomicReferenceArray<BehaviorMetaImpl> newMapping
+                    = new AtomicReferenceArray<BehaviorMetaImpl>(mapping.length() * 2);
+            for (int index = 0; index < mapping.length(); index++) {
+                newMapping.set(index, mapping.get(index));
+            }
+            behaviorMetaMapping = mapping = newMapping;
+        }
+
+        // 先映射[behaviorID : 行为元数据]，其他线程拿到ID时一定能找到行为元数据
+        mapping.set(behaviorID, new BehaviorMetaImpl(behaviorID, key));
+        behaviorIDMapping.put(key, behaviorID);
+        trackLoaderBehavior(targetClassLoaderObjectID, behaviorID);
+        return behaviorID;
+    }
+
+    // 记录ClassLoader中登记的行为，BootstrapClassLoader不会被回收，不需要记录
+    private void trackLoaderBehavior(final int targetClassLoaderObjectID,
+                                     final int behaviorID) {
+        if (ObjectIDs.NULL_ID == targetClassLoaderObjectID) {
+            return;
+        }
+        LoaderBehaviors loaderBehaviors = loaderBehaviorsMapping.get(targetClassLoaderObjectID);
+        if (null == loaderBehaviors) {
+            final ClassLoader loader = ObjectIDs.instance.getObject(targetClassLoaderObjectID);
+            if (null == loader) {
+                return;
+            }
+            loaderBehaviorsMapping.put(
+                    targetClassLoaderObjectID,
+                    loaderBehaviors = new LoaderBehaviors(targetClassLoaderObjectID, loader, collectedLoaderQueue)
+            );
+        }
+        loaderBehaviors.behaviorIDs.add(behaviorID);
+    }
+
+    // 清理已被回收的ClassLoader中登记的行为，必须在持有锁时调用
+    private void expungeCollectedLoaders() {
+        final AtomicReferenceArray<BehaviorMetaImpl> mapping = behaviorMetaMapping;
+        for (Object x; (x = collectedLoaderQueue.poll()) != null; ) {
+            final LoaderBehaviors loaderBehaviors = (LoaderBehaviors) x;
+            loaderBehaviorsMapping.remove(loaderBehaviors.loaderObjectID);
+            for (final int behaviorID : loaderBehaviors.behaviorIDs) {
+                final BehaviorMetaImpl behaviorMeta = mapping.get(behaviorID);
+                if (null != behaviorMeta) {
+                    behaviorIDMapping.remove(behaviorMeta.key);
+                    mapping.set(behaviorID, null);
+                    freeBehaviorIDs.push(behaviorID);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取已登记的行为个数
+     *
+     * @return 行为个数
+     */
+    public synchronized int size() {
+        expungeCollectedLoaders();
+        return behaviorIDMapping.size();
+    }
+
+    /**
+     * 根据行为ID获取行为元数据
+     *
+     * @param behaviorID 行为ID
+     * @return 行为元数据，如果行为ID从未分配或已被清理则返回null
+     */
+    public BehaviorMeta getBehaviorMeta(final int behaviorID) {
+        final AtomicReferenceArray<BehaviorMetaImpl> mapping = behaviorMetaMapping;
+        return behaviorID < 0 || behaviorID >= mapping.length()
+                ? null
+                : mapping.get(behaviorID);
+    }
+
+    /**
+     * ClassLoader中登记的行为
+     */
+    private static class LoaderBehaviors extends WeakReference<ClassLoader> {
+
+        private final int loaderObjectID;
+        private final List<Integer> behaviorIDs = new ArrayList<Integer>();
+
+        private LoaderBehaviors(final int loaderObjectID,
+                                final ClassLoader loader,
+                                final ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            this.loaderObjectID = loaderObjectID;
+        }
+
+    }
+
+    /**
+     * 行为KEY
+     */
+    private static class BehaviorKey {
+
+        private final int targetClassLoaderObjectID;
+        private final String javaClassName;
+        private final String javaMethodName;
+        private final String javaMethodDesc;
+
+        private BehaviorKey(final int targetClassLoaderObjectID,
+                            final String javaClassName,
+                            final String javaMethodName,
+                            final String javaMethodDesc) {
+            this.targetClassLoaderObjectID = targetClassLoaderObjectID;
+            this.javaClassName = javaClassName;
+            this.javaMethodName = javaMethodName;
+            this.javaMethodDesc = javaMethodDesc;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = targetClassLoaderObjectID;
+            result = 31 * result + javaClassName.hashCode();
+            result = 31 * result + javaMethodName.hashCode();
+            result = 31 * result + javaMethodDesc.hashCode();
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BehaviorKey)) {
+                return false;
+            }
+            final BehaviorKey key = (BehaviorKey) o;
+            return targetClassLoaderObjectID == key.targetClassLoaderObjectID
+                    && javaClassName.equals(key.javaClassName)
+                    && javaMethodName.equals(key.javaMethodName)
+                    && javaMethodDesc.equals(key.javaMethodDesc);
+        }
+
+    }
+
+    /**
+     * 行为元数据
+     */
+    private static class BehaviorMetaImpl implements BehaviorMeta {
+
+        private final int behaviorID;
+        private final BehaviorKey key;
+
+        // 第一次获取行为时才解析；行为中的Method会引用到业务类和ClassLoader，只能弱引用
+        private volatile WeakReference<Behavior> behaviorRef;
+
+        private BehaviorMetaImpl(final int behaviorID,
+                                 final BehaviorKey key) {
+            this.behaviorID = behaviorID;
+            this.key = key;
+        }
+
+        @Override
+        public int getBehaviorId() {
+            return behaviorID;
+        }
+
+        @Override
+        public ClassLoader getJavaClassLoader() {
+            return ObjectIDs.instance.getObject(key.targetClassLoaderObjectID);
+        }
+
+        @Override
+        public String getJavaClassName() {
+            return key.javaClassName;
+        }
+
+        @Override
+        public String getJavaMethodName() {
+            return key.javaMethodName;
+        }
+
+        @Override
+        public String getJavaMethodDesc() {
+            return key.javaMethodDesc;
+        }
+
+        @Override
+        public Behavior getBehavior() throws ClassNotFoundException, NoSuchMethodException {
+            final WeakReference<Behavior> reference = behaviorRef;
+            final Behavior existedBehavior = null == reference
+                    ? null
+                    : reference.get();
+            if (null != existedBehavior) {
+                return existedBehavior;
+            }
+            final Behavior behavior = toBehavior(toClass());
+            behaviorRef = new WeakReference<Behavior>(behavior);
+            return behavior;
+        }
+
+        // 行为所在的类一定已经被加载过，这里只是找到它
+        private Class<?> toClass() throws ClassNotFoundException {
+            final ClassLoader loader = getJavaClassLoader();
+            if (null == loader
+                    && ObjectIDs.NULL_ID != key.targetClassLoaderObjectID) {
+                throw new ClassNotFoundException(key.javaClassName);
+            }
+            return Class.forName(key.javaClassName, false, loader);
+        }
+
+        private Behavior toBehavior(final Class<?> clazz) throws NoSuchMethodException {
+            if ("<init>".equals(key.javaMethodName)) {
+                for (final Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+                    if (key.javaMethodDesc.equals(new BehaviorDescriptor(constructor).getDescriptor())) {
+                        return new Behavior.ConstructorImpl(constructor);
+                    }
+                }
+            } else {
+                for (final Method method : clazz.getDeclaredMethods()) {
+                    if (key.javaMethodName.equals(method.getName())
+                            && key.javaMethodDesc.equals(new BehaviorDescriptor(method).getDescriptor())) {
+                        return new Behavior.MethodImpl(method);
+                    }
+                }
+            }
+            throw new NoSuchMethodException(String.format("%s.%s(%s)", clazz.getName(), key.javaMethodName, key.javaMethodDesc));
+        }
+
+    }
+
+
+    /**
+     * 全局单例
+     */
+    public static final BehaviorIDs instance = new BehaviorIDs();
+
+}
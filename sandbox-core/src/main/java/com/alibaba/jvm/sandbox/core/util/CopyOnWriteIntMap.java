@@ -0,0 +1,166 @@
+package com.alibaba.jvm.sandbox.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以int为KEY的写时复制映射
+ * <p>
+ * 读操作不加锁也不装箱，直接在当前快照的开放寻址哈希表中查找；写操作加锁并整体替换快照。
+ * 哈希表的容量只取决于映射的个数，与KEY的取值大小无关，
+ * 适合KEY来自全局序列、取值稀疏，读远多于写的场景
+ * </p>
+ *
+ * @param <V> VAL
+ */
+public class CopyOnWriteIntMap<V> {
+
+    private static final int[] EMPTY_KEYS = new int[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    // 当前快照，keys与values一一对应，values中null表示空位
+    private volatile Snapshot snapshot = new Snapshot(EMPTY_KEYS, EMPTY_VALUES, 0);
+
+    /**
+     * 获取KEY对应的VALUE
+     *
+     * @param key KEY
+     * @return VALUE，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        final Snapshot current = snapshot;
+        final Object[] values = current.values;
+        if (values.length == 0) {
+            return null;
+        }
+        final int mask = values.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            final Object value = values[index];
+            if (null == value) {
+                return null;
+            }
+            if (current.keys[index] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * 放入映射
+     *
+     * @param key   KEY
+     * @param value VALUE，不能为null
+     * @return 原来的VALUE，不存在时返回null
+     */
+    public synchronized V put(final int key, final V value) {
+        if (null == value) {
+            throw new NullPointerException("value");
+        }
+        final V previous = get(key);
+        final List<Object> entries = entries(key);
+        entries.add(key);
+        entries.add(value);
+        snapshot = build(entries);
+        return previous;
+    }
+
+    /**
+     * 移除映射
+     *
+     * @param key KEY
+     * @return 被移除的VALUE，不存在时返回null
+     */
+    public synchronized V remove(final int key) {
+        final V previous = get(key);
+        if (null != previous) {
+            snapshot = build(entries(key));
+        }
+        return previous;
+    }
+
+    /**
+     * 获取映射的个数
+     *
+     * @return 映射的个数
+     */
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * 获取当前所有的VALUE
+     *
+     * @return VALUE集合的副本
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        final Object[] values = snapshot.values;
+        final List<V> result = new ArrayList<V>();
+        for (final Object value : values) {
+            if (null != value) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    // 列出当前快照中除了excludeKey之外的映射，KEY和VALUE交替排列
+    private List<Object> entries(final int excludeKey) {
+        final Snapshot current = snapshot;
+        final List<Object> entries = new ArrayList<Object>(current.size * 2 + 2);
+        for (int index = 0; index < current.values.length; index++) {
+            if (null != current.values[index]
+                    && current.keys[index] != excludeKey) {
+                entries.add(current.keys[index]);
+                entries.add(current.values[index]);
+            }
+        }
+        return entries;
+    }
+
+    // 根据映射重新构建快照，装载因子不超过1/2，保证查找时一定能遇到空位
+    private static Snapshot build(final List<Object> entries) {
+        final int size = entries.size() / 2;
+        if (size == 0) {
+            return new Snapshot(EMPTY_KEYS, EMPTY_VALUES, 0);
+        }
+        int capacity = 2;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        final int[] keys = new int[capacity];
+        final Object[] values = new Object[capacity];
+        final int mask = capacity - 1;
+        for (int entry = 0; entry < size; entry++) {
+            final int key = (Integer) entries.get(entry * 2);
+            int index = hash(key) & mask;
+            while (null != values[index]) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = entries.get(entry * 2 + 1);
+        }
+        return new Snapshot(keys, values, size);
+    }
+
+    private static int hash(final int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static class Snapshot {
+
+        private final int[] keys;
+        private final Object[] values;
+        private final int size;
+
+        Snapshot(final int[] keys, final Object[] values, final int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.alibaba.jvm.sandbox.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用ID序列发生器
+ * <p>
+ * 每个线程每次从全局序列中预留一段连续的ID，之后在线程内部分配，
+ * 只有预留的ID用完时才会访问全局序列，避免所有线程的每次调用都争用同一个计数器
+ * </p>
+ * <p>
+ * 事件处理时线程上下文已经查找过，通过{@link #next(SandboxThreadContext)}可以省去再一次查找ThreadLocal
+ * </p>
+ * <p>
+ * 调用ID是int型，分配范围为[{@code first},{@link Integer#MAX_VALUE}]，用完之后从{@code first}重新开始。
+ * 调用ID只需要在同时进行的调用之间保持唯一，循环之前的调用早已结束，所以重新分配不会冲突
+ * </p>
+ *
+ * @author luanjia@taobao.com
+ */
+public class InvokeIdSequencer {
+
+    /**
+     * 每个线程每次预留的ID个数
+     */
+    static final int BLOCK_SIZE = 1024;
+
+    private final int first;
+    private final long blockCount;
+
+    // 全局的预留序列，64位不会溢出
+    private final AtomicLong blockSequencer = new AtomicLong();
+
+    // 当前线程预留的ID区间[block[0],block[1])
+    // 使用JDK自带的类型，业务线程不会因此引用到沙箱的ClassLoader
+    private final ThreadLocal<int[]> blockRef = new ThreadLocal<int[]>();
+
+    /**
+     * 构造调用ID序列发生器
+     *
+     * @param first 第一个调用ID
+     */
+    public InvokeIdSequencer(final int first) {
+        if (first < 0) {
+            throw new IllegalArgumentException("first must not be negative, but was " + first);
+        }
+        this.first = first;
+        this.blockCount = ((long) Integer.MAX_VALUE - first) / BLOCK_SIZE;
+    }
+
+    /**
+     * 生成下一个调用ID
+     *
+     * @return 下一个调用ID
+     */
+    public int next() {
+        return next(currentBlock());
+    }
+
+    /**
+     * 生成下一个调用ID，预留的ID区间缓存在线程上下文中
+     *
+     * @param context 当前线程上下文
+     * @return 下一个调用ID
+     */
+    public int next(final SandboxThreadContext context) {
+        int[] block = context.getInvokeIdBlock();
+        if (null == block) {
+            context.setInvokeIdBlock(block = currentBlock());
+        }
+        return next(block);
+    }
+
+    private int next(final int[] block) {
+        if (block[0] == block[1]) {
+            reserve(block);
+        }
+        return block[0]++;
+    }
+
+    // 当前线程预留的ID区间，第一次获取时为空区间，分配时再预留
+    private int[] currentBlock() {
+        int[] block = blockRef.get();
+        if (null == block) {
+            blockRef.set(block = new int[2]);
+        }
+        return block;
+    }
+
+    // 从全局序列中预留一段ID
+    private void reserve(final int[] block) {
+        final long blockIndex = blockSequencer.getAndIncrement() % blockCount;
+        block[0] = first + (int) (blockIndex * BLOCK_SIZE);
+        block[1] = block[0] + BLOCK_SIZE;
+    }
+
+}
@@ -1,11 +1,10 @@
 package com.alibaba.jvm.sandbox.core.util;
 
+import com.google.common.collect.MapMaker;
+
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * 给指定的Java对象分配JVM唯一ID <br>
@@ -14,6 +13,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * 2. Object如果被GC回收，对应的ID会被失效，内存也会被释放
  * 3. int为[0,{@link Integer#MAX_VALUE}]之间的整数
  * 4. 这个类当前无需考虑对象溢出的情况，因为我不需要，我放入的对象数量很少，就这么简单
+ * 5. 对象按身份(==)映射，映射和反查的读操作都不加锁
  * </p>
  *
  * @author luanjia@taobao.com
@@ -30,24 +30,16 @@ public class ObjectIDs {
      */
     private final Sequencer objectIDSequencer = new Sequencer();
 
-    /**
-     * 全局读写锁:用于维护世界的和平
-     * <p>
-     * 用于维护{@link #identityObjectMapping}和{@link #objectIDMapping}之间数据的一致性
-     * </p>
-     */
-    private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
-
-    // 全局<对象:ID>映射表
-    private final WeakHashMap<Object, Integer> objectIDMapping
-            = new WeakHashMap<Object, Integer>();
+    // 全局<对象:ID>映射表，弱引用对象，按对象身份(==)比较，读操作无锁
+    private final ConcurrentMap<Object, Integer> objectIDMapping
+            = new MapMaker().weakKeys().makeMap();
 
 
-    // --- ObjectID : Object 的映射关系维护 ----------------------------------------+
-    private final ReferenceQueue<Object> rQueue = new ReferenceQueue<Object>(); //|
-    private final HashMap<Integer, IdentityWeakReference> identityObjectMapping //|
-            = new HashMap<Integer, IdentityWeakReference>();                    //|
-    // ---------------------------------------------------------------------------+
+    // [objectID : object]映射，对象ID来自全局序列，与观察ID、监听器分组ID等共用，取值稀疏，不能直接作为数组下标；
+    // 以int为KEY的写时复制映射，占用只与映射的个数有关，只在分配ID时加锁写入，读操作无锁
+    private final ReferenceQueue<Object> rQueue = new ReferenceQueue<Object>();
+    private final CopyOnWriteIntMap<IdentityWeakReference> identityObjectMapping
+            = new CopyOnWriteIntMap<IdentityWeakReference>();
 
 
     private ObjectIDs() {
@@ -71,67 +63,47 @@ public class ObjectIDs {
             return NULL_ID;
         }
 
-        rwLock.readLock().lock();
-        try {
-            final Integer objectID = objectIDMapping.get(object);
-            if (null != objectID) {
-                return objectID;
-            }
-        } finally {
-            rwLock.readLock().unlock();
-            expungeIdentityObjectMapping();
+        final Integer objectID = objectIDMapping.get(object);
+        if (null != objectID) {
+            return objectID;
         }
 
-        rwLock.writeLock().lock();
-        try {
-            final Integer nextObjectID;
-            if (objectIDMapping.containsKey(object)) {
-                nextObjectID = objectIDMapping.get(object);
-            } else {
-                mapping(
-                        nextObjectID = objectIDSequencer.next(),
-                        object
-                );
+        synchronized (this) {
+            expungeIdentityObjectMapping();
+            final Integer existedObjectID = objectIDMapping.get(object);
+            if (null != existedObjectID) {
+                return existedObjectID;
             }
+            final int nextObjectID = objectIDSequencer.next();
+            mapping(nextObjectID, object);
             return nextObjectID;
-        } finally {
-            rwLock.writeLock().unlock();
         }
     }
 
     /**
      * 维持{@code [object:objectID]}和{@code [objectID:object]}两个集合的映射关系
+     * <p>必须在持有锁时调用，先映射{@code [objectID:object]}，其他线程拿到ID时一定能映射回对象</p>
      *
      * @param objectID 对象ID
      * @param object   对象
      */
-    private void mapping(final Integer objectID,
+    private void mapping(final int objectID,
                          final Object object) {
-        rwLock.writeLock().lock();
-        try {
-            // 映射 [object : objectID]
-            objectIDMapping.put(object, objectID);
-
-            // 映射 [objectID : object]
-            identityObjectMapping.put(objectID, new IdentityWeakReference(objectID, object));
-        } finally {
-            rwLock.writeLock().unlock();
-        }
+
+        // 映射 [objectID : object]
+        identityObjectMapping.put(objectID, new IdentityWeakReference(objectID, object));
+
+        // 映射 [object : objectID]
+        objectIDMapping.put(object, objectID);
     }
 
     /**
      * 清理失效的 [objectID : object] 映射
+     * <p>必须在持有锁时调用；失效的映射在清理之前也只会映射回null，所以只在分配ID时清理</p>
      */
     private void expungeIdentityObjectMapping() {
         for (Object x; (x = rQueue.poll()) != null; ) {
-            synchronized (rQueue) {
-                rwLock.writeLock().lock();
-                try {
-                    identityObjectMapping.remove(((IdentityWeakReference) x).objectID);
-                } finally {
-                    rwLock.writeLock().unlock();
-                }
-            }
+            identityObjectMapping.remove(((IdentityWeakReference) x).objectID);
         }
     }
 
@@ -149,20 +121,10 @@ public class ObjectIDs {
             return null;
         }
 
-        rwLock.readLock().lock();
-        try {
-            final Object object;
-            final IdentityWeakReference reference = identityObjectMapping.get(objectID);
-            if (null != reference
-                    && null != (object = reference.get())) {
-                return (T) object;
-            } else {
-                return null;
-            }
-        } finally {
-            rwLock.readLock().unlock();
-            expungeIdentityObjectMapping();
-        }
+        final IdentityWeakReference reference = identityObjectMapping.get(objectID);
+        return null == reference
+                ? null
+                : (T) reference.get();
 
     }
 
@@ -170,9 +132,9 @@ public class ObjectIDs {
     private class IdentityWeakReference extends WeakReference<Object> {
 
         // 对应的对象ID
-        private final Integer objectID;
+        private final int objectID;
 
-        private IdentityWeakReference(final Integer objectID,
+        private IdentityWeakReference(final int objectID,
                                       final Object referent) {
             super(referent, rQueue);
             this.objectID = objectID;
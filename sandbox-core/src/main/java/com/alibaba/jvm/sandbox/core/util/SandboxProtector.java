@@ -6,13 +6,15 @@ import org.slf4j.LoggerFactory;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Sandbox守护者
  * <p>
  * 用来保护sandbox的操作所产生的事件不被响应
  * </p>
+ * <p>
+ * 守护区域的引用计数存放在{@link SandboxThreadContext}中
+ * </p>
  *
  * @author oldmanpushcart@gamil.com
  */
@@ -20,20 +22,13 @@ public class SandboxProtector {
 
     private Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final ThreadLocal<AtomicInteger> isInProtectingThreadLocal = new ThreadLocal<AtomicInteger>() {
-        @Override
-        protected AtomicInteger initialValue() {
-            return new AtomicInteger(0);
-        }
-    };
-
     /**
      * 进入守护区域
      *
      * @return 守护区域当前引用计数
      */
     public int enterProtecting() {
-        final int referenceCount = isInProtectingThreadLocal.get().getAndIncrement();
+        final int referenceCount = SandboxThreadContext.current().enterProtecting();
         if (logger.isDebugEnabled()) {
             logger.debug("thread:{} enter protect:{}", Thread.currentThread(), referenceCount);
         }
@@ -46,10 +41,12 @@ public class SandboxProtector {
      * @return 守护区域当前引用计数
      */
     public int exitProtecting() {
-        final int referenceCount = isInProtectingThreadLocal.get().decrementAndGet();
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        final int referenceCount = null == context
+                ? -1
+                : context.exitProtecting();
         assert referenceCount >= 0;
         if (referenceCount == 0) {
-            isInProtectingThreadLocal.remove();
             if (logger.isDebugEnabled()) {
                 logger.debug("thread:{} exit protect:{} with clean", Thread.currentThread(), referenceCount);
             }
@@ -69,7 +66,9 @@ public class SandboxProtector {
      * @return TRUE:在守护区域中；FALSE：非守护区域中
      */
     public boolean isInProtecting() {
-        return isInProtectingThreadLocal.get().get() > 0;
+        final SandboxThreadContext context = SandboxThreadContext.peek();
+        return null != context
+                && context.isInProtecting();
     }
 
     /**
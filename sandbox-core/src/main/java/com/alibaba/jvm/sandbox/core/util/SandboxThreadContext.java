@@ -0,0 +1,228 @@
+package com.alibaba.jvm.sandbox.core.util;
+
+import static java.lang.System.arraycopy;
+
+/**
+ * Sandbox线程上下文
+ * <p>
+ * 将守护区域引用计数、业务类加载器、事件处理单元集中存放在同一个线程上下文中，
+ * 事件处理时只需要查找一次ThreadLocal
+ * </p>
+ * <p>
+ * 上下文中所有的状态都被清空后，上下文会从当前线程中移除，
+ * 避免业务线程长期持有Sandbox的类，导致Sandbox卸载后ClassLoader无法回收
+ * </p>
+ */
+public class SandboxThreadContext {
+
+    private static final Object[] EMPTY_PROCESS_ARRAY = new Object[0];
+
+    private static final ThreadLocal<SandboxThreadContext> contextRef = new ThreadLocal<SandboxThreadContext>();
+
+    // 守护区域引用计数
+    private int protectingDepth = 0;
+
+    // 业务类加载器
+    private ClassLoader bizClassLoader;
+
+    // 事件处理单元，以事件处理器的槽位为下标
+    private Object[] processArray = EMPTY_PROCESS_ARRAY;
+
+    // 事件处理单元个数
+    private int processCount = 0;
+
+    // 监听器组在BEFORE/RETURN中已经完成分发的立即抛出异常
+    private Throwable groupThrowable;
+
+    // 当前线程预留的调用ID区间，由{@link InvokeIdSequencer}管理
+    private int[] invokeIdBlock;
+
+    private SandboxThreadContext() {
+    }
+
+    /**
+     * 获取当前线程上下文
+     *
+     * @return 当前线程上下文，如果当前线程尚未创建上下文则返回null
+     */
+    public static SandboxThreadContext peek() {
+        return contextRef.get();
+    }
+
+    /**
+     * 获取当前线程上下文，如果尚未创建则创建
+     *
+     * @return 当前线程上下文
+     */
+    public static SandboxThreadContext current() {
+        final SandboxThreadContext context = contextRef.get();
+        if (null != context) {
+            return context;
+        }
+        final SandboxThreadContext newContext = new SandboxThreadContext();
+        contextRef.set(newContext);
+        return newContext;
+    }
+
+    // 上下文状态已经全部清空，从当前线程中移除
+    private void removeIfIdle() {
+        if (protectingDepth == 0
+                && null == bizClassLoader
+                && processCount == 0
+                && null == groupThrowable
+                && contextRef.get() == this) {
+            contextRef.remove();
+        }
+    }
+
+    /**
+     * 进入守护区域
+     *
+     * @return 进入之前的守护区域引用计数
+     */
+    public int enterProtecting() {
+        return protectingDepth++;
+    }
+
+    /**
+     * 离开守护区域
+     *
+     * @return 离开之后的守护区域引用计数
+     */
+    public int exitProtecting() {
+        final int referenceCount = --protectingDepth;
+        removeIfIdle();
+        return referenceCount;
+    }
+
+    /**
+     * 判断当前是否处于守护区域中
+     *
+     * @return TRUE:在守护区域中；FALSE：非守护区域中
+     */
+    public boolean isInProtecting() {
+        return protectingDepth > 0;
+    }
+
+    /**
+     * 获取业务类加载器
+     *
+     * @return 业务类加载器
+     */
+    public ClassLoader getBizClassLoader() {
+        return bizClassLoader;
+    }
+
+    /**
+     * 设置业务类加载器
+     *
+     * @param bizClassLoader 业务类加载器，为null时清除
+     */
+    public void setBizClassLoader(final ClassLoader bizClassLoader) {
+        this.bizClassLoader = bizClassLoader;
+        if (null == bizClassLoader) {
+            removeIfIdle();
+        }
+    }
+
+    /**
+     * 获取事件处理单元
+     *
+     * @param slot 事件处理器槽位
+     * @return 事件处理单元，不存在则返回null
+     */
+    public Object getProcess(final int slot) {
+        return slot < processArray.length
+                ? processArray[slot]
+                : null;
+    }
+
+    /**
+     * 放置事件处理单元
+     *
+     * @param slot    事件处理器槽位
+     * @param process 事件处理单元
+     */
+    public void putProcess(final int slot, final Object process) {
+        if (slot >= processArray.length) {
+            final Object[] newProcessArray = new Object[Math.max(slot + 1, processArray.length * 2)];
+            arraycopy(processArray, 0, newProcessArray, 0, processArray.length);
+            processArray = newProcessArray;
+        }
+        if (null == processArray[slot]) {
+            processCount++;
+        }
+        processArray[slot] = process;
+    }
+
+    /**
+     * 移除事件处理单元
+     * <p>
+     * 只有当槽位上仍然是{@code process}时才会移除，避免误删槽位被复用后新放入的处理单元
+     * </p>
+     *
+     * @param slot    事件处理器槽位
+     * @param process 事件处理单元
+     */
+    public void removeProcess(final int slot, final Object process) {
+        if (slot < processArray.length
+                && processArray[slot] == process) {
+            processArray[slot] = null;
+            processCount--;
+            removeIfIdle();
+        }
+    }
+
+    /**
+     * 获取当前线程预留的调用ID区间
+     *
+     * @return 调用ID区间，尚未获取过则返回null
+     */
+    int[] getInvokeIdBlock() {
+        return invokeIdBlock;
+    }
+
+    /**
+     * 设置当前线程预留的调用ID区间
+     * <p>
+     * 区间本身另外保存在{@link InvokeIdSequencer}的ThreadLocal中，上下文被移除不会丢失，这里只是缓存
+     * </p>
+     *
+     * @param invokeIdBlock 调用ID区间
+     */
+    void setInvokeIdBlock(final int[] invokeIdBlock) {
+        this.invokeIdBlock = invokeIdBlock;
+    }
+
+    /**
+     * 标记监听器组已经分发过的立即抛出异常
+     * <p>
+     * 监听器组在BEFORE/RETURN中要求立即抛出异常时，异常会再次进入该组的THROWS埋点，
+     * 组内的监听器已经完成了异常的处理，THROWS埋点需要据此跳过
+     * </p>
+     *
+     * @param throwable 立即抛出的异常
+     */
+    public void markGroupThrowable(final Throwable throwable) {
+        this.groupThrowable = throwable;
+    }
+
+    /**
+     * 核对并清除监听器组已经分发过的立即抛出异常
+     *
+     * @param throwable 当前THROWS埋点捕获到的异常
+     * @return TRUE:该异常已经被监听器组分发过；FALSE:尚未分发
+     */
+    public boolean consumeGroupThrowable(final Throwable throwable) {
+        if (null == groupThrowable) {
+            return false;
+        }
+
+        // 标记只在立即抛出到进入THROWS埋点之间有效，无论是否命中都需要清除
+        final boolean isMarked = groupThrowable == throwable;
+        groupThrowable = null;
+        removeIfIdle();
+        return isMarked;
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.alibaba.jvm.sandbox.core.util.collection;
+
+/**
+ * int堆栈
+ * <p>
+ * {@link GaStack}的int特化版本，压栈出栈都不需要装箱
+ * </p>
+ */
+public interface GaIntStack {
+
+    int pop();
+
+    void push(int e);
+
+    int peek();
+
+    boolean isEmpty();
+
+    boolean isLast();
+
+    int peekLast();
+
+    int deep();
+
+}
@@ -0,0 +1,104 @@
+package com.alibaba.jvm.sandbox.core.util.collection;
+
+import java.util.NoSuchElementException;
+
+import static java.lang.System.arraycopy;
+
+/**
+ * 线程不安全不固定栈深的int堆栈实现
+ * 和{@link ThreadUnsafeGaStack}一致，但元素直接存放在int数组中，压栈出栈不会产生装箱对象
+ */
+public class ThreadUnsafeGaIntStack implements GaIntStack {
+
+    /**
+     * 空元素，出栈后的位置会被重置为该值
+     */
+    public final static int EMPTY_ELEMENT = 0;
+
+    private final static int EMPTY_INDEX = -1;
+    private final static int DEFAULT_STACK_DEEP = 12;
+
+    private int[] elementArray;
+    private int current = EMPTY_INDEX;
+
+    public ThreadUnsafeGaIntStack() {
+        this(DEFAULT_STACK_DEEP);
+    }
+
+    public ThreadUnsafeGaIntStack(int stackSize) {
+        this.elementArray = new int[stackSize];
+    }
+
+
+    /**
+     * 自动扩容
+     * 当前堆栈最大深度不满足期望时会自动扩容(2倍扩容)
+     *
+     * @param expectDeep 期望堆栈深度
+     */
+    private void ensureCapacityInternal(int expectDeep) {
+        final int currentStackSize = elementArray.length;
+        if (elementArray.length <= expectDeep) {
+            final int[] newElementArray = new int[currentStackSize * 2];
+            arraycopy(elementArray, 0, newElementArray, 0, currentStackSize);
+            this.elementArray = newElementArray;
+        }
+    }
+
+    private void checkForPopOrPeek() {
+        // stack is empty
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    @Override
+    public int pop() {
+        checkForPopOrPeek();
+        final int e = elementArray[current];
+        elementArray[current] = EMPTY_ELEMENT;
+        current--;
+        return e;
+    }
+
+    @Override
+    public void push(int e) {
+        ensureCapacityInternal(current + 1);
+        elementArray[++current] = e;
+    }
+
+    @Override
+    public int peek() {
+        checkForPopOrPeek();
+        return elementArray[current];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return current == EMPTY_INDEX;
+    }
+
+    @Override
+    public boolean isLast() {
+        return current == 0;
+    }
+
+    @Override
+    public int peekLast() {
+        checkForPopOrPeek();
+        return elementArray[0];
+    }
+
+    @Override
+    public int deep() {
+        return current + 1;
+    }
+
+    public int[] getElementArray() {
+        return elementArray;
+    }
+
+    public int getCurrent() {
+        return current;
+    }
+}
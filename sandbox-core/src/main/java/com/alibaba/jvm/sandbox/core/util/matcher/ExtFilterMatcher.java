@@ -1,11 +1,14 @@
 package com.alibaba.jvm.sandbox.core.util.matcher;
 
 import com.alibaba.jvm.sandbox.api.filter.AccessFlags;
+import com.alibaba.jvm.sandbox.api.filter.ClassNamePreFilter;
 import com.alibaba.jvm.sandbox.api.filter.ExtFilter;
 import com.alibaba.jvm.sandbox.api.filter.ExtFilter.ExtFilterFactory;
 import com.alibaba.jvm.sandbox.api.filter.Filter;
 import com.alibaba.jvm.sandbox.api.listener.ext.EventWatchCondition;
 import com.alibaba.jvm.sandbox.core.util.matcher.structure.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 
@@ -26,19 +29,21 @@ public class ExtFilterMatcher implements Matcher {
 
     private final ExtFilter extFilter;
 
+    // 类型:该类型或其祖先是否命中类过滤，只在匹配子类时使用
+    // 类结构已被全局缓存共享，以类结构实例为弱引用键，每个类型在一次观察中只需要过滤一次
+    private final Cache<ClassStructure, Boolean> hierarchyMatchedCache;
+
+    // 类名预过滤器，匹配子类时子类的类名不受约束，不能使用预过滤
+    private final ClassNamePreFilter classNamePreFilter;
+
     public ExtFilterMatcher(final ExtFilter extFilter) {
         this.extFilter = extFilter;
-    }
-
-    // 获取需要匹配的类结构
-    // 如果要匹配子类就需要将这个类的所有家族成员找出
-    private Collection<ClassStructure> getWaitingMatchClassStructures(final ClassStructure classStructure) {
-        final Collection<ClassStructure> waitingMatchClassStructures = new ArrayList<ClassStructure>();
-        waitingMatchClassStructures.add(classStructure);
-        if (extFilter.isIncludeSubClasses()) {
-            waitingMatchClassStructures.addAll(classStructure.getFamilyTypeClassStructures());
-        }
-        return waitingMatchClassStructures;
+        this.hierarchyMatchedCache = extFilter.isIncludeSubClasses()
+                ? CacheBuilder.newBuilder().weakKeys().<ClassStructure, Boolean>build()
+                : null;
+        this.classNamePreFilter = !extFilter.isIncludeSubClasses() && extFilter instanceof ClassNamePreFilter
+                ? (ClassNamePreFilter) extFilter
+                : null;
     }
 
     private String[] toJavaClassNameArray(final Collection<ClassStructure> classStructures) {
@@ -52,23 +57,49 @@ public class ExtFilterMatcher implements Matcher {
         return javaClassNames.toArray(new String[0]);
     }
 
-    private boolean matchingClassStructure(ClassStructure classStructure) {
-        for (final ClassStructure wmCs : getWaitingMatchClassStructures(classStructure)) {
-
-            // 匹配类结构
-            if (extFilter.doClassFilter(
-                    toFilterAccess(wmCs.getAccess()),
-                    wmCs.getJavaClassName(),
-                    null == wmCs.getSuperClassStructure()
-                            ? null
-                            : wmCs.getSuperClassStructure().getJavaClassName(),
-                    toJavaClassNameArray(wmCs.getFamilyInterfaceClassStructures()),
-                    toJavaClassNameArray(wmCs.getFamilyAnnotationTypeClassStructures())
-            )) {
-                return true;
+    // 匹配类结构自身
+    private boolean matchingSelfClassStructure(final ClassStructure classStructure) {
+        return extFilter.doClassFilter(
+                toFilterAccess(classStructure.getAccess()),
+                classStructure.getJavaClassName(),
+                null == classStructure.getSuperClassStructure()
+                        ? null
+                        : classStructure.getSuperClassStructure().getJavaClassName(),
+                toJavaClassNameArray(classStructure.getFamilyInterfaceClassStructures()),
+                toJavaClassNameArray(classStructure.getFamilyAnnotationTypeClassStructures())
+        );
+    }
+
+    // 匹配类结构及其所有家族成员
+    // 家族成员即直接父类和直接接口的家族成员，所以只需要沿直接父类和直接接口向上查找，
+    // 已经查找过的类型直接返回结果，不再重复展开整个家族
+    private boolean matchingHierarchyClassStructure(final ClassStructure classStructure) {
+        final Boolean isMatched = hierarchyMatchedCache.getIfPresent(classStructure);
+        if (null != isMatched) {
+            return isMatched;
+        }
+        boolean isHierarchyMatched = matchingSelfClassStructure(classStructure);
+        if (!isHierarchyMatched
+                && null != classStructure.getSuperClassStructure()) {
+            isHierarchyMatched = matchingHierarchyClassStructure(classStructure.getSuperClassStructure());
+        }
+        if (!isHierarchyMatched) {
+            for (final ClassStructure interfaceClassStructure : classStructure.getInterfaceClassStructures()) {
+                if (matchingHierarchyClassStructure(interfaceClassStructure)) {
+                    isHierarchyMatched = true;
+                    break;
+                }
             }
         }
-        return false;
+        hierarchyMatchedCache.put(classStructure, isHierarchyMatched);
+        return isHierarchyMatched;
+    }
+
+    // 如果要匹配子类，则这个类的任意家族成员命中即可
+    private boolean matchingClassStructure(final ClassStructure classStructure) {
+        return extFilter.isIncludeSubClasses()
+                ? matchingHierarchyClassStructure(classStructure)
+                : matchingSelfClassStructure(classStructure);
     }
 
     @Override
@@ -99,6 +130,12 @@ public class ExtFilterMatcher implements Matcher {
 
     }
 
+    @Override
+    public boolean preMatching(final String javaClassName) {
+        return null == classNamePreFilter
+                || classNamePreFilter.doClassNamePreFilter(javaClassName);
+    }
+
     private MatchingResult _matching(final ClassStructure classStructure) {
         final MatchingResult result = new MatchingResult();
         // 如果不开启加载Bootstrap的类，遇到就过滤掉
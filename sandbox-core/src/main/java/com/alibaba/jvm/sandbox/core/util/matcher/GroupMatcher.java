@@ -32,6 +32,19 @@ public abstract class GroupMatcher implements Matcher {
             return result;
         }
 
+        @Override
+        public boolean preMatching(final String javaClassName) {
+            if (null == matcherArray) {
+                return false;
+            }
+            for (final Matcher subMatcher : matcherArray) {
+                if (subMatcher.preMatching(javaClassName)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
     }
 
     public static final class And extends GroupMatcher {
@@ -69,6 +82,19 @@ public abstract class GroupMatcher implements Matcher {
             return result;
         }
 
+        @Override
+        public boolean preMatching(final String javaClassName) {
+            if (null == matcherArray) {
+                return false;
+            }
+            for (final Matcher subMatcher : matcherArray) {
+                if (!subMatcher.preMatching(javaClassName)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
     }
 
 }
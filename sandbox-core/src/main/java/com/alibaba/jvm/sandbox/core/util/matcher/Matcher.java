@@ -20,4 +20,13 @@ public interface Matcher {
      */
     MatchingResult matching(ClassStructure classStructure);
 
+    /**
+     * 根据类名预匹配
+     * <p>在构造类结构之前调用，用于快速排除一定不会匹配的类</p>
+     *
+     * @param javaClassName 类名
+     * @return TRUE:可能匹配，需要继续构造类结构进行匹配;FALSE:一定不会匹配
+     */
+    boolean preMatching(String javaClassName);
+
 }
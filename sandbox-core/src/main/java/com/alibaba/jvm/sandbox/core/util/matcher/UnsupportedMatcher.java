@@ -31,9 +31,9 @@ public class UnsupportedMatcher implements Matcher {
     /*
      * 是否因sandbox容器本身缺陷所暂时无法支持的类
      */
-    private boolean isUnsupportedClass(final ClassStructure classStructure) {
+    private boolean isUnsupportedClass(final String javaClassName) {
         return StringUtils.containsAny(
-                classStructure.getJavaClassName(),
+                javaClassName,
                 "$$Lambda$",
                 "$$FastClassBySpringCGLIB$$",
                 "$$EnhancerBySpringCGLIB$$",
@@ -45,9 +45,11 @@ public class UnsupportedMatcher implements Matcher {
     /*
      * 是否是sandbox容器本身的类
      * 因为多命名空间的原因，所以这里不能简单的用ClassLoader来进行判断
+     * 和{@code SandboxClassUtils}一致，测试用例的类不算作sandbox容器本身的类
      */
-    private boolean isJvmSandboxClass(final ClassStructure classStructure) {
-        return classStructure.getJavaClassName().startsWith("com.alibaba.jvm.sandbox.");
+    private boolean isJvmSandboxClass(final String javaClassName) {
+        return javaClassName.startsWith("com.alibaba.jvm.sandbox.")
+                && !javaClassName.startsWith("com.alibaba.jvm.sandbox.qatest.");
     }
 
     private Set<String> takeJavaClassNames(final Set<ClassStructure> classStructures) {
@@ -107,8 +109,8 @@ public class UnsupportedMatcher implements Matcher {
     @Override
     public MatchingResult matching(final ClassStructure classStructure) {
         final MatchingResult result = new MatchingResult();
-        if (isUnsupportedClass(classStructure)
-                || isJvmSandboxClass(classStructure)
+        if (isUnsupportedClass(classStructure.getJavaClassName())
+                || isJvmSandboxClass(classStructure.getJavaClassName())
                 || isFromStealthClassLoader()
                 || isStealthClass(classStructure)) {
             return result;
@@ -124,6 +126,12 @@ public class UnsupportedMatcher implements Matcher {
     }
 
 
+    @Override
+    public boolean preMatching(final String javaClassName) {
+        return !isUnsupportedClass(javaClassName)
+                && !isJvmSandboxClass(javaClassName);
+    }
+
     /**
      * 构造AND关系的组匹配
      * <p>
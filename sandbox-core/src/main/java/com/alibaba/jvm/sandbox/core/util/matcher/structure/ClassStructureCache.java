@@ -0,0 +1,216 @@
+package com.alibaba.jvm.sandbox.core.util.matcher.structure;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * 类结构缓存
+ * <p>
+ * 所有观察、类形变共享同一份类结构缓存，以(ClassLoader,类名)为键，
+ * ClassLoader只被弱引用，类结构被软引用，缓存总量按类结构占用的内存估算值限制。
+ * 类结构本身也只弱引用类和ClassLoader，所以缓存不会阻止业务ClassLoader被回收
+ * </p>
+ * <p>
+ * ClassLoader被回收后，对应的缓存会在下一次写入缓存时清理；
+ * 模块卸载时可以通过{@link #invalidate(ClassLoader)}主动清理
+ * </p>
+ */
+public class ClassStructureCache {
+
+    /**
+     * 缓存的最小容量(字节)
+     */
+    private static final long MIN_MAXIMUM_WEIGHT = 8L * 1024 * 1024;
+
+    /**
+     * JDK实现的类结构不持有字节码，按固定大小估算
+     */
+    private static final int WEIGHT_OF_JDK = 512;
+
+    /**
+     * ASM实现的类结构在字节码之外的额外开销
+     */
+    private static final int WEIGHT_OF_ASM_OVERHEAD = 256;
+
+    /**
+     * 全局单例
+     */
+    public static final ClassStructureCache instance = new ClassStructureCache(
+            Math.max(MIN_MAXIMUM_WEIGHT, Runtime.getRuntime().maxMemory() / 64)
+    );
+
+    // 已被回收的ClassLoader
+    private final ReferenceQueue<ClassLoader> collectedLoaderQueue = new ReferenceQueue<ClassLoader>();
+
+    private final long maximumWeight;
+    private final Cache<Key, ClassStructure> cache;
+
+    ClassStructureCache(final long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher(new Weigher<Key, ClassStructure>() {
+                    @Override
+                    public int weigh(Key key, ClassStructure classStructure) {
+                        return classStructure instanceof ClassStructureImplByAsm
+                                ? ((ClassStructureImplByAsm) classStructure).getClassByteArrayLength() + WEIGHT_OF_ASM_OVERHEAD
+                                : WEIGHT_OF_JDK;
+                    }
+                })
+                .softValues()
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取已缓存的ASM实现的类结构
+     *
+     * @param loader        加载类的ClassLoader
+     * @param javaClassName 类名
+     * @return 类结构，不存在时返回null
+     */
+    ClassStructure getByAsm(final ClassLoader loader, final String javaClassName) {
+        return cache.getIfPresent(new Key(loader, javaClassName, false, null));
+    }
+
+    /**
+     * 缓存ASM实现的类结构
+     *
+     * @param loader         加载类的ClassLoader
+     * @param javaClassName  类名
+     * @param classStructure 类结构
+     */
+    void putByAsm(final ClassLoader loader, final String javaClassName, final ClassStructure classStructure) {
+        put(new Key(loader, javaClassName, false, collectedLoaderQueue), classStructure);
+    }
+
+    /**
+     * 获取JDK实现的类结构，不存在时构造并缓存
+     *
+     * @param clazz 目标类
+     * @return 类结构
+     */
+    ClassStructure getByJDK(final Class<?> clazz) {
+        final ClassStructure existClassStructure = cache.getIfPresent(new Key(clazz.getClassLoader(), clazz.getName(), true, null));
+        if (null != existClassStructure) {
+            return existClassStructure;
+        }
+        final ClassStructure classStructure = new ClassStructureImplByJDK(clazz);
+        put(new Key(clazz.getClassLoader(), clazz.getName(), true, collectedLoaderQueue), classStructure);
+        return classStructure;
+    }
+
+    private void put(final Key key, final ClassStructure classStructure) {
+        expungeCollectedLoaders();
+        cache.put(key, classStructure);
+    }
+
+    // 清理ClassLoader已被回收的缓存，被回收的键只与自己相等
+    private void expungeCollectedLoaders() {
+        Reference<? extends ClassLoader> reference;
+        while (null != (reference = collectedLoaderQueue.poll())) {
+            cache.invalidate(reference);
+        }
+    }
+
+    /**
+     * 清理指定ClassLoader的所有类结构
+     *
+     * @param loader ClassLoader
+     */
+    public void invalidate(final ClassLoader loader) {
+        for (final Key key : cache.asMap().keySet()) {
+            if (!key.isBootstrap
+                    && key.get() == loader) {
+                cache.invalidate(key);
+            }
+        }
+        expungeCollectedLoaders();
+    }
+
+    /**
+     * 获取缓存的最大容量
+     *
+     * @return 最大容量(字节估算值)
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * 获取已缓存的类结构个数
+     *
+     * @return 类结构个数
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * 获取缓存命中统计
+     *
+     * @return 命中统计
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 缓存键
+     * <p>弱引用ClassLoader，ClassLoader被回收后的键只与自己相等</p>
+     */
+    private static class Key extends WeakReference<ClassLoader> {
+
+        private final boolean isBootstrap;
+        private final String javaClassName;
+        private final boolean isByJDK;
+        private final int hashCode;
+
+        Key(final ClassLoader loader,
+            final String javaClassName,
+            final boolean isByJDK,
+            final ReferenceQueue<ClassLoader> queue) {
+            super(loader, null == loader ? null : queue);
+            this.isBootstrap = null == loader;
+            this.javaClassName = javaClassName;
+            this.isByJDK = isByJDK;
+            this.hashCode = 31 * (31 * System.identityHashCode(loader) + javaClassName.hashCode()) + (isByJDK ? 1 : 0);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) obj;
+            if (hashCode != key.hashCode
+                    || isBootstrap != key.isBootstrap
+                    || isByJDK != key.isByJDK
+                    || !StringUtils.equals(javaClassName, key.javaClassName)) {
+                return false;
+            }
+            if (isBootstrap) {
+                return true;
+            }
+            final ClassLoader loader = get();
+            return null != loader && loader == key.get();
+        }
+
+    }
+
+}
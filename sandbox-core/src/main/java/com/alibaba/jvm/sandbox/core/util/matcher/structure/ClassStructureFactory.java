@@ -22,10 +22,10 @@ public class ClassStructureFactory {
      * 通过Class类来构造类结构
      *
      * @param clazz 目标Class类
-     * @return JDK实现的类结构
+     * @return JDK实现的类结构，同一个类的类结构会被{@link ClassStructureCache}缓存复用
      */
     public static ClassStructure createClassStructure(final Class<?> clazz) {
-        return new ClassStructureImplByJDK(clazz);
+        return ClassStructureCache.instance.getByJDK(clazz);
     }
 
     /**
@@ -57,4 +57,17 @@ public class ClassStructureFactory {
         return new ClassStructureImplByAsm(classByteArray, loader);
     }
 
+    /**
+     * 通过类名从ClassLoader中获取类结构
+     * <p>同一个ClassLoader中的同名类结构会被{@link ClassStructureCache}缓存复用</p>
+     *
+     * @param javaClassName 类名
+     * @param loader        类所在的ClassLoader
+     * @return ASM实现的类结构，找不到类资源时返回null
+     */
+    public static ClassStructure createClassStructure(final String javaClassName,
+                                                      final ClassLoader loader) {
+        return ClassStructureImplByAsm.getOrLoad(loader, javaClassName);
+    }
+
 }
@@ -2,10 +2,7 @@ package com.alibaba.jvm.sandbox.core.util.matcher.structure;
 
 import com.alibaba.jvm.sandbox.api.util.LazyGet;
 import com.alibaba.jvm.sandbox.core.util.BitUtils;
-import com.alibaba.jvm.sandbox.core.util.collection.Pair;
 import com.alibaba.jvm.sandbox.core.util.matcher.structure.PrimitiveClassStructure.Primitive;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.objectweb.asm.*;
@@ -14,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -231,10 +229,13 @@ class ArrayClassStructure extends EmptyClassStructure {
  */
 public class ClassStructureImplByAsm extends FamilyClassStructure {
 
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private static final Logger logger = LoggerFactory.getLogger(ClassStructureImplByAsm.class);
     private final ClassReader classReader;
-    private final ClassLoader loader;
+    // 类结构会被ClassStructureCache缓存，只弱引用ClassLoader，避免缓存钉住业务ClassLoader
+    private final WeakReference<ClassLoader> loaderRef;
+    private final boolean isBootstrap;
     private final Access access;
+    private final int classByteArrayLength;
 
     ClassStructureImplByAsm(final InputStream classInputStream,
                             final ClassLoader loader) throws IOException {
@@ -244,8 +245,19 @@ public class ClassStructureImplByAsm extends FamilyClassStructure {
     ClassStructureImplByAsm(final byte[] classByteArray,
                             final ClassLoader loader) {
         this.classReader = new ClassReader(classByteArray);
-        this.loader = loader;
+        this.loaderRef = new WeakReference<ClassLoader>(loader);
+        this.isBootstrap = null == loader;
         this.access = fixAccess();
+        this.classByteArrayLength = classByteArray.length;
+    }
+
+    /**
+     * 获取类字节码长度，用于估算类结构占用的内存
+     *
+     * @return 类字节码长度
+     */
+    int getClassByteArrayLength() {
+        return classByteArrayLength;
     }
 
     /**
@@ -267,29 +279,53 @@ public class ClassStructureImplByAsm extends FamilyClassStructure {
         return new AccessImplByAsm(accessRef.get());
     }
 
-    private boolean isBootstrapClassLoader() {
-        return null == loader;
-    }
-
     // 获取资源数据流
     // 一般而言可以从loader直接获取，如果获取不到那么这个类也会能加载成功
     // 但如果遇到来自BootstrapClassLoader的类就必须从java.lang.Object来获取
-    private InputStream getResourceAsStream(final String resourceName) {
-        return isBootstrapClassLoader()
+    private static InputStream getResourceAsStream(final ClassLoader loader, final String resourceName) {
+        return null == loader
                 ? Object.class.getResourceAsStream("/" + resourceName)
                 : loader.getResourceAsStream(resourceName);
     }
 
     // 将内部类名称转换为资源名称
-    private String internalClassNameToResourceName(final String internalClassName) {
+    private static String internalClassNameToResourceName(final String internalClassName) {
         return internalClassName + ".class";
     }
 
-    private final static Cache<Pair, ClassStructure> classStructureCache
-            = CacheBuilder.newBuilder().maximumSize(1024).build();
+    /**
+     * 从ClassLoader中获取类结构
+     * <p>优先从{@link ClassStructureCache}中获取，不存在时读取类资源构造并缓存</p>
+     *
+     * @param loader        ClassLoader
+     * @param javaClassName 类名
+     * @return 类结构，出现异常或者找不到时返回null
+     */
+    static ClassStructure getOrLoad(final ClassLoader loader, final String javaClassName) {
 
-//    private final static GaLRUCache<Pair, ClassStructure> classStructureCache
-//            = new GaLRUCache<Pair, ClassStructure>(1024);
+        final ClassStructure existClassStructure = ClassStructureCache.instance.getByAsm(loader, javaClassName);
+        if (null != existClassStructure) {
+            return existClassStructure;
+        }
+
+        final InputStream is = getResourceAsStream(loader, internalClassNameToResourceName(toInternalClassName(javaClassName)));
+        if (null != is) {
+            try {
+                final ClassStructure classStructure = new ClassStructureImplByAsm(is, loader);
+                ClassStructureCache.instance.putByAsm(loader, javaClassName, classStructure);
+                return classStructure;
+            } catch (Throwable cause) {
+                // ignore
+                logger.warn("new instance class structure by using ASM failed, will return null. class={};loader={};",
+                        javaClassName, loader, cause);
+            } finally {
+                IOUtils.closeQuietly(is);
+            }
+        }
+
+        // 出现异常或者找不到
+        return null;
+    }
 
     // 构造一个类结构实例
     private ClassStructure newInstance(final String javaClassName) {
@@ -310,31 +346,7 @@ public class ClassStructureImplByAsm extends FamilyClassStructure {
             return new PrimitiveClassStructure(primitive);
         }
 
-        final Pair pair = new Pair(loader, javaClassName);
-        final ClassStructure existClassStructure = classStructureCache.getIfPresent(pair);
-        if (null != existClassStructure) {
-            return existClassStructure;
-        } else {
-
-            final InputStream is = getResourceAsStream(internalClassNameToResourceName(toInternalClassName(javaClassName)));
-            if (null != is) {
-                try {
-                    final ClassStructure classStructure = new ClassStructureImplByAsm(is, loader);
-                    classStructureCache.put(pair, classStructure);
-                    return classStructure;
-                } catch (Throwable cause) {
-                    // ignore
-                    logger.warn("new instance class structure by using ASM failed, will return null. class={};loader={};",
-                            javaClassName, loader, cause);
-                    classStructureCache.put(pair, null);
-                } finally {
-                    IOUtils.closeQuietly(is);
-                }
-            }
-        }
-
-        // 出现异常或者找不到
-        return null;
+        return getOrLoad(getClassLoader(), javaClassName);
     }
 
     // 构造一个类结构实例数组
@@ -364,6 +376,11 @@ public class ClassStructureImplByAsm extends FamilyClassStructure {
 
     @Override
     public ClassLoader getClassLoader() {
+        final ClassLoader loader = loaderRef.get();
+        if (null == loader
+                && !isBootstrap) {
+            throw new IllegalStateException("loader of class " + getJavaClassName() + " was collected.");
+        }
         return loader;
     }
 
@@ -3,6 +3,7 @@ package com.alibaba.jvm.sandbox.core.util.matcher.structure;
 import com.alibaba.jvm.sandbox.api.util.LazyGet;
 
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -105,21 +106,34 @@ class AccessImplByJDKBehavior extends ModifierAccess {
 
 /**
  * 用JDK的反射实现的类结构
+ * <p>
+ * 类结构会被{@link ClassStructureCache}缓存，所以只弱引用目标类，避免缓存通过类结构钉住业务ClassLoader；
+ * 类被卸载时它的ClassLoader也已被回收，缓存中对应的类结构不会再被查找到
+ * </p>
  */
 public class ClassStructureImplByJDK extends FamilyClassStructure {
 
-    private final Class<?> clazz;
-    private String javaClassName;
+    private final WeakReference<Class<?>> clazzRef;
+    private final String javaClassName;
 
     public ClassStructureImplByJDK(final Class<?> clazz) {
-        this.clazz = clazz;
+        this.clazzRef = new WeakReference<Class<?>>(clazz);
+        this.javaClassName = getJavaClassName(clazz);
+    }
+
+    private Class<?> getClazz() {
+        final Class<?> clazz = clazzRef.get();
+        if (null == clazz) {
+            throw new IllegalStateException("class " + javaClassName + " was unloaded.");
+        }
+        return clazz;
     }
 
     private ClassStructure newInstance(final Class<?> clazz) {
         if (null == clazz) {
             return null;
         }
-        return new ClassStructureImplByJDK(clazz);
+        return ClassStructureCache.instance.getByJDK(clazz);
     }
 
     private List<ClassStructure> newInstances(final Class[] classArray) {
@@ -137,9 +151,7 @@ public class ClassStructureImplByJDK extends FamilyClassStructure {
 
     @Override
     public String getJavaClassName() {
-        return null != javaClassName
-                ? javaClassName
-                : (javaClassName = getJavaClassName(clazz));
+        return javaClassName;
     }
 
     private String getJavaClassName(Class<?> clazz) {
@@ -152,11 +164,12 @@ public class ClassStructureImplByJDK extends FamilyClassStructure {
 
     @Override
     public ClassLoader getClassLoader() {
-        return clazz.getClassLoader();
+        return getClazz().getClassLoader();
     }
 
     @Override
     public ClassStructure getSuperClassStructure() {
+        final Class<?> clazz = getClazz();
         // 过滤掉Object.class
         return Object.class.equals(clazz.getSuperclass())
                 ? null
@@ -165,7 +178,7 @@ public class ClassStructureImplByJDK extends FamilyClassStructure {
 
     @Override
     public List<ClassStructure> getInterfaceClassStructures() {
-        return newInstances(clazz.getInterfaces());
+        return newInstances(getClazz().getInterfaces());
     }
 
     private Class[] getAnnotationTypeArray(final Annotation[] annotationArray) {
@@ -187,7 +200,7 @@ public class ClassStructureImplByJDK extends FamilyClassStructure {
             = new LazyGet<List<ClassStructure>>() {
         @Override
         protected List<ClassStructure> initialValue() {
-            return Collections.unmodifiableList(newInstances(getAnnotationTypeArray(clazz.getDeclaredAnnotations())));
+            return Collections.unmodifiableList(newInstances(getAnnotationTypeArray(getClazz().getDeclaredAnnotations())));
         }
     };
 
@@ -224,6 +237,7 @@ public class ClassStructureImplByJDK extends FamilyClassStructure {
             = new LazyGet<List<BehaviorStructure>>() {
         @Override
         protected List<BehaviorStructure> initialValue() {
+            final Class<?> clazz = getClazz();
             final List<BehaviorStructure> behaviorStructures = new ArrayList<BehaviorStructure>();
             for (final Constructor<?> constructor : clazz.getDeclaredConstructors()) {
                 behaviorStructures.add(newBehaviorStructure(constructor));
@@ -242,7 +256,7 @@ public class ClassStructureImplByJDK extends FamilyClassStructure {
 
     @Override
     public Access getAccess() {
-        return new AccessImplByJDKClass(clazz);
+        return new AccessImplByJDKClass(getClazz());
     }
 
     @Override
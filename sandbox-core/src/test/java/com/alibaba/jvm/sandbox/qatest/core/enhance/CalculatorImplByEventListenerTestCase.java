@@ -12,6 +12,9 @@ import com.alibaba.jvm.sandbox.qatest.core.util.JvmHelper.ThirdTransformer;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.alibaba.jvm.sandbox.api.ProcessController.returnImmediately;
 import static com.alibaba.jvm.sandbox.api.ProcessController.throwsImmediately;
 import static com.alibaba.jvm.sandbox.api.event.Event.Type.*;
@@ -20,6 +23,8 @@ import static com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator.Test
 import static com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator.TestCase.SUM$EXCEPTION;
 import static com.alibaba.jvm.sandbox.qatest.core.util.CalculatorHelper.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
 public class CalculatorImplByEventListenerTestCase implements ICalculatorTestCase {
 
@@ -996,4 +1001,242 @@ public class CalculatorImplByEventListenerTestCase implements ICalculatorTestCas
             RETURN
         );
     }
+
+    @Test
+    public void cal$sum$mergedEnhance() throws Throwable {
+        final TracingEventListener aroundListener;
+        final TracingEventListener callListener;
+        final LineNumTracingEventListener lineListener;
+        final Class<?> calculatorClass = JvmHelper
+                .createJvm()
+                .defineClassByMergedEnhance(
+                        Calculator.class,
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                aroundListener = new TracingEventListener(),
+                                BEFORE, RETURN, THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                callListener = new TracingEventListener(),
+                                CALL_BEFORE, CALL_RETURN, CALL_THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                lineListener = new LineNumTracingEventListener(),
+                                LINE
+                        )
+                )
+                .loadClass(CALCULATOR_CLASS_NAME);
+
+        assertEquals(30, sum(newInstance(calculatorClass), 10, 20));
+        aroundListener.assertEventTracing(
+                BEFORE,
+                RETURN
+        );
+        callListener.assertEventTracing(
+                CALL_BEFORE,
+                CALL_RETURN,
+                CALL_BEFORE,
+                CALL_RETURN
+        );
+        lineListener.assertLIneTracing(
+                93,
+                96,
+                97,
+                98,
+                97,
+                98,
+                97,
+                100
+        );
+    }
+
+    @Test
+    public void cal$sum$spyMerge() throws Throwable {
+        final TracingEventListener aroundListener;
+        final TracingEventListener callListener;
+        final LineNumTracingEventListener lineListener;
+        final Class<?> calculatorClass = JvmHelper
+                .createJvm()
+                .defineClassBySpyMerge(
+                        Calculator.class,
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                aroundListener = new TracingEventListener(),
+                                BEFORE, RETURN, THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                callListener = new TracingEventListener(),
+                                CALL_BEFORE, CALL_RETURN, CALL_THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                lineListener = new LineNumTracingEventListener(),
+                                LINE
+                        )
+                )
+                .loadClass(CALCULATOR_CLASS_NAME);
+
+        assertEquals(30, sum(newInstance(calculatorClass), 10, 20));
+        aroundListener.assertEventTracing(
+                BEFORE,
+                RETURN
+        );
+        callListener.assertEventTracing(
+                CALL_BEFORE,
+                CALL_RETURN,
+                CALL_BEFORE,
+                CALL_RETURN
+        );
+        lineListener.assertLIneTracing(
+                93,
+                96,
+                97,
+                98,
+                97,
+                98,
+                97,
+                100
+        );
+    }
+
+    @Test
+    public void cal$sum$spyMerge$before$returnImmediately() throws Throwable {
+        final TracingEventListener innerListener;
+        final TracingEventListener listener;
+        final TracingEventListener outerListener;
+        final Class<?> calculatorClass = JvmHelper
+                .createJvm()
+                .defineClassBySpyMerge(
+                        Calculator.class,
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                innerListener = new TracingEventListener(),
+                                BEFORE, RETURN, THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                listener = new TracingEventListener() {
+                                    @Override
+                                    public void onEvent(Event event) throws Throwable {
+                                        super.onEvent(event);
+                                        if (event.type == BEFORE) {
+                                            returnImmediately(100);
+                                        }
+                                    }
+                                },
+                                BEFORE, RETURN, THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                outerListener = new TracingEventListener(),
+                                BEFORE, RETURN, THROWS
+                        )
+                )
+                .loadClass(CALCULATOR_CLASS_NAME);
+
+        assertEquals(100, sum(newInstance(calculatorClass), 10, 20));
+        innerListener.assertEventTracing();
+        listener.assertEventTracing(
+                BEFORE
+        );
+        outerListener.assertEventTracing(
+                BEFORE,
+                RETURN
+        );
+    }
+
+    @Test
+    public void cal$sum$spyMerge$return$throwsImmediately() throws Throwable {
+        final TracingEventListener innerListener;
+        final TracingEventListener listener;
+        final TracingEventListener outerListener;
+        final Class<?> calculatorClass = JvmHelper
+                .createJvm()
+                .defineClassBySpyMerge(
+                        Calculator.class,
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                innerListener = new TracingEventListener(),
+                                BEFORE, RETURN, THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                listener = new TracingEventListener() {
+                                    @Override
+                                    public void onEvent(Event event) throws Throwable {
+                                        super.onEvent(event);
+                                        if (event.type == RETURN) {
+                                            throwsImmediately(new Throwable(ERROR_EXCEPTION_MESSAGE));
+                                        }
+                                    }
+                                },
+                                BEFORE, RETURN, THROWS
+                        ),
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                outerListener = new TracingEventListener(),
+                                BEFORE, RETURN, THROWS
+                        )
+                )
+                .loadClass(CALCULATOR_CLASS_NAME);
+
+        try {
+            sum(newInstance(calculatorClass), 10, 20);
+            fail();
+        } catch (Throwable throwable) {
+            assertEquals(ERROR_EXCEPTION_MESSAGE, throwable.getMessage());
+        }
+        innerListener.assertEventTracing(
+                BEFORE,
+                RETURN
+        );
+        listener.assertEventTracing(
+                BEFORE,
+                RETURN
+        );
+        outerListener.assertEventTracing(
+                BEFORE,
+                THROWS
+        );
+    }
+
+    @Test
+    public void cal$sum$before$withoutParameters() throws Throwable {
+        final List<Object[]> argumentArrays = new ArrayList<Object[]>();
+        final List<Object> targets = new ArrayList<Object>();
+        final TracingEventListener listener;
+        final Class<?> calculatorClass = JvmHelper
+                .createJvm()
+                .defineClass(
+                        Calculator.class,
+                        new JvmHelper.Transformer(
+                                CALCULATOR_SUM_FILTER,
+                                listener = new TracingEventListener() {
+                                    @Override
+                                    public void onEvent(Event event) throws Throwable {
+                                        super.onEvent(event);
+                                        if (event.type == BEFORE) {
+                                            argumentArrays.add(((BeforeEvent) event).argumentArray);
+                                            targets.add(((BeforeEvent) event).target);
+                                        }
+                                    }
+                                },
+                                BEFORE, RETURN, THROWS
+                        ).withoutParameters()
+                )
+                .loadClass(CALCULATOR_CLASS_NAME);
+
+        assertEquals(30, sum(newInstance(calculatorClass), 10, 20));
+        listener.assertEventTracing(
+                BEFORE,
+                RETURN
+        );
+        assertEquals(1, argumentArrays.size());
+        assertEquals(0, argumentArrays.get(0).length);
+        assertNull(targets.get(0));
+    }
+
 }
@@ -0,0 +1,86 @@
+package com.alibaba.jvm.sandbox.qatest.core.enhance;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.core.enhance.EnhanceUnit;
+import com.alibaba.jvm.sandbox.core.enhance.EnhancedByteCodeCache;
+import com.alibaba.jvm.sandbox.core.enhance.EventEnhancer;
+import com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.List;
+
+import static com.alibaba.jvm.sandbox.qatest.core.util.QaClassUtils.toByteArray;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.*;
+
+public class EnhancedByteCodeCacheTestCase {
+
+    private final ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+    private final EnhancedByteCodeCache cache = new EnhancedByteCodeCache();
+
+    private static List<EnhanceUnit> toEnhanceUnits(final int listenerId) {
+        return Collections.singletonList(new EnhanceUnit(
+                listenerId,
+                singleton(Calculator.class.getName() + "#sum(int[])"),
+                new Event.Type[]{Event.Type.BEFORE}
+        ));
+    }
+
+    private byte[] enhance(final ClassLoader loader,
+                           final byte[] srcByteCodeArray,
+                           final List<EnhanceUnit> enhanceUnits) {
+        return new EventEnhancer(cache).toByteCodeArray(loader, srcByteCodeArray, "test", enhanceUnits);
+    }
+
+    @Test
+    public void test$$hit$$sameEnhanceUnits() throws IOException {
+        final byte[] srcByteCodeArray = toByteArray(Calculator.class);
+        final byte[] toByteCodeArray = enhance(loader, srcByteCodeArray, toEnhanceUnits(1001));
+
+        final long hitCount = cache.stats().hitCount();
+        final byte[] cachedByteCodeArray = enhance(loader, srcByteCodeArray.clone(), toEnhanceUnits(1001));
+        assertTrue(cache.stats().hitCount() > hitCount);
+        assertNotSame(toByteCodeArray, cachedByteCodeArray);
+        assertArrayEquals(toByteCodeArray, cachedByteCodeArray);
+    }
+
+    @Test
+    public void test$$miss$$otherEnhanceUnits() throws IOException {
+        final byte[] srcByteCodeArray = toByteArray(Calculator.class);
+        enhance(loader, srcByteCodeArray, toEnhanceUnits(1002));
+
+        final long hitCount = cache.stats().hitCount();
+        enhance(loader, srcByteCodeArray, toEnhanceUnits(1003));
+        assertEquals(hitCount, cache.stats().hitCount());
+    }
+
+    @Test
+    public void test$$miss$$otherLoader() throws IOException {
+        final byte[] srcByteCodeArray = toByteArray(Calculator.class);
+        enhance(loader, srcByteCodeArray, toEnhanceUnits(1004));
+
+        final long hitCount = cache.stats().hitCount();
+        enhance(new URLClassLoader(new URL[0], getClass().getClassLoader()), srcByteCodeArray, toEnhanceUnits(1004));
+        assertEquals(hitCount, cache.stats().hitCount());
+    }
+
+    @Test
+    public void test$$invalidate() throws IOException {
+        final byte[] srcByteCodeArray = toByteArray(Calculator.class);
+        enhance(loader, srcByteCodeArray, toEnhanceUnits(1005));
+        enhance(loader, srcByteCodeArray, toEnhanceUnits(1006));
+        assertEquals(2, cache.size());
+
+        // 只清理包含已删除监听器的缓存
+        cache.invalidate(Collections.singleton(1005));
+        assertEquals(1, cache.size());
+        final long hitCount = cache.stats().hitCount();
+        enhance(loader, srcByteCodeArray, toEnhanceUnits(1006));
+        assertEquals(hitCount + 1, cache.stats().hitCount());
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.alibaba.jvm.sandbox.qatest.core.enhance;
+
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import org.junit.Test;
+
+import java.com.alibaba.jvm.sandbox.spy.Spy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class EventListenerHandlerTestCase {
+
+    @Test
+    public void test$$onBefore$$unregisteredBehavior() throws Throwable {
+        final EventListenerHandler handler = new EventListenerHandler();
+        final List<Event> events = Collections.synchronizedList(new ArrayList<Event>());
+        final EventListener listener = new EventListener() {
+            @Override
+            public void onEvent(Event event) {
+                events.add(event);
+            }
+        };
+        final int listenerId = ObjectIDs.instance.identity(listener);
+        handler.active(listenerId, listener, new Event.Type[]{Event.Type.BEFORE});
+
+        // 在新线程中执行，保证线程中原本没有上下文
+        final AtomicReference<Object> resultRef = new AtomicReference<Object>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final Spy.Ret ret = handler.handleOnBefore(listenerId, -1, new Object[0], null);
+                    resultRef.set(Spy.Ret.RET_STATE_NONE == ret.state
+                            ? SandboxThreadContext.peek()
+                            : ret);
+                } catch (Throwable cause) {
+                    resultRef.set(cause);
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+
+        // 行为没有登记时直接返回，不创建调用过程，也不在线程中遗留上下文
+        assertNull(resultRef.get());
+        assertTrue(events.isEmpty());
+    }
+
+}
@@ -1,5 +1,6 @@
 package com.alibaba.jvm.sandbox.qatest.core.manager;
 
+import com.alibaba.jvm.sandbox.api.filter.ClassNamePreFilter;
 import com.alibaba.jvm.sandbox.api.filter.ExtFilter;
 import com.alibaba.jvm.sandbox.api.filter.NameRegexFilter;
 import com.alibaba.jvm.sandbox.core.manager.CoreLoadedClassDataSource;
@@ -9,8 +10,9 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.*;
+
+import static java.util.Arrays.asList;
 
 class MockLoadedClassesOnlyInstrumentation extends EmptyInstrumentation {
 
@@ -282,4 +284,107 @@ public class CoreLoadedClassDataSourceTestCase {
 
     }
 
+    @Test
+    public void test$$CoreLoadedClassDataSource$$findSubClasses$$filterOncePerType() {
+        final Map<String, Integer> classFilterCounts = new HashMap<String, Integer>();
+        final Set<Class<?>> foundClasses = coreLoadedClassDataSource.find(
+                new NameRegexWithSubClassesExtFilter(
+                        "com\\.alibaba\\.jvm\\.sandbox\\.qatest\\.core\\.manager\\.CoreLoadedClassDataSourceTestCase\\$Human",
+                        ".*"
+                ) {
+                    @Override
+                    public boolean doClassFilter(int access,
+                                                 String javaClassName,
+                                                 String superClassTypeJavaClassName,
+                                                 String[] interfaceTypeJavaClassNameArray,
+                                                 String[] annotationTypeJavaClassNameArray) {
+                        final Integer count = classFilterCounts.get(javaClassName);
+                        classFilterCounts.put(javaClassName, null == count ? 1 : count + 1);
+                        return super.doClassFilter(access, javaClassName, superClassTypeJavaClassName, interfaceTypeJavaClassNameArray, annotationTypeJavaClassNameArray);
+                    }
+                }
+        );
+        Assert.assertEquals(7, foundClasses.size());
+
+        // 家族成员共享的祖先只需要过滤一次
+        for (final Map.Entry<String, Integer> entry : classFilterCounts.entrySet()) {
+            Assert.assertEquals(entry.getKey(), 1, entry.getValue().intValue());
+        }
+        Assert.assertTrue(classFilterCounts.containsKey(Human.class.getName()));
+
+    }
+
+    @Test
+    public void test$$CoreLoadedClassDataSource$$findInParallel() {
+
+        // 重复注册已加载类，让类的个数足以触发并行扫描
+        final MockLoadedClassesOnlyInstrumentation manyLoadedClassesInstrumentation = new MockLoadedClassesOnlyInstrumentation() {
+            @Override
+            public Class[] getAllLoadedClasses() {
+                final List<Class<?>> classes = new ArrayList<Class<?>>();
+                for (int index = 0; index < 1000; index++) {
+                    classes.addAll(mockInstrumentation.loadedClasses);
+                }
+                return classes.toArray(new Class<?>[]{});
+            }
+        };
+
+        final NameRegexWithSubClassesExtFilter filter = new NameRegexWithSubClassesExtFilter(
+                "com\\.alibaba\\.jvm\\.sandbox\\.qatest\\.core\\.manager\\.CoreLoadedClassDataSourceTestCase\\$Woman",
+                ".*"
+        );
+        final Set<Class<?>> serialFoundClasses = coreLoadedClassDataSource.find(filter);
+        final Set<Class<?>> parallelFoundClasses = new DefaultCoreLoadedClassDataSource(manyLoadedClassesInstrumentation, false, 4)
+                .find(filter);
+        Assert.assertEquals(5, parallelFoundClasses.size());
+        Assert.assertEquals(new ArrayList<Class<?>>(serialFoundClasses), new ArrayList<Class<?>>(parallelFoundClasses));
+
+    }
+
+    static class NameRegexPreFilter extends NameRegexFilter implements ClassNamePreFilter {
+
+        private final String javaNameRegex;
+        final Set<String> classFilteredJavaClassNames = new LinkedHashSet<String>();
+
+        NameRegexPreFilter(String javaNameRegex, String javaMethodRegex) {
+            super(javaNameRegex, javaMethodRegex);
+            this.javaNameRegex = javaNameRegex;
+        }
+
+        @Override
+        public boolean doClassNamePreFilter(String javaClassName) {
+            return javaClassName.matches(javaNameRegex);
+        }
+
+        @Override
+        public boolean doClassFilter(int access,
+                                     String javaClassName,
+                                     String superClassTypeJavaClassName,
+                                     String[] interfaceTypeJavaClassNameArray,
+                                     String[] annotationTypeJavaClassNameArray) {
+            classFilteredJavaClassNames.add(javaClassName);
+            return super.doClassFilter(access, javaClassName, superClassTypeJavaClassName, interfaceTypeJavaClassNameArray, annotationTypeJavaClassNameArray);
+        }
+
+    }
+
+    @Test
+    public void test$$CoreLoadedClassDataSource$$findByClassNamePreFilter() {
+        final NameRegexPreFilter filter = new NameRegexPreFilter(
+                "com\\.alibaba\\.jvm\\.sandbox\\.qatest\\.core\\.manager\\.CoreLoadedClassDataSourceTestCase\\$.*[M|m]an",
+                ".*"
+        );
+        final Set<Class<?>> foundClasses = coreLoadedClassDataSource.find(filter);
+        Assert.assertEquals(3, foundClasses.size());
+        Assert.assertTrue(foundClasses.contains(Human.class));
+        Assert.assertTrue(foundClasses.contains(Man.class));
+        Assert.assertTrue(foundClasses.contains(Woman.class));
+
+        // 类名预过滤没有命中的类不再进行类过滤
+        Assert.assertEquals(
+                new LinkedHashSet<String>(asList(Human.class.getName(), Man.class.getName(), Woman.class.getName())),
+                filter.classFilteredJavaClassNames
+        );
+    }
+
 }
@@ -0,0 +1,32 @@
+package com.alibaba.jvm.sandbox.qatest.core.manager;
+
+import com.alibaba.jvm.sandbox.api.Module;
+import com.alibaba.jvm.sandbox.api.resource.CacheMonitor;
+import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
+
+import javax.annotation.Resource;
+
+/**
+ * 持有注入的事件观察者的模块
+ * <p>
+ * 本类不打入模块JAR，由测试用例的ClassLoader加载，
+ * 测试用例可以通过本类拿到模块中注入的事件观察者
+ * </p>
+ */
+public abstract class EventWatcherModule implements Module {
+
+    @Resource
+    private ModuleEventWatcher moduleEventWatcher;
+
+    @Resource
+    private CacheMonitor cacheMonitor;
+
+    public ModuleEventWatcher getModuleEventWatcher() {
+        return moduleEventWatcher;
+    }
+
+    public CacheMonitor getCacheMonitor() {
+        return cacheMonitor;
+    }
+
+}
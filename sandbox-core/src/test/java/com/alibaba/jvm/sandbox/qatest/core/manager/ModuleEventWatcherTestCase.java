@@ -0,0 +1,414 @@
+package com.alibaba.jvm.sandbox.qatest.core.manager;
+
+import com.alibaba.jvm.sandbox.api.Information;
+import com.alibaba.jvm.sandbox.api.event.BeforeEvent;
+import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.filter.Filter;
+import com.alibaba.jvm.sandbox.api.filter.NameRegexFilter;
+import com.alibaba.jvm.sandbox.api.listener.EventListener;
+import com.alibaba.jvm.sandbox.api.listener.ext.EventWatchCondition;
+import com.alibaba.jvm.sandbox.api.resource.CacheMonitor;
+import com.alibaba.jvm.sandbox.api.resource.ModuleEventWatcher;
+import com.alibaba.jvm.sandbox.core.CoreConfigure;
+import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
+import com.alibaba.jvm.sandbox.core.manager.CoreModuleManager;
+import com.alibaba.jvm.sandbox.core.manager.impl.DefaultCoreLoadedClassDataSource;
+import com.alibaba.jvm.sandbox.core.manager.impl.DefaultCoreModuleManager;
+import com.alibaba.jvm.sandbox.core.util.FeatureCodec;
+import com.alibaba.jvm.sandbox.core.util.SpyUtils;
+import com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator;
+import com.alibaba.jvm.sandbox.qatest.core.enhance.target.MyCalculator;
+import com.alibaba.jvm.sandbox.qatest.core.mock.EmptyProviderManager;
+import com.alibaba.jvm.sandbox.qatest.core.mock.ReTransformInstrumentation;
+import com.alibaba.jvm.sandbox.qatest.core.util.JvmHelper;
+import com.alibaba.jvm.sandbox.qatest.core.util.SandboxModuleJarBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+import java.com.alibaba.jvm.sandbox.spy.Spy;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.jvm.sandbox.api.event.Event.Type.BEFORE;
+import static com.alibaba.jvm.sandbox.api.event.Event.Type.RETURN;
+import static com.alibaba.jvm.sandbox.qatest.core.util.QaClassUtils.toByteArray;
+import static java.io.File.createTempFile;
+import static org.junit.Assert.*;
+
+/**
+ * 通过模块注入的事件观察者，在真实的合并类形变器上完成观察和删除观察
+ */
+public class ModuleEventWatcherTestCase {
+
+    private static final String NAMESPACE = "qatest-module-event-watcher";
+
+    @Information(id = "event-watcher-module")
+    public static class WatcherModule extends EventWatcherModule {
+
+    }
+
+    private final ReTransformInstrumentation inst = new ReTransformInstrumentation();
+    private CoreModuleManager coreModuleManager;
+
+    @After
+    public void unloadAll() {
+        if (null != coreModuleManager) {
+            coreModuleManager.unloadAll();
+        }
+    }
+
+    private ModuleEventWatcher buildingModuleEventWatcher(final String... features) throws Exception {
+        final File moduleJarFile = SandboxModuleJarBuilder
+                .building(createTempFile("test-", ".jar"))
+                .putModuleClass(WatcherModule.class)
+                .build();
+        final Map<String, String> featureMap = new HashMap<String, String>();
+        featureMap.put("namespace", NAMESPACE);
+        featureMap.put("user_module", moduleJarFile.getPath());
+        featureMap.put("system_module", System.getProperty("user.home"));
+        for (int index = 0; index + 1 < features.length; index += 2) {
+            featureMap.put(features[index], features[index + 1]);
+        }
+        final CoreConfigure cfg = CoreConfigure.toConfigure(new FeatureCodec(';', '=').toString(featureMap), null);
+        SpyUtils.init(NAMESPACE);
+        Spy.isSpyThrowException = true;
+        coreModuleManager = new DefaultCoreModuleManager(
+                cfg,
+                inst,
+                new DefaultCoreLoadedClassDataSource(inst, false),
+                new EmptyProviderManager()
+        ).reset();
+        return ((EventWatcherModule) coreModuleManager.get("event-watcher-module").getModule()).getModuleEventWatcher();
+    }
+
+    private static EventWatchCondition toCondition(final String javaMethodNameRegex) {
+        return toCondition(Calculator.class.getName().replace(".", "\\."), javaMethodNameRegex);
+    }
+
+    private static EventWatchCondition toCondition(final String javaClassNameRegex,
+                                                   final String javaMethodNameRegex) {
+        return new EventWatchCondition() {
+            @Override
+            public Filter[] getOrFilterArray() {
+                return new Filter[]{
+                        new NameRegexFilter(javaClassNameRegex, javaMethodNameRegex)
+                };
+            }
+        };
+    }
+
+    // 将类最近一次形变后的字节码定义到新的ClassLoader中
+    private Class<?> defineTransformedClass(final Class<?> clazz) throws Exception {
+        final byte[] byteCodes = inst.getByteCodes(clazz);
+        assertNotNull(byteCodes);
+        return new JvmHelper(NAMESPACE)
+                .defineClass(clazz.getName(), byteCodes)
+                .loadClass(clazz.getName());
+    }
+
+    /**
+     * 记录收到的事件，BEFORE事件同时记录参数个数
+     */
+    private static class RecordingEventListener implements EventListener {
+
+        private final List<String> records = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void onEvent(Event event) {
+            if (event instanceof BeforeEvent) {
+                final BeforeEvent beforeEvent = (BeforeEvent) event;
+                records.add(event.type + ":" + beforeEvent.javaMethodName + ":" + beforeEvent.argumentArray.length);
+            } else {
+                records.add(event.type.name());
+            }
+        }
+
+    }
+
+    /**
+     * 记录形变进度，成功记录为"index:类名"，失败记录为"index:类名:FAILED"
+     */
+    private static class RecordingProgress implements ModuleEventWatcher.Progress {
+
+        private final List<String> records = new ArrayList<String>();
+        private int total = -1;
+
+        @Override
+        public void begin(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public void progressOnSuccess(Class<?> clazz, int index) {
+            records.add(index + ":" + clazz.getName());
+        }
+
+        @Override
+        public void progressOnFailed(Class<?> clazz, int index, Throwable cause) {
+            records.add(index + ":" + clazz.getName() + ":FAILED");
+        }
+
+        @Override
+        public void finish(int cCnt, int mCnt) {
+
+        }
+
+    }
+
+    @Test
+    public void test$$reTransform$$bisectFailedClass() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher();
+        inst.regLoadedClass(
+                Calculator.class,
+                MyCalculator.class,
+                Calculator.CalculatorException.class,
+                Calculator.TestCase.class
+        );
+        inst.regReTransformFailedClass(Calculator.CalculatorException.class);
+
+        final RecordingProgress progress = new RecordingProgress();
+        watcher.watch(
+                toCondition("com\\.alibaba\\.jvm\\.sandbox\\.qatest\\.core\\.enhance\\.target\\..*Calculator.*", ".*"),
+                new RecordingEventListener(),
+                progress,
+                BEFORE
+        );
+
+        // 整批失败后对半拆开：[0,2)成功，[2,3)定位出失败的类，[3,4)成功
+        assertEquals(4, progress.total);
+        assertEquals(
+                Arrays.asList(
+                        "1:" + Calculator.class.getName(),
+                        "2:" + MyCalculator.class.getName(),
+                        "3:" + Calculator.CalculatorException.class.getName() + ":FAILED",
+                        "4:" + Calculator.TestCase.class.getName()
+                ),
+                progress.records
+        );
+        assertEquals(
+                Arrays.asList(
+                        Arrays.asList(Calculator.class.getName(), MyCalculator.class.getName()),
+                        Collections.singletonList(Calculator.TestCase.class.getName())
+                ),
+                inst.getReTransformBatches()
+        );
+
+        // 其余的类仍然形变成功
+        final Class<?> calculatorClass = defineTransformedClass(Calculator.class);
+        assertNotNull(calculatorClass);
+        assertNotNull(inst.getByteCodes(MyCalculator.class));
+        assertNotNull(inst.getByteCodes(Calculator.TestCase.class));
+        assertNull(inst.getByteCodes(Calculator.CalculatorException.class));
+    }
+
+    @Test
+    public void test$$spyMerge$$mergeByBehavior() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher("spy.merge.enable", "true");
+        inst.regLoadedClass(Calculator.class);
+
+        final int groupCount = EventListenerHandler.getSingleton().getListenerGroupCount();
+
+        // A:add和report，不需要参数；B:add，需要参数，还观察RETURN；C:report，不需要参数
+        final RecordingEventListener listenerA = new RecordingEventListener();
+        final RecordingEventListener listenerB = new RecordingEventListener();
+        final RecordingEventListener listenerC = new RecordingEventListener();
+        final int watchIdA = watcher.watch(toCondition("(add|report)"), listenerA, null, true, BEFORE);
+        watcher.watch(toCondition("add"), listenerB, null, false, BEFORE, RETURN);
+        watcher.watch(toCondition("report"), listenerC, null, true, BEFORE);
+
+        // add上是{A,B}，report上是{A,C}，各注册为一个监听器组
+        assertEquals(groupCount + 2, EventListenerHandler.getSingleton().getListenerGroupCount());
+
+        final Class<?> calculatorClass = defineTransformedClass(Calculator.class);
+        final Object calculator = calculatorClass.newInstance();
+        calculatorClass.getMethod("add", int.class, int.class).invoke(calculator, 1, 2);
+        calculatorClass.getMethod("report", String.class).invoke(calculator, "sandbox");
+
+        // 组内有需要参数的监听器，埋点构造参数；组内监听器都不需要参数时不构造参数
+        assertEquals(listenerA.records.toString(), 2, listenerA.records.size());
+        assertEquals("BEFORE:add:2", listenerA.records.get(0));
+        assertEquals("BEFORE:report:0", listenerA.records.get(1));
+
+        // 监听器组埋入的事件类型是组内监听器的并集，B能收到RETURN；B没有观察report
+        assertEquals(listenerB.records.toString(), 2, listenerB.records.size());
+        assertEquals("BEFORE:add:2", listenerB.records.get(0));
+        assertEquals("RETURN", listenerB.records.get(1));
+
+        // C没有观察add
+        assertEquals(listenerC.records.toString(), 1, listenerC.records.size());
+        assertEquals("BEFORE:report:0", listenerC.records.get(0));
+
+        // 删除A之后，A参与的监听器组都被释放，重新形变后不再需要监听器组
+        watcher.delete(watchIdA);
+        assertEquals(groupCount, EventListenerHandler.getSingleton().getListenerGroupCount());
+
+        listenerB.records.clear();
+        listenerC.records.clear();
+        final Class<?> restoredCalculatorClass = defineTransformedClass(Calculator.class);
+        final Object restoredCalculator = restoredCalculatorClass.newInstance();
+        restoredCalculatorClass.getMethod("add", int.class, int.class).invoke(restoredCalculator, 1, 2);
+        restoredCalculatorClass.getMethod("report", String.class).invoke(restoredCalculator, "sandbox");
+        assertEquals(2, listenerB.records.size());
+        assertEquals(1, listenerC.records.size());
+        assertEquals(2, listenerA.records.size());
+    }
+
+    @Test
+    public void test$$spyMerge$$disabled() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher();
+        inst.regLoadedClass(Calculator.class);
+
+        final int groupCount = EventListenerHandler.getSingleton().getListenerGroupCount();
+        final RecordingEventListener listenerA = new RecordingEventListener();
+        final RecordingEventListener listenerB = new RecordingEventListener();
+        watcher.watch(toCondition("add"), listenerA, null, true, BEFORE);
+        watcher.watch(toCondition("add"), listenerB, null, false, BEFORE);
+
+        // 未开启合并埋点时每个监听器单独埋点，各自决定是否构造参数
+        assertEquals(groupCount, EventListenerHandler.getSingleton().getListenerGroupCount());
+        final Class<?> calculatorClass = defineTransformedClass(Calculator.class);
+        calculatorClass.getMethod("add", int.class, int.class).invoke(calculatorClass.newInstance(), 1, 2);
+        assertEquals(Collections.singletonList("BEFORE:add:0"), listenerA.records);
+        assertEquals(Collections.singletonList("BEFORE:add:2"), listenerB.records);
+    }
+
+    @Test
+    public void test$$delete$$classEnhancedOnFirstLoad() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher();
+
+        // 观察时类还没有加载
+        final int watchId = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        assertTrue(inst.getReTransformBatches().isEmpty());
+
+        // 类首次加载时被增强，此时还没有Class对象，只能按类名记录
+        final byte[] byteCodes = toByteArray(Calculator.class);
+        assertNotSame(byteCodes, inst.loadClass(Calculator.class.getClassLoader(), Calculator.class.getName(), byteCodes));
+        inst.regLoadedClass(Calculator.class);
+
+        // 删除时按类名找回这个类并重新形变
+        final RecordingProgress progress = new RecordingProgress();
+        watcher.delete(watchId, progress);
+        assertEquals(1, progress.total);
+        assertEquals(Collections.singletonList("1:" + Calculator.class.getName()), progress.records);
+        assertEquals(
+                Collections.singletonList(Collections.singletonList(Calculator.class.getName())),
+                inst.getReTransformBatches()
+        );
+    }
+
+    /**
+     * 单独定义Calculator的ClassLoader，可以在测试中被回收
+     */
+    private static class CollectableClassLoader extends ClassLoader {
+
+        CollectableClassLoader() {
+            super(Calculator.class.getClassLoader());
+        }
+
+        Class<?> defineCalculator() throws IOException {
+            final byte[] byteCodeArray = toByteArray(Calculator.class);
+            return defineClass(Calculator.class.getName(), byteCodeArray, 0, byteCodeArray.length);
+        }
+
+    }
+
+    // 观察另一个ClassLoader中的Calculator，只返回ClassLoader的弱引用
+    private WeakReference<ClassLoader> watchInCollectableLoader(final ModuleEventWatcher watcher,
+                                                                final int[] watchIdRef) throws Throwable {
+        final CollectableClassLoader loader = new CollectableClassLoader();
+        final Class<?> calculatorClass = loader.defineCalculator();
+        inst.regLoadedClass(calculatorClass);
+        watchIdRef[0] = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        assertEquals(1, inst.getReTransformBatches().size());
+        inst.unRegLoadedClass(calculatorClass);
+        return new WeakReference<ClassLoader>(loader);
+    }
+
+    @Test
+    public void test$$delete$$loaderCollected() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher();
+        final int[] watchIdRef = new int[1];
+        final WeakReference<ClassLoader> loaderRef = watchInCollectableLoader(watcher, watchIdRef);
+        for (int count = 0; count < 50 && null != loaderRef.get(); count++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        // 观察只弱引用增强过的类，ClassLoader被回收后删除观察时没有需要重新形变的类
+        assertNull(loaderRef.get());
+        final RecordingProgress progress = new RecordingProgress();
+        watcher.delete(watchIdRef[0], progress);
+        assertEquals(0, progress.total);
+        assertTrue(progress.records.isEmpty());
+        assertEquals(1, inst.getReTransformBatches().size());
+    }
+
+    // 获取增强字节码缓存的信息，未启用缓存时返回null
+    private CacheMonitor.CacheInfo getEnhancedByteCodeCacheInfo() {
+        final CacheMonitor cacheMonitor = ((EventWatcherModule) coreModuleManager.get("event-watcher-module").getModule()).getCacheMonitor();
+        for (final CacheMonitor.CacheInfo cacheInfo : cacheMonitor.listCacheInfos()) {
+            if ("enhanced-bytecode".equals(cacheInfo.getName())) {
+                return cacheInfo;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void test$$enhancedByteCodeCache$$disabled() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher();
+        inst.regLoadedClass(Calculator.class);
+        watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        assertNull(getEnhancedByteCodeCacheInfo());
+    }
+
+    @Test
+    public void test$$enhancedByteCodeCache$$hitOnlyForLiveListeners() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher("enhance.cache.enable", "true");
+        inst.regLoadedClass(Calculator.class);
+
+        // 长期存在的观察A之上临时添加观察B，缓存中有A、A+B两种编织结果
+        final int watchIdA = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        final int watchIdB = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        assertEquals(2, getEnhancedByteCodeCacheInfo().getSize());
+
+        // 删除B后按A重新编织，A单独编织的结果已经被缓存；包含B的缓存随之清理
+        long hitCount = getEnhancedByteCodeCacheInfo().getHitCount();
+        watcher.delete(watchIdB);
+        assertEquals(hitCount + 1, getEnhancedByteCodeCacheInfo().getHitCount());
+        assertEquals(1, getEnhancedByteCodeCacheInfo().getSize());
+
+        // 同一个过滤器重新添加观察会产生新的监听器ID，不会命中缓存
+        hitCount = getEnhancedByteCodeCacheInfo().getHitCount();
+        final int watchIdC = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        assertEquals(hitCount, getEnhancedByteCodeCacheInfo().getHitCount());
+
+        // 所有观察删除后不再残留任何缓存
+        watcher.delete(watchIdC);
+        watcher.delete(watchIdA);
+        assertEquals(0, getEnhancedByteCodeCacheInfo().getSize());
+    }
+
+    @Test
+    public void test$$enhancedByteCodeCache$$invalidateMerged() throws Throwable {
+        final ModuleEventWatcher watcher = buildingModuleEventWatcher("enhance.cache.enable", "true", "spy.merge.enable", "true");
+        inst.regLoadedClass(Calculator.class);
+
+        // 合并埋点时缓存键中是监听器组ID，删除观察时随监听器组一起清理
+        final int watchIdA = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        final int watchIdB = watcher.watch(toCondition("add"), new RecordingEventListener(), null, true, BEFORE);
+        assertEquals(2, getEnhancedByteCodeCacheInfo().getSize());
+        watcher.delete(watchIdB);
+        assertEquals(1, getEnhancedByteCodeCacheInfo().getSize());
+        watcher.delete(watchIdA);
+        assertEquals(0, getEnhancedByteCodeCacheInfo().getSize());
+    }
+
+}
@@ -23,6 +23,11 @@ public class EmptyModuleEventWatcher implements ModuleEventWatcher {
         return 0;
     }
 
+    @Override
+    public int watch(EventWatchCondition condition, EventListener listener, Progress progress, boolean isWithoutParameters, Event.Type... eventType) {
+        return watch(condition, listener, progress, eventType);
+    }
+
     @Override
     public void delete(int watcherId, Progress progress) {
 
@@ -0,0 +1,151 @@
+package com.alibaba.jvm.sandbox.qatest.core.mock;
+
+import java.io.IOException;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.UnmodifiableClassException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toInternalClassName;
+import static com.alibaba.jvm.sandbox.qatest.core.util.QaClassUtils.toByteArray;
+
+/**
+ * 模拟类的首次加载和重新形变的Instrumentation
+ * <p>
+ * 重新形变时从类的原始字节码开始，依次经过所有注册的{@link ClassFileTransformer}，
+ * 和JVM一样，一批类中只要有一个类形变失败，整批都会失败
+ * </p>
+ */
+public class ReTransformInstrumentation extends EmptyInstrumentation {
+
+    private final List<ClassFileTransformer> transformers = new CopyOnWriteArrayList<ClassFileTransformer>();
+    private final Set<Class<?>> loadedClasses = new LinkedHashSet<Class<?>>();
+    private final Set<Class<?>> reTransformFailedClasses = new HashSet<Class<?>>();
+
+    // 类最近一次形变后的字节码，弱引用持有类，不影响类的卸载
+    private final Map<Class<?>, byte[]> byteCodes = new WeakHashMap<Class<?>, byte[]>();
+
+    // 每次重新形变的一批类
+    private final List<List<String>> reTransformBatches = new ArrayList<List<String>>();
+
+    public ReTransformInstrumentation regLoadedClass(final Class<?>... classes) {
+        loadedClasses.addAll(Arrays.asList(classes));
+        return this;
+    }
+
+    public ReTransformInstrumentation unRegLoadedClass(final Class<?> clazz) {
+        loadedClasses.remove(clazz);
+        return this;
+    }
+
+    /**
+     * 注册形变失败的类，类本身仍然可以修改，但重新形变时会失败
+     *
+     * @param clazz 类
+     * @return this
+     */
+    public ReTransformInstrumentation regReTransformFailedClass(final Class<?> clazz) {
+        reTransformFailedClasses.add(clazz);
+        return this;
+    }
+
+    /**
+     * 模拟类的首次加载，类尚未定义，所以形变时没有Class对象
+     *
+     * @param loader        ClassLoader
+     * @param javaClassName 类名
+     * @param byteCodeArray 原始字节码
+     * @return 形变后的字节码
+     */
+    public byte[] loadClass(final ClassLoader loader,
+                            final String javaClassName,
+                            final byte[] byteCodeArray) throws IllegalClassFormatException {
+        return transform(loader, javaClassName, null, byteCodeArray);
+    }
+
+    /**
+     * 获取类最近一次形变后的字节码
+     *
+     * @param clazz 类
+     * @return 字节码，没有形变过时返回null
+     */
+    public byte[] getByteCodes(final Class<?> clazz) {
+        return byteCodes.get(clazz);
+    }
+
+    /**
+     * 获取每次重新形变的一批类的类名
+     *
+     * @return 重新形变的批次
+     */
+    public List<List<String>> getReTransformBatches() {
+        return reTransformBatches;
+    }
+
+    private byte[] transform(final ClassLoader loader,
+                             final String javaClassName,
+                             final Class<?> classBeingRedefined,
+                             final byte[] byteCodeArray) throws IllegalClassFormatException {
+        byte[] current = byteCodeArray;
+        for (final ClassFileTransformer transformer : transformers) {
+            final byte[] transformed = transformer.transform(loader, toInternalClassName(javaClassName), classBeingRedefined, null, current);
+            if (null != transformed) {
+                current = transformed;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void addTransformer(ClassFileTransformer transformer, boolean canRetransform) {
+        transformers.add(transformer);
+    }
+
+    @Override
+    public void addTransformer(ClassFileTransformer transformer) {
+        transformers.add(transformer);
+    }
+
+    @Override
+    public boolean removeTransformer(ClassFileTransformer transformer) {
+        return transformers.remove(transformer);
+    }
+
+    @Override
+    public boolean isRetransformClassesSupported() {
+        return true;
+    }
+
+    @Override
+    public void retransformClasses(Class<?>... classes) throws UnmodifiableClassException {
+        final List<String> batch = new ArrayList<String>();
+        for (final Class<?> clazz : classes) {
+            if (reTransformFailedClasses.contains(clazz)) {
+                throw new UnmodifiableClassException(clazz.getName());
+            }
+            batch.add(clazz.getName());
+        }
+        reTransformBatches.add(batch);
+        for (final Class<?> clazz : classes) {
+            try {
+                byteCodes.put(clazz, transform(clazz.getClassLoader(), clazz.getName(), clazz, toByteArray(clazz)));
+            } catch (IOException cause) {
+                throw new IllegalStateException(cause);
+            } catch (IllegalClassFormatException cause) {
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    @Override
+    public boolean isModifiableClass(Class<?> theClass) {
+        return true;
+    }
+
+    @Override
+    public Class[] getAllLoadedClasses() {
+        return loadedClasses.toArray(new Class<?>[0]);
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.alibaba.jvm.sandbox.qatest.core.util;
+
+import com.alibaba.jvm.sandbox.qatest.core.util.matcher.target.ChildClass;
+import com.alibaba.jvm.sandbox.qatest.core.util.matcher.target.GrandpaClass;
+import com.alibaba.jvm.sandbox.qatest.core.util.matcher.target.IParentInterfaceFirst;
+import com.alibaba.jvm.sandbox.qatest.core.util.matcher.target.ParentClass;
+import org.junit.Test;
+
+import static com.alibaba.jvm.sandbox.core.util.AsmUtils.getCommonSuperClass;
+import static com.alibaba.jvm.sandbox.core.util.SandboxStringUtils.toInternalClassName;
+import static org.junit.Assert.assertEquals;
+
+public class AsmUtilsTestCase {
+
+    private final ClassLoader loader = ChildClass.class.getClassLoader();
+
+    private static String internal(final Class<?> clazz) {
+        return toInternalClassName(clazz.getName());
+    }
+
+    @Test
+    public void test$$getCommonSuperClass$$family() {
+        assertEquals(internal(ParentClass.class), getCommonSuperClass(internal(ChildClass.class), internal(ParentClass.class), loader));
+        assertEquals(internal(ParentClass.class), getCommonSuperClass(internal(ParentClass.class), internal(ChildClass.class), loader));
+    }
+
+    @Test
+    public void test$$getCommonSuperClass$$ancestor() {
+        assertEquals(internal(GrandpaClass.class), getCommonSuperClass(internal(ChildClass.class), internal(GrandpaClass.class), loader));
+    }
+
+    @Test
+    public void test$$getCommonSuperClass$$object() {
+        assertEquals("java/lang/Object", getCommonSuperClass(internal(ChildClass.class), internal(String.class), loader));
+        assertEquals("java/lang/Object", getCommonSuperClass(internal(ChildClass.class), internal(ChildClass.PublicStaticClass.class), loader));
+        assertEquals("java/lang/Object", getCommonSuperClass(internal(IParentInterfaceFirst.class), internal(GrandpaClass.class), loader));
+        assertEquals("java/lang/Object", getCommonSuperClass(internal(ChildClass.class), "not/exist/Class", loader));
+    }
+
+    @Test
+    public void test$$getCommonSuperClass$$cached() {
+        for (int index = 0; index < 3; index++) {
+            assertEquals(internal(ParentClass.class), getCommonSuperClass(internal(ChildClass.class), internal(ParentClass.class), null));
+        }
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.alibaba.jvm.sandbox.qatest.core.util;
+
+import com.alibaba.jvm.sandbox.api.event.BehaviorMeta;
+import com.alibaba.jvm.sandbox.core.util.BehaviorIDs;
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import com.alibaba.jvm.sandbox.qatest.core.enhance.target.Calculator;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static com.alibaba.jvm.sandbox.qatest.core.util.QaClassUtils.toByteArray;
+import static org.junit.Assert.*;
+
+public class BehaviorIDsTestCase {
+
+    private final ClassLoader loader = Calculator.class.getClassLoader();
+    private final int loaderObjectID = ObjectIDs.instance.identity(loader);
+
+    @Test
+    public void test$$registerOnlyOnce() {
+        final int behaviorId = BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "add", "(II)I");
+        assertEquals(behaviorId, BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "add", "(II)I"));
+        assertTrue(behaviorId != BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "pow", "(II)I"));
+    }
+
+    @Test
+    public void test$$isolatedByLoader() {
+        final ClassLoader otherLoader = new URLClassLoader(new URL[0], loader);
+        final int behaviorId = BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "add", "(II)I");
+        final int otherBehaviorId = BehaviorIDs.instance.register(ObjectIDs.instance.identity(otherLoader), Calculator.class.getName(), "add", "(II)I");
+        assertTrue(behaviorId != otherBehaviorId);
+        assertSame(loader, BehaviorIDs.instance.getBehaviorMeta(behaviorId).getJavaClassLoader());
+        assertSame(otherLoader, BehaviorIDs.instance.getBehaviorMeta(otherBehaviorId).getJavaClassLoader());
+    }
+
+    @Test
+    public void test$$getBehaviorMeta() throws Exception {
+        final int behaviorId = BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "sum", "([I)I");
+        final BehaviorMeta behaviorMeta = BehaviorIDs.instance.getBehaviorMeta(behaviorId);
+        assertEquals(behaviorId, behaviorMeta.getBehaviorId());
+        assertEquals(Calculator.class.getName(), behaviorMeta.getJavaClassName());
+        assertEquals("sum", behaviorMeta.getJavaMethodName());
+        assertEquals("([I)I", behaviorMeta.getJavaMethodDesc());
+        assertEquals(Calculator.class.getDeclaredMethod("sum", int[].class), behaviorMeta.getBehavior().getTarget());
+        assertSame(behaviorMeta.getBehavior(), behaviorMeta.getBehavior());
+    }
+
+    @Test
+    public void test$$getConstructorAndBootstrapBehavior() throws Exception {
+        assertEquals(
+                Calculator.class.getDeclaredConstructor(String.class),
+                BehaviorIDs.instance.getBehaviorMeta(
+                        BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "<init>", "(Ljava/lang/String;)V")
+                ).getBehavior().getTarget()
+        );
+        assertEquals(
+                String.class.getDeclaredMethod("length"),
+                BehaviorIDs.instance.getBehaviorMeta(
+                        BehaviorIDs.instance.register(ObjectIDs.NULL_ID, String.class.getName(), "length", "()I")
+                ).getBehavior().getTarget()
+        );
+    }
+
+    @Test(expected = NoSuchMethodException.class)
+    public void test$$noSuchMethod() throws Exception {
+        BehaviorIDs.instance.getBehaviorMeta(
+                BehaviorIDs.instance.register(loaderObjectID, Calculator.class.getName(), "notExisted", "()V")
+        ).getBehavior();
+    }
+
+    @Test
+    public void test$$notRegistered() {
+        assertNull(BehaviorIDs.instance.getBehaviorMeta(-1));
+        assertNull(BehaviorIDs.instance.getBehaviorMeta(Integer.MAX_VALUE));
+    }
+
+    /**
+     * 单独定义Calculator的ClassLoader，其他类从测试用例的ClassLoader获取
+     */
+    private static class CalculatorClassLoader extends ClassLoader {
+
+        CalculatorClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> defineCalculatorClass() throws IOException {
+            final byte[] byteCodeArray = toByteArray(Calculator.class);
+            return defineClass(Calculator.class.getName(), byteCodeArray, 0, byteCodeArray.length);
+        }
+
+    }
+
+    // 在新的ClassLoader中登记行为并解析出行为，只返回ClassLoader的弱引用
+    private WeakReference<ClassLoader> registerInCollectableLoader() throws Exception {
+        final CalculatorClassLoader calculatorLoader = new CalculatorClassLoader(loader);
+        final Class<?> calculatorClass = calculatorLoader.defineCalculatorClass();
+        final int behaviorId = BehaviorIDs.instance.register(
+                ObjectIDs.instance.identity(calculatorLoader), Calculator.class.getName(), "add", "(II)I");
+        assertSame(calculatorClass, BehaviorIDs.instance.getBehaviorMeta(behaviorId).getBehavior().getDeclaringClass());
+        return new WeakReference<ClassLoader>(calculatorLoader);
+    }
+
+    @Test
+    public void test$$collectableLoader() throws Exception {
+        final WeakReference<ClassLoader> loaderRef = registerInCollectableLoader();
+        final int size = BehaviorIDs.instance.size();
+        for (int count = 0; count < 50 && null != loaderRef.get(); count++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        // 解析出的行为只被弱引用，不会钉住业务ClassLoader；ClassLoader被回收后它的行为随之清理
+        assertNull(loaderRef.get());
+        assertTrue(BehaviorIDs.instance.size() < size);
+    }
+
+}
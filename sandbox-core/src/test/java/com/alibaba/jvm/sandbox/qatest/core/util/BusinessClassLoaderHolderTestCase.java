@@ -0,0 +1,49 @@
+package com.alibaba.jvm.sandbox.qatest.core.util;
+
+import com.alibaba.jvm.sandbox.core.classloader.BusinessClassLoaderHolder;
+import com.alibaba.jvm.sandbox.core.classloader.BusinessClassLoaderHolder.DelegateBizClassLoader;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.*;
+
+public class BusinessClassLoaderHolderTestCase {
+
+    @After
+    public void clean() {
+        BusinessClassLoaderHolder.removeBussinessClassLoader();
+    }
+
+    @Test
+    public void test$$sameDelegateForSameLoader() throws ClassNotFoundException {
+        final ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        BusinessClassLoaderHolder.setBussinessClassLoader(loader);
+        final DelegateBizClassLoader delegateBizClassLoader = BusinessClassLoaderHolder.getBussinessClassLoader();
+        assertNotNull(delegateBizClassLoader);
+        assertSame(loader, delegateBizClassLoader.getParent());
+        assertSame(getClass(), delegateBizClassLoader.loadClass(getClass().getName()));
+
+        BusinessClassLoaderHolder.setBussinessClassLoader(loader);
+        assertSame(delegateBizClassLoader, BusinessClassLoaderHolder.getBussinessClassLoader());
+    }
+
+    @Test
+    public void test$$otherDelegateForOtherLoader() {
+        BusinessClassLoaderHolder.setBussinessClassLoader(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+        final DelegateBizClassLoader delegateBizClassLoader = BusinessClassLoaderHolder.getBussinessClassLoader();
+        BusinessClassLoaderHolder.setBussinessClassLoader(new URLClassLoader(new URL[0], getClass().getClassLoader()));
+        assertNotSame(delegateBizClassLoader, BusinessClassLoaderHolder.getBussinessClassLoader());
+    }
+
+    @Test
+    public void test$$remove() {
+        BusinessClassLoaderHolder.setBussinessClassLoader(getClass().getClassLoader());
+        assertNotNull(BusinessClassLoaderHolder.getBussinessClassLoader());
+        BusinessClassLoaderHolder.removeBussinessClassLoader();
+        assertNull(BusinessClassLoaderHolder.getBussinessClassLoader());
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.alibaba.jvm.sandbox.qatest.core.util;
+
+import com.alibaba.jvm.sandbox.core.util.CopyOnWriteIntMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CopyOnWriteIntMapTestCase {
+
+    @Test
+    public void test$$putAndGet() {
+        final CopyOnWriteIntMap<String> map = new CopyOnWriteIntMap<String>();
+        assertNull(map.get(1000));
+        assertNull(map.put(1000, "a"));
+        assertNull(map.put(Integer.MAX_VALUE, "b"));
+        assertNull(map.put(-1, "c"));
+        assertEquals("a", map.put(1000, "A"));
+        assertEquals("A", map.get(1000));
+        assertEquals("b", map.get(Integer.MAX_VALUE));
+        assertEquals("c", map.get(-1));
+        assertNull(map.get(1001));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void test$$remove() {
+        final CopyOnWriteIntMap<String> map = new CopyOnWriteIntMap<String>();
+        map.put(1000, "a");
+        map.put(2000, "b");
+        assertEquals("a", map.remove(1000));
+        assertNull(map.remove(1000));
+        assertNull(map.get(1000));
+        assertEquals("b", map.get(2000));
+        assertEquals(1, map.size());
+        assertEquals("b", map.remove(2000));
+        assertEquals(0, map.size());
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void test$$nullValue() {
+        new CopyOnWriteIntMap<String>().put(1000, null);
+    }
+
+    @Test
+    public void test$$sparseKeys() {
+        final CopyOnWriteIntMap<Integer> map = new CopyOnWriteIntMap<Integer>();
+        final Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        final Random random = new Random(0);
+        for (int index = 0; index < 2000; index++) {
+            final int key = random.nextInt();
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, index), map.put(key, index));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), map.values().size());
+        for (final Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+
+}
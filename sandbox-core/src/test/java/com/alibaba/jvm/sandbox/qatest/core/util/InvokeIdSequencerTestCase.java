@@ -0,0 +1,92 @@
+package com.alibaba.jvm.sandbox.qatest.core.util;
+
+import com.alibaba.jvm.sandbox.core.util.InvokeIdSequencer;
+import com.alibaba.jvm.sandbox.core.util.SandboxThreadContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class InvokeIdSequencerTestCase {
+
+    @Test
+    public void test$$sequentialInThread() {
+        final InvokeIdSequencer sequencer = new InvokeIdSequencer(1000);
+        final int first = sequencer.next();
+        assertEquals(1000, first);
+        for (int index = 1; index < 5000; index++) {
+            assertEquals(first + index, sequencer.next());
+        }
+    }
+
+    @Test
+    public void test$$uniqueAcrossThreads() throws Exception {
+        final InvokeIdSequencer sequencer = new InvokeIdSequencer(1000);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        final int[] invokeIds = new int[10000];
+                        for (int index = 0; index < invokeIds.length; index++) {
+                            invokeIds[index] = sequencer.next();
+                        }
+                        return invokeIds;
+                    }
+                }));
+            }
+            final Set<Integer> invokeIdSet = new HashSet<Integer>();
+            for (final Future<int[]> future : futures) {
+                for (final int invokeId : future.get()) {
+                    assertTrue(invokeId >= 1000);
+                    assertTrue(invokeIdSet.add(invokeId));
+                }
+            }
+            assertEquals(8 * 10000, invokeIdSet.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test$$keepBlockAfterContextRemoved() {
+        final InvokeIdSequencer sequencer = new InvokeIdSequencer(1000);
+
+        // 上下文空闲后会从线程中移除，新的上下文仍然接着原来预留的ID区间分配
+        SandboxThreadContext.current().enterProtecting();
+        final int invokeId = sequencer.next(SandboxThreadContext.peek());
+        SandboxThreadContext.peek().exitProtecting();
+        assertNull(SandboxThreadContext.peek());
+
+        assertEquals(invokeId + 1, sequencer.next(SandboxThreadContext.current()));
+        assertEquals(invokeId + 2, sequencer.next());
+    }
+
+    @Test
+    public void test$$wrapAround() {
+        // 只够分配两段ID
+        final int first = Integer.MAX_VALUE - 2 * 1024 - 10;
+        final InvokeIdSequencer sequencer = new InvokeIdSequencer(first);
+        for (int index = 0; index < 2 * 1024; index++) {
+            final int invokeId = sequencer.next();
+            assertEquals(first + index, invokeId);
+        }
+        assertEquals(first, sequencer.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test$$illegalFirst() {
+        new InvokeIdSequencer(-1);
+    }
+
+}
@@ -5,6 +5,7 @@ import com.alibaba.jvm.sandbox.api.event.Event.Type;
 import com.alibaba.jvm.sandbox.api.filter.Filter;
 import com.alibaba.jvm.sandbox.api.listener.EventListener;
 import com.alibaba.jvm.sandbox.api.listener.ext.AdviceListener;
+import com.alibaba.jvm.sandbox.core.enhance.EnhanceUnit;
 import com.alibaba.jvm.sandbox.core.enhance.EventEnhancer;
 import com.alibaba.jvm.sandbox.core.enhance.weaver.EventListenerHandler;
 import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
@@ -18,6 +19,7 @@ import com.alibaba.jvm.sandbox.qatest.core.enhance.transformer.TestThirdEnhance;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,6 +95,7 @@ public class JvmHelper {
         protected final Filter filter;
         private final EventListener listener;
         private final Event.Type[] eventTypes;
+        private boolean isWithoutParameters = false;
 
         public Transformer(final Filter filter,
                            final EventListener listener,
@@ -113,9 +116,41 @@ public class JvmHelper {
             this.eventTypes = eventTypeList.toArray(new Event.Type[]{});
         }
 
+        /**
+         * 声明监听器不需要方法的参数和{@code this}
+         *
+         * @return this
+         */
+        public Transformer withoutParameters() {
+            this.isWithoutParameters = true;
+            return this;
+        }
+
         public byte[] transform(final String namespace,
                                 final ClassLoader loader,
                                 final byte[] byteCodes) {
+            final EnhanceUnit enhanceUnit = toEnhanceUnit(loader, byteCodes);
+            if (null != enhanceUnit) {
+                return new EventEnhancer().toByteCodeArray(
+                        loader,
+                        byteCodes,
+                        namespace,
+                        Collections.singletonList(enhanceUnit)
+                );
+            } else {
+                return byteCodes;
+            }
+        }
+
+        /**
+         * 激活监听器并生成增强单元
+         *
+         * @param loader    目标类加载器
+         * @param byteCodes 字节码
+         * @return 增强单元，没有匹配上任何行为时返回null
+         */
+        EnhanceUnit toEnhanceUnit(final ClassLoader loader,
+                                  final byte[] byteCodes) {
 
             final MatchingResult matchingResult = new ExtFilterMatcher(make(filter))
                     .matching(ClassStructureFactory.createClassStructure(byteCodes, loader));
@@ -127,18 +162,9 @@ public class JvmHelper {
                     eventTypes
             );
 
-            if (matchingResult.isMatched()) {
-                return new EventEnhancer().toByteCodeArray(
-                        loader,
-                        byteCodes,
-                        matchingResult.getBehaviorSignCodes(),
-                        namespace,
-                        listenerId,
-                        eventTypes
-                );
-            } else {
-                return byteCodes;
-            }
+            return matchingResult.isMatched()
+                    ? new EnhanceUnit(listenerId, matchingResult.getBehaviorSignCodes(), eventTypes, isWithoutParameters)
+                    : null;
         }
 
     }
@@ -178,7 +204,66 @@ public class JvmHelper {
         return this;
     }
 
+    /**
+     * 多个观察合并在一次编织中完成增强
+     *
+     * @param clazz        目标类
+     * @param transformers 观察
+     * @return this
+     */
+    public JvmHelper defineClassByMergedEnhance(final Class<?> clazz,
+                                                final Transformer... transformers) throws IOException, InvocationTargetException, IllegalAccessException {
+        final byte[] byteCodes = toByteArray(clazz);
+        final List<EnhanceUnit> enhanceUnits = new ArrayList<EnhanceUnit>();
+        for (final Transformer transformer : transformers) {
+            final EnhanceUnit enhanceUnit = transformer.toEnhanceUnit(classLoader, byteCodes);
+            if (null != enhanceUnit) {
+                enhanceUnits.add(enhanceUnit);
+            }
+        }
+        return defineClass(
+                getJavaClassName(clazz),
+                new EventEnhancer().toByteCodeArray(classLoader, byteCodes, namespace, enhanceUnits)
+        );
+    }
 
+    /**
+     * 多个观察合并埋点，方法中只埋入一组Spy调用
+     * <p>所有观察需要命中相同的行为，按观察的先后顺序组成一个监听器组</p>
+     *
+     * @param clazz        目标类
+     * @param transformers 观察
+     * @return this
+     */
+    public JvmHelper defineClassBySpyMerge(final Class<?> clazz,
+                                           final Transformer... transformers) throws IOException, InvocationTargetException, IllegalAccessException {
+        final byte[] byteCodes = toByteArray(clazz);
+        final List<Integer> listenerIds = new ArrayList<Integer>();
+        final Set<String> signCodes = new LinkedHashSet<String>();
+        final Set<Event.Type> eventTypes = new LinkedHashSet<Event.Type>();
+        for (final Transformer transformer : transformers) {
+            final EnhanceUnit enhanceUnit = transformer.toEnhanceUnit(classLoader, byteCodes);
+            if (null != enhanceUnit) {
+                listenerIds.add(enhanceUnit.getListenerId());
+                signCodes.addAll(enhanceUnit.getSignCodes());
+                eventTypes.addAll(Arrays.asList(enhanceUnit.getEventTypeArray()));
+            }
+        }
+        final int groupId = EventListenerHandler.getSingleton().registerListenerGroup(
+                ArrayUtils.toPrimitive(listenerIds.toArray(new Integer[0]))
+        );
+        return defineClass(
+                getJavaClassName(clazz),
+                new EventEnhancer().toByteCodeArray(
+                        classLoader,
+                        byteCodes,
+                        signCodes,
+                        namespace,
+                        groupId,
+                        eventTypes.toArray(new Event.Type[0])
+                )
+        );
+    }
 
     public Class<?> loadClass(String javaClassName) throws ClassNotFoundException {
         return classLoader.loadClass(javaClassName);
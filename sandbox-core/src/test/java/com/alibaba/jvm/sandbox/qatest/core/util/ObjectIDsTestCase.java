@@ -0,0 +1,101 @@
+package com.alibaba.jvm.sandbox.qatest.core.util;
+
+import com.alibaba.jvm.sandbox.core.util.ObjectIDs;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ObjectIDsTestCase {
+
+    @Test
+    public void test$$null() {
+        assertEquals(ObjectIDs.NULL_ID, ObjectIDs.instance.identity(null));
+        assertNull(ObjectIDs.instance.getObject(ObjectIDs.NULL_ID));
+    }
+
+    @Test
+    public void test$$identityAndGetObject() {
+        final Object object = new Object();
+        final int objectID = ObjectIDs.instance.identity(object);
+        assertEquals(objectID, ObjectIDs.instance.identity(object));
+        assertSame(object, ObjectIDs.instance.getObject(objectID));
+    }
+
+    @Test
+    public void test$$byIdentity() {
+        final String string = new String("sandbox");
+        final String equalString = new String("sandbox");
+        assertTrue(ObjectIDs.instance.identity(string) != ObjectIDs.instance.identity(equalString));
+    }
+
+    @Test
+    public void test$$notExisted() {
+        assertNull(ObjectIDs.instance.getObject(-1));
+        assertNull(ObjectIDs.instance.getObject(Integer.MAX_VALUE));
+    }
+
+    // 为一个临时对象分配ID，只返回ID和对象的弱引用
+    private int identityTemporary(final List<WeakReference<Object>> refs) {
+        final Object object = new Object();
+        refs.add(new WeakReference<Object>(object));
+        return ObjectIDs.instance.identity(object);
+    }
+
+    @Test
+    public void test$$collected() throws InterruptedException {
+        final List<WeakReference<Object>> refs = new ArrayList<WeakReference<Object>>();
+        final int objectID = identityTemporary(refs);
+        for (int count = 0; count < 50 && null != refs.get(0).get(); count++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertNull(refs.get(0).get());
+
+        // 再次分配ID时清理已经回收的对象，旧ID不会映射回任何对象
+        final Object object = new Object();
+        final int newObjectID = ObjectIDs.instance.identity(object);
+        assertTrue(newObjectID != objectID);
+        assertNull(ObjectIDs.instance.getObject(objectID));
+        assertSame(object, ObjectIDs.instance.getObject(newObjectID));
+    }
+
+    @Test
+    public void test$$concurrent() throws Exception {
+        final Object[] objects = new Object[1000];
+        for (int index = 0; index < objects.length; index++) {
+            objects[index] = new Object();
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        final int[] objectIDs = new int[objects.length];
+                        for (int index = 0; index < objects.length; index++) {
+                            objectIDs[index] = ObjectIDs.instance.identity(objects[index]);
+                            assertSame(objects[index], ObjectIDs.instance.getObject(objectIDs[index]));
+                        }
+                        return objectIDs;
+                    }
+                }));
+            }
+            final int[] objectIDs = futures.get(0).get();
+            for (final Future<int[]> future : futures) {
+                assertArrayEquals(objectIDs, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
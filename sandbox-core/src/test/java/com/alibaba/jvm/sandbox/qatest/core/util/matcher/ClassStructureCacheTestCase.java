@@ -0,0 +1,97 @@
+package com.alibaba.jvm.sandbox.qatest.core.util.matcher;
+
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructure;
+import com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureCache;
+import com.alibaba.jvm.sandbox.qatest.core.util.matcher.target.ChildClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static com.alibaba.jvm.sandbox.core.util.matcher.structure.ClassStructureFactory.createClassStructure;
+import static com.alibaba.jvm.sandbox.qatest.core.util.QaClassUtils.toByteArray;
+import static org.junit.Assert.*;
+
+public class ClassStructureCacheTestCase {
+
+    private final ClassLoader loader = ChildClass.class.getClassLoader();
+
+    // 从字节码构造类结构，父类结构通过缓存获取
+    private ClassStructure getSuperClassStructureByAsm(final ClassLoader loader) throws IOException {
+        return createClassStructure(toByteArray(ChildClass.class), loader).getSuperClassStructure();
+    }
+
+    @Test
+    public void test$$byJDK$$shared() {
+        final long hitCount = ClassStructureCache.instance.stats().hitCount();
+        assertSame(createClassStructure(ChildClass.class), createClassStructure(ChildClass.class));
+        assertTrue(ClassStructureCache.instance.stats().hitCount() > hitCount);
+    }
+
+    @Test
+    public void test$$byAsm$$sharedInSameLoader() throws IOException {
+        final ClassStructure superClassStructure = getSuperClassStructureByAsm(loader);
+        assertNotNull(superClassStructure);
+        assertSame(superClassStructure, getSuperClassStructureByAsm(loader));
+    }
+
+    @Test
+    public void test$$byAsm$$isolatedByLoader() throws IOException {
+        final ClassLoader otherLoader = new URLClassLoader(new URL[0], loader);
+        final ClassStructure superClassStructure = getSuperClassStructureByAsm(loader);
+        final ClassStructure otherSuperClassStructure = getSuperClassStructureByAsm(otherLoader);
+        assertNotSame(superClassStructure, otherSuperClassStructure);
+        assertEquals(superClassStructure.getJavaClassName(), otherSuperClassStructure.getJavaClassName());
+        assertSame(otherLoader, otherSuperClassStructure.getClassLoader());
+    }
+
+    @Test
+    public void test$$invalidate() throws IOException {
+        final ClassLoader otherLoader = new URLClassLoader(new URL[0], loader);
+        final ClassStructure superClassStructure = getSuperClassStructureByAsm(otherLoader);
+        assertSame(superClassStructure, getSuperClassStructureByAsm(otherLoader));
+        ClassStructureCache.instance.invalidate(otherLoader);
+        assertNotSame(superClassStructure, getSuperClassStructureByAsm(otherLoader));
+    }
+
+    /**
+     * 单独定义ChildClass的ClassLoader，父类从测试用例的ClassLoader获取
+     */
+    private static class ChildClassLoader extends ClassLoader {
+
+        ChildClassLoader(final ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> defineChildClass() throws IOException {
+            final byte[] byteCodeArray = toByteArray(ChildClass.class);
+            return defineClass(ChildClass.class.getName(), byteCodeArray, 0, byteCodeArray.length);
+        }
+
+    }
+
+    // 在新的ClassLoader中定义类并缓存JDK和ASM实现的类结构，只返回ClassLoader的弱引用
+    private WeakReference<ClassLoader> cacheInCollectableLoader() throws IOException {
+        final ChildClassLoader childLoader = new ChildClassLoader(loader);
+        final Class<?> childClass = childLoader.defineChildClass();
+        assertSame(childLoader, createClassStructure(childClass).getClassLoader());
+        assertNotNull(createClassStructure(childClass).getSuperClassStructure());
+        assertNotNull(getSuperClassStructureByAsm(childLoader));
+        return new WeakReference<ClassLoader>(childLoader);
+    }
+
+    @Test
+    public void test$$collectableLoader() throws IOException, InterruptedException {
+        final WeakReference<ClassLoader> loaderRef = cacheInCollectableLoader();
+        for (int count = 0; count < 50 && null != loaderRef.get(); count++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        // 类结构只弱引用类和ClassLoader，缓存不会钉住业务ClassLoader
+        assertNull(loaderRef.get());
+    }
+
+}
@@ -4,6 +4,7 @@ import com.alibaba.jvm.sandbox.api.Information;
 import com.alibaba.jvm.sandbox.api.Module;
 import com.alibaba.jvm.sandbox.api.annotation.Command;
 import com.alibaba.jvm.sandbox.api.event.Event;
+import com.alibaba.jvm.sandbox.api.resource.CacheMonitor;
 import com.alibaba.jvm.sandbox.api.resource.ConfigInfo;
 import org.kohsuke.MetaInfServices;
 
@@ -23,6 +24,9 @@ public class InfoModule implements Module {
     @Resource
     private ConfigInfo configInfo;
 
+    @Resource
+    private CacheMonitor cacheMonitor;
+
 //    @Resource
 //    private EventMonitor eventMonitor;
 
@@ -69,4 +73,24 @@ public class InfoModule implements Module {
 
     }
 
+    //@Http("/cache")
+    @Command("cache")
+    public void cache(final PrintWriter writer) throws IOException {
+
+        writer.println(String.format("%-20s %10s %12s %12s %8s %10s", "NAME", "SIZE", "HIT", "MISS", "HIT%", "EVICTION"));
+        for (final CacheMonitor.CacheInfo cacheInfo : cacheMonitor.listCacheInfos()) {
+            final long requestCount = cacheInfo.getHitCount() + cacheInfo.getMissCount();
+            writer.println(String.format("%-20s %10d %12d %12d %7.2f%% %10d",
+                    cacheInfo.getName(),
+                    cacheInfo.getSize(),
+                    cacheInfo.getHitCount(),
+                    cacheInfo.getMissCount(),
+                    requestCount == 0 ? 0.0 : 100.0 * cacheInfo.getHitCount() / requestCount,
+                    cacheInfo.getEvictionCount()
+            ));
+        }
+        writer.flush();
+
+    }
+
 }
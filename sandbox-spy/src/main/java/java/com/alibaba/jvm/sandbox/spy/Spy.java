@@ -2,7 +2,6 @@ package java.com.alibaba.jvm.sandbox.spy;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 间谍类，藏匿在各个ClassLoader中
@@ -25,8 +24,14 @@ public class Spy {
      */
     public static volatile boolean isSpyThrowException = false;
 
-    private static final ConcurrentHashMap<String, SpyHandler> namespaceSpyHandlerMap
-            = new ConcurrentHashMap<String, SpyHandler>();
+    // 命名空间:命名空间下标
+    // 命名空间下标一经分配就不再回收，避免已经织入字节码中的下标被其他命名空间复用
+    private static final ConcurrentHashMap<String, Integer> namespaceIndexMap
+            = new ConcurrentHashMap<String, Integer>();
+
+    // 命名空间下标:间谍处理器
+    // 写时复制，织入代码直接用命名空间下标读取数组
+    private static volatile SpyHandler[] spyHandlers = new SpyHandler[0];
 
     /**
      * 判断间谍类是否已经完成初始化
@@ -35,7 +40,33 @@ public class Spy {
      * @return TRUE:已完成初始化;FALSE:未完成初始化;
      */
     public static boolean isInit(final String namespace) {
-        return namespaceSpyHandlerMap.containsKey(namespace);
+        final Integer namespaceIndex = namespaceIndexMap.get(namespace);
+        return null != namespaceIndex
+                && null != getSpyHandler(namespaceIndex);
+    }
+
+    /**
+     * 获取命名空间下标
+     * <p>
+     * 命名空间第一次被获取时分配下标，之后同一个命名空间总是返回相同的下标，
+     * 织入的字节码中用这个下标代替命名空间字符串
+     * </p>
+     *
+     * @param namespace 命名空间
+     * @return 命名空间下标
+     * @since {@code sandbox-spy:1.3.3}
+     */
+    public static int getNamespaceIndex(final String namespace) {
+        final Integer namespaceIndex = namespaceIndexMap.get(namespace);
+        if (null != namespaceIndex) {
+            return namespaceIndex;
+        }
+        synchronized (Spy.class) {
+            if (!namespaceIndexMap.containsKey(namespace)) {
+                namespaceIndexMap.put(namespace, namespaceIndexMap.size());
+            }
+            return namespaceIndexMap.get(namespace);
+        }
     }
 
     /**
@@ -43,11 +74,16 @@ public class Spy {
      *
      * @param namespace  命名空间
      * @param spyHandler 间谍处理器
+     * @return 命名空间下标
      * @since {@code sandbox-spy:1.3.0}
      */
-    public static void init(final String namespace,
-                            final SpyHandler spyHandler) {
-        namespaceSpyHandlerMap.putIfAbsent(namespace, spyHandler);
+    public synchronized static int init(final String namespace,
+                                        final SpyHandler spyHandler) {
+        final int namespaceIndex = getNamespaceIndex(namespace);
+        if (null == getSpyHandler(namespaceIndex)) {
+            setSpyHandler(namespaceIndex, spyHandler);
+        }
+        return namespaceIndex;
     }
 
     /**
@@ -56,11 +92,34 @@ public class Spy {
      * @param namespace 命名空间
      */
     public synchronized static void clean(final String namespace) {
-        namespaceSpyHandlerMap.remove(namespace);
-        // 如果是最后的一个命名空间，则需要重新清理Node中所持有的Thread
-        if (namespaceSpyHandlerMap.isEmpty()) {
-            selfCallBarrier.cleanAndInit();
+        final Integer namespaceIndex = namespaceIndexMap.get(namespace);
+        if (null != namespaceIndex) {
+            setSpyHandler(namespaceIndex, null);
         }
+        // 如果是最后的一个命名空间，则需要丢弃各线程所持有的重入标记
+        for (final SpyHandler spyHandler : spyHandlers) {
+            if (null != spyHandler) {
+                return;
+            }
+        }
+        selfCallBarrier.cleanAndInit();
+    }
+
+    // 写时复制替换间谍处理器数组，调用方需持有Spy.class锁
+    private static void setSpyHandler(final int namespaceIndex,
+                                      final SpyHandler spyHandler) {
+        final SpyHandler[] current = spyHandlers;
+        final SpyHandler[] next = new SpyHandler[Math.max(current.length, namespaceIndex + 1)];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[namespaceIndex] = spyHandler;
+        spyHandlers = next;
+    }
+
+    private static SpyHandler getSpyHandler(final int namespaceIndex) {
+        final SpyHandler[] current = spyHandlers;
+        return namespaceIndex >= 0 && namespaceIndex < current.length
+                ? current[namespaceIndex]
+                : null;
     }
 
 
@@ -93,10 +152,10 @@ public class Spy {
                                              final String owner,
                                              final String name,
                                              final String desc,
-                                             final String namespace,
+                                             final int namespaceIndex,
                                              final int listenerId) throws Throwable {
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null != spyHandler) {
                 spyHandler.handleOnCallBefore(listenerId, lineNumber, owner, name, desc);
             }
@@ -105,10 +164,10 @@ public class Spy {
         }
     }
 
-    public static void spyMethodOnCallReturn(final String namespace,
+    public static void spyMethodOnCallReturn(final int namespaceIndex,
                                              final int listenerId) throws Throwable {
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null != spyHandler) {
                 spyHandler.handleOnCallReturn(listenerId);
             }
@@ -118,10 +177,10 @@ public class Spy {
     }
 
     public static void spyMethodOnCallThrows(final String throwException,
-                                             final String namespace,
+                                             final int namespaceIndex,
                                              final int listenerId) throws Throwable {
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null != spyHandler) {
                 spyHandler.handleOnCallThrows(listenerId, throwException);
             }
@@ -131,10 +190,10 @@ public class Spy {
     }
 
     public static void spyMethodOnLine(final int lineNumber,
-                                       final String namespace,
+                                       final int namespaceIndex,
                                        final int listenerId) throws Throwable {
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null != spyHandler) {
                 spyHandler.handleOnLine(listenerId, lineNumber);
             }
@@ -144,48 +203,39 @@ public class Spy {
     }
 
     public static Ret spyMethodOnBefore(final Object[] argumentArray,
-                                        final String namespace,
+                                        final int namespaceIndex,
                                         final int listenerId,
-                                        final int targetClassLoaderObjectID,
-                                        final String javaClassName,
-                                        final String javaMethodName,
-                                        final String javaMethodDesc,
+                                        final int behaviorId,
                                         final Object target) throws Throwable {
-        final Thread thread = Thread.currentThread();
-        if (selfCallBarrier.isEnter(thread)) {
+        final SelfCallBarrier.Flag flag = selfCallBarrier.current();
+        if (flag.isEnter()) {
             return Ret.RET_NONE;
         }
-        final SelfCallBarrier.Node node = selfCallBarrier.enter(thread);
+        flag.enter();
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null == spyHandler) {
                 return Ret.RET_NONE;
             }
-            return spyHandler.handleOnBefore(
-                    listenerId, targetClassLoaderObjectID, argumentArray,
-                    javaClassName,
-                    javaMethodName,
-                    javaMethodDesc,
-                    target
-            );
+            return spyHandler.handleOnBefore(listenerId, behaviorId, argumentArray, target);
         } catch (Throwable cause) {
             handleException(cause);
             return Ret.RET_NONE;
         } finally {
-            selfCallBarrier.exit(thread, node);
+            flag.exit();
         }
     }
 
     public static Ret spyMethodOnReturn(final Object object,
-                                        final String namespace,
+                                        final int namespaceIndex,
                                         final int listenerId) throws Throwable {
-        final Thread thread = Thread.currentThread();
-        if (selfCallBarrier.isEnter(thread)) {
+        final SelfCallBarrier.Flag flag = selfCallBarrier.current();
+        if (flag.isEnter()) {
             return Ret.RET_NONE;
         }
-        final SelfCallBarrier.Node node = selfCallBarrier.enter(thread);
+        flag.enter();
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null == spyHandler) {
                 return Ret.RET_NONE;
             }
@@ -194,20 +244,20 @@ public class Spy {
             handleException(cause);
             return Ret.RET_NONE;
         } finally {
-            selfCallBarrier.exit(thread, node);
+            flag.exit();
         }
     }
 
     public static Ret spyMethodOnThrows(final Throwable throwable,
-                                        final String namespace,
+                                        final int namespaceIndex,
                                         final int listenerId) throws Throwable {
-        final Thread thread = Thread.currentThread();
-        if (selfCallBarrier.isEnter(thread)) {
+        final SelfCallBarrier.Flag flag = selfCallBarrier.current();
+        if (flag.isEnter()) {
             return Ret.RET_NONE;
         }
-        final SelfCallBarrier.Node node = selfCallBarrier.enter(thread);
+        flag.enter();
         try {
-            final SpyHandler spyHandler = namespaceSpyHandlerMap.get(namespace);
+            final SpyHandler spyHandler = getSpyHandler(namespaceIndex);
             if (null == spyHandler) {
                 return Ret.RET_NONE;
             }
@@ -216,7 +266,7 @@ public class Spy {
             handleException(cause);
             return Ret.RET_NONE;
         } finally {
-            selfCallBarrier.exit(thread, node);
+            flag.exit();
         }
     }
 
@@ -265,112 +315,62 @@ public class Spy {
 
     /**
      * 本地线程
+     * <p>
+     * 每个线程持有一个独立的重入标记，判断、进入和退出都只读写当前线程自己的标记，
+     * 不需要加锁，也不会在每次调用时分配内存
+     * </p>
      */
     public static class SelfCallBarrier {
 
-        public static class Node {
-            private final Thread thread;
-            private final ReentrantLock lock;
-            private Node pre;
-            private Node next;
+        /**
+         * 线程重入标记
+         */
+        public static class Flag {
 
-//            Node() {
-//                this(null);
-//            }
+            private boolean isEnter;
 
-            Node(final Thread thread) {
-                this(thread, null);
+            boolean isEnter() {
+                return isEnter;
             }
 
-            Node(final Thread thread, final ReentrantLock lock) {
-                this.thread = thread;
-                this.lock = lock;
+            void enter() {
+                isEnter = true;
             }
 
-        }
-
-        // 删除节点
-        void delete(final Node node) {
-            node.pre.next = node.next;
-            if (null != node.next) {
-                node.next.pre = node.pre;
+            void exit() {
+                isEnter = false;
             }
-            // help gc
-            node.pre = (node.next = null);
-        }
 
-        // 插入节点
-        void insert(final Node top, final Node node) {
-            if (null != top.next) {
-                top.next.pre = node;
-            }
-            node.next = top.next;
-            node.pre = top;
-            top.next = node;
         }
 
-        static final int THREAD_LOCAL_ARRAY_LENGTH = 512;
-
-        final Node[] nodeArray = new Node[THREAD_LOCAL_ARRAY_LENGTH];
+        private volatile ThreadLocal<Flag> flagRef;
 
         SelfCallBarrier() {
             cleanAndInit();
         }
 
-        Node createTopNode() {
-            return new Node(null, new ReentrantLock());
-        }
-
+        /**
+         * 重新初始化所有线程的重入标记
+         * <p>
+         * 旧的ThreadLocal被丢弃后，各线程中残留的标记会随着ThreadLocalMap的清理而被回收
+         * </p>
+         */
         void cleanAndInit() {
-            for (int i = 0; i < THREAD_LOCAL_ARRAY_LENGTH; i++) {
-                nodeArray[i] = createTopNode();
-            }
-        }
-
-        int abs(int val) {
-            return val < 0
-                    ? val * -1
-                    : val;
-        }
-
-        boolean isEnter(Thread thread) {
-            final Node top = nodeArray[abs(thread.hashCode()) % THREAD_LOCAL_ARRAY_LENGTH];
-            Node node = top;
-            try {
-                // spin for lock
-                while (!top.lock.tryLock()) ;
-                while (null != node.next) {
-                    node = node.next;
-                    if (thread == node.thread) {
-                        return true;
-                    }
+            flagRef = new ThreadLocal<Flag>() {
+                @Override
+                protected Flag initialValue() {
+                    return new Flag();
                 }
-                return false;
-            } finally {
-                top.lock.unlock();
-            }
-        }
-
-        Node enter(Thread thread) {
-            final Node top = nodeArray[abs(thread.hashCode()) % THREAD_LOCAL_ARRAY_LENGTH];
-            final Node node = new Node(thread);
-            try {
-                while (!top.lock.tryLock()) ;
-                insert(top, node);
-            } finally {
-                top.lock.unlock();
-            }
-            return node;
+            };
         }
 
-        void exit(Thread thread, Node node) {
-            final Node top = nodeArray[abs(thread.hashCode()) % THREAD_LOCAL_ARRAY_LENGTH];
-            try {
-                while (!top.lock.tryLock()) ;
-                delete(node);
-            } finally {
-                top.lock.unlock();
-            }
+        /**
+         * 获取当前线程的重入标记
+         *
+         * @return 当前线程的重入标记
+         */
+        Flag current() {
+            return flagRef.get();
         }
 
     }
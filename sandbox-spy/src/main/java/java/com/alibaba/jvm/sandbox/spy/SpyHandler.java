@@ -53,17 +53,14 @@ public interface SpyHandler {
      * 处理方法调用:调用之前
      * <p>BEFORE</p>
      *
-     * @param listenerId                事件监听器ID
-     * @param targetClassLoaderObjectID 类所在ClassLoader
-     * @param argumentArray             参数数组
-     * @param javaClassName             类名
-     * @param javaMethodName            方法名
-     * @param javaMethodDesc            方法签名
-     * @param target                    目标对象实例
+     * @param listenerId    事件监听器ID
+     * @param behaviorId    增强时为方法分配的行为ID，通过它可以找到类所在ClassLoader、类名、方法名和方法签名
+     * @param argumentArray 参数数组
+     * @param target        目标对象实例
      * @return Spy流程控制结果
      * @throws Throwable 处理{方法调用:调用之前}失败
      */
-    Spy.Ret handleOnBefore(int listenerId, int targetClassLoaderObjectID, Object[] argumentArray, String javaClassName, String javaMethodName, String javaMethodDesc, Object target) throws Throwable;
+    Spy.Ret handleOnBefore(int listenerId, int behaviorId, Object[] argumentArray, Object target) throws Throwable;
 
     /**
      * 处理方法调用:异常返回